@@ -3,8 +3,10 @@ package com.example.responder;
 import org.springframework.ai.autoconfigure.vectorstore.elasticsearch.ElasticsearchVectorStoreAutoConfiguration;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication(exclude = {ElasticsearchVectorStoreAutoConfiguration.class})
+@ConfigurationPropertiesScan
 public class AutonomousIncidentResponderApplication {
 
     public static void main(String[] args) {
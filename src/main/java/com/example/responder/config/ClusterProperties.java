@@ -0,0 +1,45 @@
+package com.example.responder.config;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Cluster mode: replicas split the services between them by consistent hashing on the service name,
+ * so each service's runbook cache, log shard, incident memory and in-flight analyses live on one
+ * node.
+ *
+ * @param enabled Off = every node analyzes whatever it receives.
+ * @param self Base URL other members reach this node at, e.g. {@code http://localhost:8081}. It
+ *     must appear in {@code members} spelled the same way on every node.
+ * @param members Base URLs of all nodes (static; this node included).
+ * @param virtualNodes Points per member on the hash ring; more points spread services evenly.
+ * @param heartbeatInterval Delay between two rounds of heartbeats to the other members.
+ * @param heartbeatPath Path probed as heartbeat; the readiness probe keeps nodes that are still
+ *     warming up off the ring.
+ * @param heartbeatTimeout Timeout of a single heartbeat.
+ * @param failureThreshold Consecutive failed heartbeats (or forwards) after which a member leaves
+ *     the ring; its services move to the next members until a heartbeat succeeds again.
+ * @param forwardTimeout Timeout of a forwarded request; an analysis takes several LLM turns.
+ */
+@ConfigurationProperties(prefix = "responder.cluster")
+public record ClusterProperties(
+        @DefaultValue("false") boolean enabled,
+        String self,
+        List<String> members,
+        @DefaultValue("128") int virtualNodes,
+        @DefaultValue("2s") Duration heartbeatInterval,
+        @DefaultValue("/actuator/health/readiness") String heartbeatPath,
+        @DefaultValue("1s") Duration heartbeatTimeout,
+        @DefaultValue("3") int failureThreshold,
+        @DefaultValue("5m") Duration forwardTimeout) {
+
+    public ClusterProperties {
+        members = members == null ? List.of() : List.copyOf(members);
+        if (enabled && (self == null || self.isBlank())) {
+            throw new IllegalArgumentException(
+                    "responder.cluster.self is required in cluster mode");
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.responder.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the service dependency graph.
+ *
+ * @param file JSON map of service -> services it calls. Missing files are ignored.
+ * @param inferFromTraces Also add the caller -> callee hops observed in the log index traces.
+ * @param maxTraces Traces sampled per inference pass.
+ * @param minTraceSupport Traces that must show a hop before it becomes an edge.
+ * @param refreshInterval Minimum time between two inference passes; a pass only runs after new logs
+ *     were ingested, and never on the caller's thread.
+ * @param prefetch Number of nearest upstream dependencies whose runbooks and health the agent loads
+ *     before its first turn (0 = off).
+ */
+@ConfigurationProperties(prefix = "responder.dependencies")
+public record DependencyGraphProperties(
+        @DefaultValue("classpath:dependencies.json") String file,
+        @DefaultValue("true") boolean inferFromTraces,
+        @DefaultValue("10000") int maxTraces,
+        @DefaultValue("2") int minTraceSupport,
+        @DefaultValue("1m") Duration refreshInterval,
+        @DefaultValue("2") int prefetch) {}
@@ -0,0 +1,43 @@
+package com.example.responder.config;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for proactive alert detection.
+ *
+ * @param enabled Turns the detection scheduler on/off.
+ * @param interval Delay between two evaluation ticks.
+ * @param defaultWindow Window used when a runbook alert has no "Time Period".
+ * @param defaultThreshold Matches within the window needed to open an incident.
+ * @param thresholds Optional per-alert overrides (alert ID -> threshold).
+ * @param autoAnalyze If true, opened incidents are handed to the agent right away.
+ * @param mode SCHEDULED re-counts new documents with index queries on every tick; STREAMING
+ *     percolates every ingested event against all alerts instead (the tick only re-checks
+ *     thresholds).
+ */
+@ConfigurationProperties(prefix = "responder.detection")
+public record DetectionProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("5s") Duration interval,
+        @DefaultValue("1h") Duration defaultWindow,
+        @DefaultValue("1") long defaultThreshold,
+        Map<String, Long> thresholds,
+        @DefaultValue("false") boolean autoAnalyze,
+        @DefaultValue("scheduled") Mode mode) {
+
+    public enum Mode {
+        SCHEDULED,
+        STREAMING
+    }
+
+    public DetectionProperties {
+        thresholds = thresholds == null ? Map.of() : Map.copyOf(thresholds);
+    }
+
+    public long thresholdFor(String alertId) {
+        return thresholds.getOrDefault(alertId, defaultThreshold);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.responder.config;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the background health poller.
+ *
+ * @param enabled Turns the poller on/off (the chaos switch still works when disabled).
+ * @param interval Base delay between two polling rounds.
+ * @param jitter Random extra delay (0..jitter) added to every round to avoid synchronized probes.
+ * @param maxConcurrentProbes Upper bound on probes in flight at the same time.
+ * @param probeTimeout Timeout for a single HTTP probe.
+ * @param historySize Number of samples kept per service in the ring buffer.
+ * @param targets Optional service name -> health URL map. Services without a URL are probed against
+ *     the simulated infrastructure.
+ */
+@ConfigurationProperties(prefix = "responder.health")
+public record HealthPollerProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10s") Duration interval,
+        @DefaultValue("2s") Duration jitter,
+        @DefaultValue("4") int maxConcurrentProbes,
+        @DefaultValue("2s") Duration probeTimeout,
+        @DefaultValue("10") int historySize,
+        Map<String, String> targets) {
+
+    public HealthPollerProperties {
+        targets = targets == null ? Map.of() : Map.copyOf(targets);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.responder.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Correlation rules for batch incident analysis.
+ *
+ * @param window Incidents further apart than this are never grouped.
+ * @param minSimilarity Incidents of different services within the window are grouped when their
+ *     issue texts are at least this similar ({@code (1 + cos) / 2} of the local embeddings).
+ *     Incidents of the same service within the window are always grouped.
+ * @param maxClusterSize Upper bound on incidents per agent run, to keep the prompt focused.
+ * @param concurrency Groups analyzed in parallel (their LLM calls still go through LlmScheduler).
+ */
+@ConfigurationProperties(prefix = "responder.batch")
+public record IncidentBatchProperties(
+        @DefaultValue("2m") Duration window,
+        @DefaultValue("0.85") double minSimilarity,
+        @DefaultValue("20") int maxClusterSize,
+        @DefaultValue("4") int concurrency) {}
@@ -0,0 +1,39 @@
+package com.example.responder.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the memory of resolved incidents.
+ *
+ * @param path Directory of the on-disk vector index; it survives restarts and belongs to one node
+ *     (a second node on it fails to start). application.properties sets {@code
+ *     ${java.io.tmpdir}/responder-incident-memory-${server.port}}.
+ * @param reuseSimilarity A remembered analysis of the same service whose issue is at least this
+ *     similar ({@code (1 + cos) / 2} of the local embeddings) is returned without an agent run, if
+ *     its investigation query still matches logs and it is younger than {@code maxAge}.
+ * @param exampleSimilarity Less similar (or stale, or no longer matching) hits above this
+ *     similarity go into the prompt as a worked example instead.
+ * @param maxAge Remembered analyses older than this are only used as examples.
+ * @param minConfidence Analyses below this self-reported confidence are not remembered.
+ * @param commitInterval Remembered analyses are searchable right away, but committed to disk in the
+ *     background at most this often (and on shutdown), so a crash loses at most this much.
+ */
+@ConfigurationProperties(prefix = "responder.memory")
+public record IncidentMemoryProperties(
+        @DefaultValue("true") boolean enabled,
+        Path path,
+        @DefaultValue("0.95") double reuseSimilarity,
+        @DefaultValue("0.85") double exampleSimilarity,
+        @DefaultValue("7d") Duration maxAge,
+        @DefaultValue("0.7") double minConfidence,
+        @DefaultValue("5s") Duration commitInterval) {
+
+    public IncidentMemoryProperties {
+        if (path == null) {
+            path = Path.of(System.getProperty("java.io.tmpdir"), "responder-incident-memory");
+        }
+    }
+}
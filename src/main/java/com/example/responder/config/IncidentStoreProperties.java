@@ -0,0 +1,38 @@
+package com.example.responder.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings for the append-only store of analyzed incidents.
+ *
+ * @param path Directory of the segment files; it survives restarts and belongs to one node (a
+ *     second node on it fails to start). application.properties sets {@code
+ *     ${java.io.tmpdir}/responder-incidents-${server.port}}.
+ * @param segmentSize A segment is sealed and a new one started once it grows past this size. At
+ *     most 2GB, so offsets within a segment fit the int positions of its memory mappings.
+ * @param commitInterval How long the writer waits to gather more records into one fsync.
+ * @param queueCapacity Records waiting for the writer; when full, new records are dropped (and
+ *     counted) rather than slowing down the request path.
+ */
+@ConfigurationProperties(prefix = "responder.store")
+public record IncidentStoreProperties(
+        @DefaultValue("true") boolean enabled,
+        Path path,
+        @DefaultValue("64MB") DataSize segmentSize,
+        @DefaultValue("10ms") Duration commitInterval,
+        @DefaultValue("10000") int queueCapacity) {
+
+    public IncidentStoreProperties {
+        if (path == null) {
+            path = Path.of(System.getProperty("java.io.tmpdir"), "responder-incidents");
+        }
+        if (segmentSize.toBytes() <= 0 || segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "segmentSize must be between 1B and 2GB: " + segmentSize);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.responder.config;
+
+import java.time.Duration;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the LLM call layer (see ResilientLlmCaller and LlmTransportConfig).
+ *
+ * @param connectTimeout TCP/TLS connect timeout of the pooled HTTP transport.
+ * @param turnTimeout Upper bound for one agent turn (one ChatClient call, including the tool calls
+ *     it makes); also the read timeout of the transport.
+ * @param maxAttempts Attempts per turn, including the first one. Only transient failures (timeouts,
+ *     I/O errors, 429 and 5xx) are retried.
+ * @param backoffBase Backoff before the second attempt; doubles per attempt. The actual sleep is
+ *     drawn uniformly from 0..backoff ("full jitter") so retries of concurrent turns spread out.
+ * @param backoffMax Cap for the exponential backoff.
+ * @param hedging Sends a duplicate request when the first one is slower than {@code
+ *     hedgePercentile} of the recent turn latencies, and takes whichever answers first.
+ * @param hedgePercentile Latency percentile (0-100) after which a turn is hedged.
+ * @param hedgeInitialDelay Hedge delay used until enough latencies have been observed.
+ */
+@ConfigurationProperties(prefix = "responder.llm")
+public record LlmProperties(
+        @DefaultValue("10s") Duration connectTimeout,
+        @DefaultValue("60s") Duration turnTimeout,
+        @DefaultValue("3") int maxAttempts,
+        @DefaultValue("500ms") Duration backoffBase,
+        @DefaultValue("8s") Duration backoffMax,
+        @DefaultValue("true") boolean hedging,
+        @DefaultValue("95") double hedgePercentile,
+        @DefaultValue("10s") Duration hedgeInitialDelay) {
+
+    public LlmProperties {
+        if (maxAttempts < 1) {
+            maxAttempts = 1;
+        }
+        if (hedgePercentile <= 0 || hedgePercentile > 100) {
+            throw new IllegalArgumentException(
+                    "hedgePercentile must be in (0, 100]: " + hedgePercentile);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.responder.config;
+
+import java.time.Duration;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Provider limits and priorities for the LLM scheduler.
+ *
+ * @param requestsPerMinute Provider request limit; refilled continuously.
+ * @param tokensPerMinute Provider token limit; calls are charged an estimate from the prompt size
+ *     up front and corrected with the reported usage afterwards.
+ * @param burst How much unused capacity may accumulate, as a duration of the per-minute rates.
+ * @param agingInterval Every interval a call waits raises its priority by one level, so low
+ *     priority work is delayed under load but never starved.
+ * @param defaultServiceTier Tier of services not listed in {@code serviceTiers}.
+ * @param serviceTiers Service name -> tier (0 = business critical). A tier on the incident request
+ *     takes precedence.
+ */
+@ConfigurationProperties(prefix = "responder.llm.rate")
+public record LlmRateLimitProperties(
+        @DefaultValue("50") int requestsPerMinute,
+        @DefaultValue("50000") int tokensPerMinute,
+        @DefaultValue("1m") Duration burst,
+        @DefaultValue("15s") Duration agingInterval,
+        @DefaultValue("2") int defaultServiceTier,
+        Map<String, Integer> serviceTiers) {
+
+    public LlmRateLimitProperties {
+        serviceTiers = serviceTiers == null ? Map.of() : Map.copyOf(serviceTiers);
+    }
+
+    public int tierOf(String serviceName) {
+        return serviceTiers.getOrDefault(serviceName, defaultServiceTier);
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.responder.config;
+
+import com.example.responder.service.LlmScheduler;
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+/**
+ * HTTP transport of the chat model. The Anthropic client is built from the shared {@code
+ * RestClient.Builder}; this customizer gives it one long-lived JDK {@link HttpClient}, so every
+ * turn reuses pooled keep-alive connections (HTTP/2 where the provider negotiates it) instead of
+ * paying for a TCP and TLS handshake on the critical path. Every request it sends, retries and
+ * hedges included, is charged to the {@link LlmScheduler} request bucket.
+ */
+@Configuration
+public class LlmTransportConfig {
+
+    @Bean
+    public RestClientCustomizer pooledLlmTransport(
+            LlmProperties properties, LlmScheduler llmScheduler) {
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor =
+                Executors.newCachedThreadPool(
+                        r -> {
+                            Thread t = new Thread(r, "llm-http-" + threads.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        });
+        HttpClient httpClient =
+                HttpClient.newBuilder()
+                        .connectTimeout(properties.connectTimeout())
+                        .followRedirects(HttpClient.Redirect.NORMAL)
+                        .executor(executor)
+                        .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(properties.turnTimeout());
+        return builder ->
+                builder.requestFactory(requestFactory)
+                        .requestInterceptor(
+                                (request, body, execution) -> {
+                                    llmScheduler.chargeRequest();
+                                    return execution.execute(request, body);
+                                });
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.responder.config;
+
+import java.nio.file.Path;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Settings for the embedded log index.
+ *
+ * @param storage HEAP keeps every shard in a heap-resident ByteBuffersDirectory. OFF_HEAP writes
+ *     shards to memory-mapped files under {@code path} with best-compression stored fields, so
+ *     large indexes live in the page cache instead of the Java heap.
+ * @param path Root directory for OFF_HEAP shards (a fresh sub-directory per shard, deleted on
+ *     close, so nodes may share it). Defaults to {@code ${java.io.tmpdir}/responder-logs}.
+ * @param ramBufferMb IndexWriter RAM buffer per shard; bigger buffers mean fewer, larger segment
+ *     flushes during bulk loads.
+ * @param indexingThreads Concurrent writers for bulk (scenario) loads; 0 = one per core.
+ */
+@ConfigurationProperties(prefix = "responder.logs")
+public record LogEngineProperties(
+        @DefaultValue("heap") Storage storage,
+        Path path,
+        @DefaultValue("64") double ramBufferMb,
+        @DefaultValue("0") int indexingThreads) {
+
+    public enum Storage {
+        HEAP,
+        OFF_HEAP
+    }
+
+    public LogEngineProperties {
+        if (path == null) {
+            path = Path.of(System.getProperty("java.io.tmpdir"), "responder-logs");
+        }
+        if (indexingThreads <= 0) {
+            indexingThreads = Runtime.getRuntime().availableProcessors();
+        }
+    }
+
+    public static LogEngineProperties defaults() {
+        return new LogEngineProperties(Storage.HEAP, null, 64, 0);
+    }
+}
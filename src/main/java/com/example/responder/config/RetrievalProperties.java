@@ -0,0 +1,29 @@
+package com.example.responder.config;
+
+import java.nio.file.Path;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * In-process runbook retrieval (see RunbookCache).
+ *
+ * @param quantized Keep only int8 codes of the chunk embeddings on the heap and rank with them,
+ *     re-scoring the best candidates with the full-precision vectors, which live in a memory-mapped
+ *     file. Off (the default) keeps every float vector on the heap and ranks exactly, which is
+ *     cheaper for the few hundred chunks of a typical runbook set; turn it on for corpora large
+ *     enough that the float vectors strain the heap.
+ * @param oversample Candidates re-scored per requested result ({@code topK * oversample}).
+ * @param path Directory of the full-precision vector file; it is scratch space, recreated on start.
+ *     Defaults to {@code ${java.io.tmpdir}}.
+ */
+@ConfigurationProperties(prefix = "responder.retrieval")
+public record RetrievalProperties(
+        @DefaultValue("false") boolean quantized, @DefaultValue("4") int oversample, Path path) {
+
+    public RetrievalProperties {
+        if (path == null) {
+            path = Path.of(System.getProperty("java.io.tmpdir"));
+        }
+        oversample = Math.max(1, oversample);
+    }
+}
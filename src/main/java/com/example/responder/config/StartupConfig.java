@@ -0,0 +1,69 @@
+package com.example.responder.config;
+
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.aot.AbstractAotProcessor;
+import org.springframework.core.env.Environment;
+
+@Configuration
+public class StartupConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupConfig.class);
+
+    // Loading the ONNX model and creating the Elasticsearch schema dominate boot time
+    private static final Class<?>[] HEAVY_BEAN_TYPES = {EmbeddingModel.class, VectorStore.class};
+
+    /**
+     * Marks the heavy beans lazy when {@code responder.startup.lazy-heavy-beans} is set. Their
+     * consumers inject them through {@code @Lazy} proxies, so nothing touches them until first use.
+     *
+     * <p>Under AOT the post-processor does nothing while the build refreshes the context ({@code
+     * spring.aot.processing}), so the generated bean definitions stay eager. The generated code
+     * registers it like any other bean, so it runs again at startup and reads the flag from the
+     * runtime profile, as on the plain JVM.
+     */
+    @Bean
+    static BeanFactoryPostProcessor lazyHeavyBeans() {
+        return new LazyHeavyBeans();
+    }
+
+    private static final class LazyHeavyBeans
+            implements BeanFactoryPostProcessor, EnvironmentAware {
+
+        private boolean enabled;
+        private boolean aotProcessing;
+
+        @Override
+        public void setEnvironment(Environment environment) {
+            enabled =
+                    environment.getProperty(
+                            "responder.startup.lazy-heavy-beans", Boolean.class, false);
+            aotProcessing =
+                    environment.getProperty(
+                            AbstractAotProcessor.AOT_PROCESSING, Boolean.class, false);
+        }
+
+        @Override
+        public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+            if (!enabled || aotProcessing) return;
+            for (Class<?> type : HEAVY_BEAN_TYPES) {
+                String[] names = beanFactory.getBeanNamesForType(type, true, false);
+                for (String name : names) {
+                    beanFactory.getBeanDefinition(name).setLazyInit(true);
+                }
+                log.info(
+                        ">>> STARTUP: Lazy {} beans: {}",
+                        type.getSimpleName(),
+                        Arrays.toString(names));
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.responder.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Startup behaviour. Both switches are on in the {@code fast-start} profile.
+ *
+ * @param backgroundIngestion Ingest the runbooks (and warm up retrieval) on a background thread
+ *     instead of blocking startup. Readiness stays down until it is done (see RetrievalWarmup).
+ * @param lazyHeavyBeans Create the embedding model and the vector store on first use instead of
+ *     during context refresh; with background ingestion that first use is off the main thread.
+ */
+@ConfigurationProperties(prefix = "responder.startup")
+public record StartupProperties(
+        @DefaultValue("false") boolean backgroundIngestion,
+        @DefaultValue("false") boolean lazyHeavyBeans) {}
@@ -1,9 +1,13 @@
 package com.example.responder.config;
 
+import com.example.responder.service.AlertRegistry;
 import com.example.responder.service.EmbeddedLogEngine;
 import com.example.responder.service.SystemStateService;
 import com.example.responder.tools.ElfLogSearchTool;
 import com.example.responder.tools.HealthCheckTool;
+import com.example.responder.tools.LogBrowseTool;
+import com.example.responder.tools.StructuredLogSearchTool;
+import com.example.responder.tools.TraceLookupTool;
 import java.util.function.Function;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -27,4 +31,35 @@ public class ToolsConfig {
             EmbeddedLogEngine engine) {
         return new ElfLogSearchTool(engine);
     }
+
+    @Bean
+    @Description(
+            "Searches the ELF logs without Lucene syntax. Pass the alertId of a runbook alert to"
+                    + " run its detection query, and/or clauses of {field, op, value, to} with op"
+                    + " one of =, !=, >, >=, <, <=, between, contains. Optional timeWindow such as"
+                    + " 15m or 1h.")
+    public Function<StructuredLogSearchTool.Request, ElfLogSearchTool.Response>
+            searchElfLogsStructured(EmbeddedLogEngine engine, AlertRegistry alertRegistry) {
+        return new StructuredLogSearchTool(engine, alertRegistry);
+    }
+
+    @Bean
+    @Description(
+            "Returns the raw log lines matching a Lucene query, newest first, one page at a time."
+                    + " Pass the returned nextCursor to get the next page; use fields to limit the"
+                    + " columns returned.")
+    public Function<LogBrowseTool.Request, LogBrowseTool.Response> browseElfLogs(
+            EmbeddedLogEngine engine) {
+        return new LogBrowseTool(engine);
+    }
+
+    @Bean
+    @Description(
+            "Fetches every log event of a single trace across all services, ordered by time. Use"
+                    + " it to follow a sampleTraceId returned by searchElfLogs upstream or"
+                    + " downstream.")
+    public Function<TraceLookupTool.Request, TraceLookupTool.Response> getTrace(
+            EmbeddedLogEngine engine) {
+        return new TraceLookupTool(engine);
+    }
 }
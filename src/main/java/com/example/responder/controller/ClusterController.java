@@ -0,0 +1,27 @@
+package com.example.responder.controller;
+
+import com.example.responder.service.ClusterRouter;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/cluster")
+public class ClusterController {
+
+    private final ClusterRouter clusterRouter;
+
+    public ClusterController(ClusterRouter clusterRouter) {
+        this.clusterRouter = clusterRouter;
+    }
+
+    // GET /api/cluster -> this node's view of the ring and the owner of every known service
+    @GetMapping
+    public ClusterRouter.Status status() {
+        return clusterRouter.status();
+    }
+
+    // GET /api/cluster/owner?service=payment-service
+    @GetMapping("/owner")
+    public String owner(@RequestParam String service) {
+        return clusterRouter.ownerOf(service);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.responder.controller;
+
+import com.example.responder.model.LogEvent;
+import com.example.responder.model.ScenarioLoadReport;
+import com.example.responder.service.ClusterRouter;
+import com.example.responder.service.EmbeddedLogEngine;
+import com.example.responder.service.ScenarioCatalog;
+import com.example.responder.tools.LogBrowseTool;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+import org.apache.lucene.queryparser.classic.ParseException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/logs")
+public class LogController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int MAX_PAGE_SIZE = 1_000;
+
+    private final EmbeddedLogEngine logEngine;
+    private final ScenarioCatalog scenarioCatalog;
+    private final ClusterRouter clusterRouter;
+    private final ObjectMapper objectMapper;
+
+    public LogController(
+            EmbeddedLogEngine logEngine,
+            ScenarioCatalog scenarioCatalog,
+            ClusterRouter clusterRouter,
+            ObjectMapper objectMapper) {
+        this.logEngine = logEngine;
+        this.scenarioCatalog = scenarioCatalog;
+        this.clusterRouter = clusterRouter;
+        this.objectMapper = objectMapper;
+    }
+
+    // POST /api/logs  [{ "timestamp": 0, "fields": { "application.name": "...", ... } }, ...]
+    // In cluster mode events go to the log shard of the node owning their service
+    @PostMapping
+    public String ingest(
+            @RequestBody List<LogEvent> events,
+            @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, required = false)
+                    String forwardedBy)
+            throws IOException {
+        List<LogEvent> local = clusterRouter.forwardLogs(events, forwardedBy);
+        logEngine.ingest(local);
+        if (local.size() == events.size()) {
+            return "Indexed " + events.size() + " log events";
+        }
+        int forwarded = events.size() - local.size();
+        return "Indexed " + local.size() + " log events, forwarded " + forwarded + " to owners";
+    }
+
+    // GET /api/logs/scenarios
+    @GetMapping("/scenarios")
+    public Set<String> scenarios() {
+        return scenarioCatalog.names();
+    }
+
+    // POST /api/logs/scenarios/synthetic-load?events=20000000 -> indexing throughput report
+    // Replaces this node's index only; in cluster mode load it on each member that needs it
+    @PostMapping("/scenarios/{name}")
+    public ScenarioLoadReport loadScenario(
+            @PathVariable String name, @RequestParam(required = false) Long events) {
+        return logEngine.loadScenario(name, events);
+    }
+
+    // GET /api/logs/search?q=log.level:ERROR&size=100[&cursor=...][&fields=trace_id,log.message]
+    // Searches this node's shards only; in cluster mode ask the owner (GET /api/cluster/owner)
+    @GetMapping("/search")
+    public LogBrowseTool.Response search(
+            @RequestParam String q,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(required = false) List<String> fields) {
+        return logEngine.searchPage(q, cursor, Math.max(1, Math.min(size, MAX_PAGE_SIZE)), fields);
+    }
+
+    // GET /api/logs/export?q=log.level:ERROR[&fields=...][&limit=...] -> one JSON object per line
+    // Exports this node's shards only, like search
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam String q,
+            @RequestParam(required = false) List<String> fields,
+            @RequestParam(defaultValue = "" + Long.MAX_VALUE) long limit) {
+        try {
+            logEngine.parseQuery(q); // Fail with a 400 before the response is committed
+        } catch (ParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        StreamingResponseBody body =
+                out -> {
+                    try {
+                        logEngine.export(q, fields, limit, hit -> writeLine(out, hit));
+                    } catch (ParseException e) {
+                        throw new IOException(e);
+                    }
+                };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
+}
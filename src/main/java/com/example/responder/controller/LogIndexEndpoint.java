@@ -0,0 +1,32 @@
+package com.example.responder.controller;
+
+import com.example.responder.model.LogIndexStats;
+import com.example.responder.service.EmbeddedLogEngine;
+import java.io.IOException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * On-demand diagnostics for the embedded log index, so nothing on the ingest or scenario-load path
+ * has to print it. {@code GET /actuator/logindex} returns doc/segment counts, bytes per index
+ * structure and term statistics per field, for every shard. Matching lines are sampled by {@link
+ * LogSampleEndpoint}.
+ *
+ * <p>Not exposed over HTTP by default (see {@code management.endpoints.web.exposure.include}).
+ */
+@Component
+@Endpoint(id = "logindex")
+public class LogIndexEndpoint {
+
+    private final EmbeddedLogEngine logEngine;
+
+    public LogIndexEndpoint(EmbeddedLogEngine logEngine) {
+        this.logEngine = logEngine;
+    }
+
+    @ReadOperation
+    public LogIndexStats stats() throws IOException {
+        return logEngine.stats();
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.responder.controller;
+
+import com.example.responder.service.EmbeddedLogEngine;
+import com.example.responder.tools.LogBrowseTool;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code GET /actuator/logsample?query=...&limit=...&fields=a,b&cursor=...}: a bounded page of
+ * matching lines from the embedded log index (newest first, doc values only). Use {@code
+ * /api/logs/export} to stream everything.
+ *
+ * <p>Returns raw log lines, so it is not exposed over HTTP by default (see {@code
+ * management.endpoints.web.exposure.include}).
+ */
+@Component
+@Endpoint(id = "logsample")
+public class LogSampleEndpoint {
+
+    private static final int MAX_SAMPLE = 500;
+
+    private final EmbeddedLogEngine logEngine;
+
+    public LogSampleEndpoint(EmbeddedLogEngine logEngine) {
+        this.logEngine = logEngine;
+    }
+
+    @ReadOperation
+    public LogBrowseTool.Response sample(
+            @Nullable String query,
+            @Nullable Integer limit,
+            @Nullable String fields,
+            @Nullable String cursor) {
+        int size = limit == null ? 20 : Math.max(1, Math.min(limit, MAX_SAMPLE));
+        List<String> columns =
+                fields == null || fields.isBlank()
+                        ? null
+                        : Arrays.stream(fields.split(",")).map(String::trim).toList();
+        return logEngine.searchPage(
+                query == null || query.isBlank() ? "*:*" : query, cursor, size, columns);
+    }
+}
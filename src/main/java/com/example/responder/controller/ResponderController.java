@@ -1,35 +1,143 @@
 package com.example.responder.controller;
 
 import com.example.responder.model.AnalysisResponse;
+import com.example.responder.model.DetectedIncident;
+import com.example.responder.model.IncidentBatchRequest;
+import com.example.responder.model.IncidentBatchResponse;
+import com.example.responder.model.IncidentRecord;
 import com.example.responder.model.IncidentRequest;
+import com.example.responder.service.ClusterRouter;
+import com.example.responder.service.DetectionEngine;
+import com.example.responder.service.IncidentBatchAnalyzer;
+import com.example.responder.service.IncidentStore;
 import com.example.responder.service.SreAgentService;
 import com.example.responder.service.SystemStateService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/incident")
 public class ResponderController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final int MAX_HISTORY = 1_000;
+
     private final SreAgentService agentService;
     private final SystemStateService systemStateService;
+    private final DetectionEngine detectionEngine;
+    private final IncidentBatchAnalyzer batchAnalyzer;
+    private final IncidentStore incidentStore;
+    private final ClusterRouter clusterRouter;
+    private final ObjectMapper objectMapper;
 
     public ResponderController(
-            SreAgentService agentService, SystemStateService systemStateService) {
+            SreAgentService agentService,
+            SystemStateService systemStateService,
+            DetectionEngine detectionEngine,
+            IncidentBatchAnalyzer batchAnalyzer,
+            IncidentStore incidentStore,
+            ClusterRouter clusterRouter,
+            ObjectMapper objectMapper) {
         this.agentService = agentService;
         this.systemStateService = systemStateService;
+        this.detectionEngine = detectionEngine;
+        this.batchAnalyzer = batchAnalyzer;
+        this.incidentStore = incidentStore;
+        this.clusterRouter = clusterRouter;
+        this.objectMapper = objectMapper;
     }
 
+    // In cluster mode the node owning the service analyzes it; forwarded requests stay here
     @PostMapping
-    public AnalysisResponse analyzeIncident(@RequestBody IncidentRequest request) {
-        // In a real app, we would add logging here
-        return agentService.analyze(request);
+    public AnalysisResponse analyzeIncident(
+            @RequestBody IncidentRequest request,
+            @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, required = false)
+                    String forwardedBy) {
+        return clusterRouter
+                .forwardAnalysis(request, forwardedBy)
+                .orElseGet(() -> agentService.analyze(request));
+    }
+
+    // POST /api/incident/batch -> correlated incidents share one agent run and its root cause
+    @PostMapping("/batch")
+    public IncidentBatchResponse analyzeBatch(@RequestBody IncidentBatchRequest batch) {
+        try {
+            IncidentBatchAnalyzer.validate(batch);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+        return batchAnalyzer.analyze(batch);
     }
 
     // NEW: The Chaos Switch
     // POST /api/incident/simulate?service=payment-service&healthy=false
+    // In cluster mode it is applied on the node owning the service, whose agent checks it
     @PostMapping("/simulate")
-    public String setSystemHealth(@RequestParam String service, @RequestParam boolean healthy) {
+    public String setSystemHealth(
+            @RequestParam String service,
+            @RequestParam boolean healthy,
+            @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, required = false)
+                    String forwardedBy) {
+        var forwarded = clusterRouter.forwardSimulation(service, healthy, forwardedBy);
+        if (forwarded.isPresent()) {
+            return forwarded.get();
+        }
         systemStateService.setHealth(service, healthy);
         return "Simulated State Update: " + service + " is now " + (healthy ? "HEALTHY" : "BROKEN");
     }
+
+    // GET /api/incident/detected -> incidents opened by the proactive detection engine
+    @GetMapping("/detected")
+    public List<DetectedIncident> detectedIncidents() {
+        return detectionEngine.openIncidents();
+    }
+
+    // GET /api/incident/history?service=payment-service[&failureType=...][&from=...][&to=...]
+    // -> analyzed incidents, newest first (from/to as ISO instants)
+    @GetMapping("/history")
+    public List<IncidentRecord> history(
+            @RequestParam(required = false) String service,
+            @RequestParam(required = false) String failureType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                    Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                    Instant to,
+            @RequestParam(defaultValue = "100") int limit)
+            throws IOException {
+        return incidentStore.query(
+                new IncidentStore.Query(service, failureType, from, to),
+                Math.max(1, Math.min(limit, MAX_HISTORY)));
+    }
+
+    // GET /api/incident/history/export[?service=...] -> one JSON record per line, oldest first
+    @GetMapping("/history/export")
+    public ResponseEntity<StreamingResponseBody> exportHistory(
+            @RequestParam(required = false) String service,
+            @RequestParam(required = false) String failureType,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                    Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                    Instant to,
+            @RequestParam(defaultValue = "" + Long.MAX_VALUE) long limit) {
+        IncidentStore.Query query = new IncidentStore.Query(service, failureType, from, to);
+        StreamingResponseBody body =
+                out ->
+                        incidentStore.export(
+                                query,
+                                limit,
+                                record -> {
+                                    out.write(objectMapper.writeValueAsBytes(record));
+                                    out.write('\n');
+                                });
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
 }
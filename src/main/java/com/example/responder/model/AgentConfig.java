@@ -1,5 +1,7 @@
 package com.example.responder.model;
 
+import java.util.List;
+
 /**
  * Configuration for a specific agent analysis run. Allows A/B testing of retrieval and generation
  * parameters.
@@ -8,9 +10,41 @@ package com.example.responder.model;
  * @param minScore Minimum similarity score (0.0 to 1.0) to qualify as a match.
  * @param temperature LLM generation temperature (0.0 = deterministic, 1.0 = creative).
  * @param strictMetadataFiltering Metadata Filtering flag
+ * @param modelTiers Model cascade, cheapest first. Every run starts on the first tier; a final
+ *     report that does not parse, names no retrieved alert or reports low confidence is handed to
+ *     the next tier together with the conversation so far.
+ * @param escalationConfidence Self-reported confidence (0.0 to 1.0) below which a report escalates.
  */
 public record AgentConfig(
-        int topK, double minScore, double temperature, boolean strictMetadataFiltering) {
+        int topK,
+        double minScore,
+        double temperature,
+        boolean strictMetadataFiltering,
+        List<String> modelTiers,
+        double escalationConfidence) {
+
+    public static final List<String> DEFAULT_MODEL_TIERS =
+            List.of("claude-3-5-haiku-20241022", "claude-3-7-sonnet-20250219");
+    public static final double DEFAULT_ESCALATION_CONFIDENCE = 0.7;
+
+    public AgentConfig {
+        modelTiers =
+                modelTiers == null || modelTiers.isEmpty()
+                        ? DEFAULT_MODEL_TIERS
+                        : List.copyOf(modelTiers);
+    }
+
+    public AgentConfig(
+            int topK, double minScore, double temperature, boolean strictMetadataFiltering) {
+        this(
+                topK,
+                minScore,
+                temperature,
+                strictMetadataFiltering,
+                DEFAULT_MODEL_TIERS,
+                DEFAULT_ESCALATION_CONFIDENCE);
+    }
+
     public static AgentConfig defaults() {
         return new AgentConfig(2, 0.0, 0.0, false);
     }
@@ -11,4 +11,7 @@ public record AnalysisResponse(
         String responsibleTeam,
         List<String> remediationSteps,
         boolean requiresEscalation,
-        List<String> citations) {}
+        List<String> citations,
+        Double confidence, // Self-reported by the model, 0.0 to 1.0
+        String model // The cascade tier that produced the report
+        ) {}
@@ -0,0 +1,25 @@
+package com.example.responder.model;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * An incident opened automatically because a runbook alert query crossed its threshold. Also
+ * published as an application event when the incident is opened.
+ *
+ * @param alertId ID of the runbook alert that fired.
+ * @param serviceName Service owning the alert.
+ * @param alertName Alert header (the expected failureType).
+ * @param query Detection query that matched.
+ * @param matchCount Matches within the alert window at the time it fired.
+ * @param window Detection window of the alert.
+ * @param openedAt When the incident was opened.
+ */
+public record DetectedIncident(
+        String alertId,
+        String serviceName,
+        String alertName,
+        String query,
+        long matchCount,
+        Duration window,
+        Instant openedAt) {}
@@ -0,0 +1,19 @@
+package com.example.responder.model;
+
+import java.time.Instant;
+
+/**
+ * Published whenever the observed health of a service flips between UP and DOWN.
+ *
+ * @param serviceName Normalized service name (e.g. "payment-service").
+ * @param previouslyHealthy Status before the change.
+ * @param healthy Status after the change.
+ * @param latencyMillis Latency of the probe that observed the change.
+ * @param observedAt When the change was observed.
+ */
+public record HealthStateChangedEvent(
+        String serviceName,
+        boolean previouslyHealthy,
+        boolean healthy,
+        int latencyMillis,
+        Instant observedAt) {}
@@ -0,0 +1,19 @@
+package com.example.responder.model;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Incidents reported together, e.g. during an alert storm, for {@code POST /api/incident/batch}.
+ *
+ * @param incidents The incidents; each one gets its own AnalysisResponse back.
+ */
+public record IncidentBatchRequest(List<Incident> incidents) {
+
+    /**
+     * @param id Caller's ID for the incident, echoed in the response; defaults to its position.
+     * @param request The incident itself.
+     * @param reportedAt When the incident was raised; defaults to the time of the batch request.
+     */
+    public record Incident(String id, IncidentRequest request, Instant reportedAt) {}
+}
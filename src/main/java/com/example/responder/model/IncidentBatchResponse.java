@@ -0,0 +1,24 @@
+package com.example.responder.model;
+
+import java.util.List;
+
+/**
+ * Result of a batch analysis: correlated incidents share one agent run and its root cause.
+ *
+ * @param results One entry per incident, in request order.
+ * @param clusters Number of correlated groups, i.e. agent runs.
+ */
+public record IncidentBatchResponse(List<Result> results, int clusters) {
+
+    /**
+     * @param incidentId ID of the incident.
+     * @param cluster Index of the group the incident was analyzed with.
+     * @param correlatedWith IDs of the other incidents in that group.
+     * @param analysis The shared analysis of the group.
+     */
+    public record Result(
+            String incidentId,
+            int cluster,
+            List<String> correlatedWith,
+            AnalysisResponse analysis) {}
+}
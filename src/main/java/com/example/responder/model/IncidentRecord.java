@@ -0,0 +1,20 @@
+package com.example.responder.model;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * One analyzed incident as kept in the incident store.
+ *
+ * @param id Position in the store: segment base plus frame offset, unique and increasing.
+ * @param recordedAt When the store wrote the record.
+ * @param request The incident as reported.
+ * @param response The analysis that was returned.
+ * @param phaseMillis Wall time per analysis phase (memory, retrieval, upstream, agent, total).
+ */
+public record IncidentRecord(
+        long id,
+        Instant recordedAt,
+        IncidentRequest request,
+        AnalysisResponse response,
+        Map<String, Long> phaseMillis) {}
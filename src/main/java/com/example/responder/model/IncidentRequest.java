@@ -1,4 +1,21 @@
 package com.example.responder.model;
 
-public record IncidentRequest(String serviceName, String issue, String timeWindow // e.g., "1h"
-        ) {}
+public record IncidentRequest(
+        String serviceName,
+        String issue,
+        String timeWindow, // e.g., "1h"
+        Severity severity, // Scheduling priority of the LLM calls; null = MEDIUM
+        Integer serviceTier // 0 = business critical; null = responder.llm.rate.service-tiers
+        ) {
+
+    public enum Severity {
+        CRITICAL,
+        HIGH,
+        MEDIUM,
+        LOW
+    }
+
+    public IncidentRequest(String serviceName, String issue, String timeWindow) {
+        this(serviceName, issue, timeWindow, null, null);
+    }
+}
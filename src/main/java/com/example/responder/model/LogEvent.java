@@ -0,0 +1,35 @@
+package com.example.responder.model;
+
+import java.util.Map;
+
+/**
+ * A single ELF log line as it enters the log engine.
+ *
+ * @param timestamp Epoch millis of the event (0 = "now" at ingestion time).
+ * @param fields ELF field name -> value (e.g. "application.name", "log.message", "status_code").
+ */
+public record LogEvent(long timestamp, Map<String, String> fields) {
+
+    public static final String SERVICE = "application.name";
+    public static final String MESSAGE = "log.message";
+    public static final String LEVEL = "log.level";
+    public static final String STATUS_CODE = "status_code";
+    public static final String TYPE = "type";
+    public static final String TRACE_ID = "trace_id";
+
+    public LogEvent {
+        fields = fields == null ? Map.of() : Map.copyOf(fields);
+    }
+
+    public static LogEvent of(Map<String, String> fields) {
+        return new LogEvent(0, fields);
+    }
+
+    public String get(String field) {
+        return fields.get(field);
+    }
+
+    public String serviceName() {
+        return fields.get(SERVICE);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.responder.model;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Diagnostics snapshot of the embedded log index (see the {@code logindex} actuator endpoint).
+ *
+ * @param generation Index generation currently serving searches.
+ * @param storage HEAP or OFF_HEAP.
+ * @param docs Live documents over all shards.
+ * @param shards Per-shard details.
+ */
+public record LogIndexStats(long generation, String storage, long docs, List<Shard> shards) {
+
+    /**
+     * @param bufferedRamBytes Documents buffered in the IndexWriter, not yet flushed to a segment.
+     * @param bytesByStructure Size of the index files by structure (postings, doc values, stored
+     *     fields, points, ...); RAM for HEAP storage, disk (page cache) for OFF_HEAP.
+     * @param fields Term statistics per indexed field.
+     */
+    public record Shard(
+            String name,
+            int docs,
+            int deletedDocs,
+            int segments,
+            long bufferedRamBytes,
+            Map<String, Long> bytesByStructure,
+            Map<String, Field> fields) {}
+
+    /**
+     * @param terms Unique terms (summed over segments, so an upper bound), -1 if unknown.
+     * @param docCount Documents with at least one term in the field.
+     * @param sumDocFreq Total postings of the field.
+     */
+    public record Field(long terms, long docCount, long sumDocFreq) {}
+}
@@ -0,0 +1,90 @@
+package com.example.responder.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A simulation scenario for the embedded log engine, loaded from {@code
+ * classpath:scenarios/<name>.json}.
+ *
+ * @param name Scenario ID (the file name without extension).
+ * @param description What the scenario simulates and which runbook alert it should trigger.
+ * @param fixtures Hand-written events, indexed as-is.
+ * @param generator Optional synthetic traffic, generated and bulk-indexed in parallel.
+ */
+public record LogScenario(
+        String name, String description, List<Fixture> fixtures, Generator generator) {
+
+    public LogScenario {
+        fixtures = fixtures == null ? List.of() : List.copyOf(fixtures);
+    }
+
+    /**
+     * A log line repeated {@code repeat} times. Every {@code {i}} in a field value is replaced by
+     * the repetition index.
+     *
+     * @param agoMillis Age of the first repetition at load time (0 = stamped at ingestion).
+     * @param stepMillis Time between two repetitions.
+     */
+    public record Fixture(int repeat, long agoMillis, long stepMillis, Map<String, String> fields) {
+
+        public Fixture {
+            repeat = Math.max(repeat, 1);
+            fields = fields == null ? Map.of() : Map.copyOf(fields);
+        }
+    }
+
+    /**
+     * Weighted random traffic, evenly spread over the {@code spanMinutes} before load time.
+     *
+     * @param events Number of events to generate.
+     * @param seed Random seed; the same seed always yields the same events.
+     * @param spansPerTrace Consecutive events sharing one trace_id.
+     * @param services application.name -> relative weight.
+     * @param patterns Log line shapes with their relative weights.
+     */
+    public record Generator(
+            long events,
+            long spanMinutes,
+            long seed,
+            int spansPerTrace,
+            Map<String, Double> services,
+            List<Pattern> patterns) {
+
+        public Generator {
+            spanMinutes = spanMinutes > 0 ? spanMinutes : 60;
+            spansPerTrace = Math.max(spansPerTrace, 1);
+            // Sorted: the same seed must yield the same events on every JVM (Map.copyOf isn't)
+            services =
+                    services == null
+                            ? Map.of()
+                            : Collections.unmodifiableMap(new TreeMap<>(services));
+            patterns = patterns == null ? List.of() : List.copyOf(patterns);
+        }
+
+        public Generator withEvents(long events) {
+            return new Generator(events, spanMinutes, seed, spansPerTrace, services, patterns);
+        }
+    }
+
+    /**
+     * One kind of log line. In the message, {@code {n}} becomes a random number (0-9999) and {@code
+     * {ms}} a random latency (1-3000).
+     *
+     * @param fields Extra fields added verbatim (e.g. "db.type").
+     */
+    public record Pattern(
+            double weight,
+            String level,
+            String statusCode,
+            String message,
+            Map<String, String> fields) {
+
+        public Pattern {
+            weight = weight > 0 ? weight : 1;
+            fields = fields == null ? Map.of() : Map.copyOf(fields);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.responder.model;
+
+import java.time.Duration;
+
+/**
+ * A single "## Alert:" section of a runbook, reduced to what the detection engine needs.
+ *
+ * @param id Deterministic ID, identical to the vector store chunk ID ("service_alert_index").
+ * @param serviceName Service the runbook belongs to.
+ * @param alertName Text of the "## Alert:" header.
+ * @param query Detection Lucene query, collapsed to a single line.
+ * @param timePeriod Detection window from "**Time Period:**" (or the default when missing).
+ */
+public record RunbookAlert(
+        String id, String serviceName, String alertName, String query, Duration timePeriod) {}
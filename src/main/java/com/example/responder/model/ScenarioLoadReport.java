@@ -0,0 +1,11 @@
+package com.example.responder.model;
+
+/**
+ * Outcome of loading a log scenario.
+ *
+ * @param events Number of events indexed (fixtures plus generated traffic).
+ * @param eventsPerSecond Indexing throughput, including commit and refresh.
+ * @param indexingThreads Threads used for the generated part.
+ */
+public record ScenarioLoadReport(
+        String scenario, long events, long millis, double eventsPerSecond, int indexingThreads) {}
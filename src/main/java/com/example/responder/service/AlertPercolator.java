@@ -0,0 +1,162 @@
+package com.example.responder.service;
+
+import com.example.responder.config.DetectionProperties;
+import com.example.responder.model.LogEvent;
+import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.memory.MemoryIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Streaming alert matcher (percolator): instead of running every alert query against the index,
+ * every incoming event is loaded into a single-document {@link MemoryIndex} and tested against the
+ * alert queries.
+ *
+ * <p>To keep the per-event cost independent of the number of alerts, each query is registered under
+ * one "anchor" term that every matching document must contain (the longest required term, like
+ * Elasticsearch's percolator). An event only checks the alerts anchored on one of its own terms,
+ * plus the few alerts without any required term (e.g. pure range queries).
+ *
+ * <p>Ingest threads percolate in parallel, each with its own {@link MemoryIndex}.
+ *
+ * <p>Active when {@code responder.detection.mode=streaming}.
+ */
+@Service
+public class AlertPercolator implements LogIngestListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertPercolator.class);
+
+    /** Immutable lookup structure, rebuilt whenever the alert registry changes. */
+    private record Candidates(
+            long version,
+            Map<Term, List<AlertRegistry.CompiledAlert>> byAnchor,
+            List<AlertRegistry.CompiledAlert> alwaysCheck) {}
+
+    private final EmbeddedLogEngine logEngine;
+    private final AlertRegistry alertRegistry;
+    private final DetectionEngine detectionEngine;
+    private final DetectionProperties properties;
+    private final ThreadLocal<MemoryIndex> memoryIndexes =
+            ThreadLocal.withInitial(MemoryIndex::new);
+
+    private volatile Candidates candidates = new Candidates(-1, Map.of(), List.of());
+
+    public AlertPercolator(
+            EmbeddedLogEngine logEngine,
+            AlertRegistry alertRegistry,
+            DetectionEngine detectionEngine,
+            DetectionProperties properties) {
+        this.logEngine = logEngine;
+        this.alertRegistry = alertRegistry;
+        this.detectionEngine = detectionEngine;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void register() {
+        if (properties.enabled() && properties.mode() == DetectionProperties.Mode.STREAMING) {
+            logEngine.addIngestListener(this);
+            log.info(">>> DETECTION: Streaming percolator attached to the log engine.");
+        }
+    }
+
+    @Override
+    public void onEvents(List<LogEvent> events) {
+        Candidates current = candidates();
+        if (current.byAnchor().isEmpty() && current.alwaysCheck().isEmpty()) return;
+
+        Analyzer analyzer = logEngine.analyzer();
+        MemoryIndex memoryIndex = memoryIndexes.get();
+        boolean matchedAny = false;
+
+        for (LogEvent event : events) {
+            Document doc = logEngine.toDocument(event);
+            Set<AlertRegistry.CompiledAlert> toCheck = new LinkedHashSet<>(current.alwaysCheck());
+            for (Term term : indexedTerms(doc)) {
+                toCheck.addAll(current.byAnchor().getOrDefault(term, List.of()));
+            }
+            if (toCheck.isEmpty()) continue;
+
+            memoryIndex.reset();
+            for (IndexableField field : doc) {
+                if (field.fieldType().indexOptions() != IndexOptions.NONE) {
+                    memoryIndex.addField(field, analyzer);
+                }
+            }
+
+            long timestamp = event.timestamp() > 0 ? event.timestamp() : System.currentTimeMillis();
+            for (AlertRegistry.CompiledAlert alert : toCheck) {
+                if (memoryIndex.search(alert.query()) > 0.0f) {
+                    detectionEngine.recordMatches(alert.alert(), timestamp, 1);
+                    matchedAny = true;
+                }
+            }
+        }
+
+        if (matchedAny) {
+            // Sub-second detection: don't wait for the next scheduled tick
+            detectionEngine.checkThresholds();
+        }
+    }
+
+    private Candidates candidates() {
+        Candidates current = candidates;
+        long version = alertRegistry.version();
+        if (current.version() != version) {
+            current = build(version);
+            candidates = current;
+        }
+        return current;
+    }
+
+    private Candidates build(long version) {
+        Map<Term, List<AlertRegistry.CompiledAlert>> byAnchor = new HashMap<>();
+        List<AlertRegistry.CompiledAlert> alwaysCheck = new ArrayList<>();
+
+        for (AlertRegistry.CompiledAlert alert : alertRegistry.all()) {
+            List<Term> required = QueryTerms.required(alert.query());
+            if (required.isEmpty()) {
+                alwaysCheck.add(alert);
+            } else {
+                Term anchor =
+                        required.stream()
+                                .max(Comparator.comparingInt(t -> t.bytes().length))
+                                .orElseThrow();
+                byAnchor.computeIfAbsent(anchor, t -> new ArrayList<>()).add(alert);
+            }
+        }
+        log.info(
+                ">>> DETECTION: Percolator index rebuilt ({} anchored alerts, {} always checked)",
+                byAnchor.values().stream().mapToInt(List::size).sum(),
+                alwaysCheck.size());
+        return new Candidates(version, byAnchor, alwaysCheck);
+    }
+
+    private Set<Term> indexedTerms(Document doc) {
+        Set<Term> terms = new LinkedHashSet<>();
+        for (IndexableField field : doc) {
+            if (field.fieldType().indexOptions() == IndexOptions.NONE) continue;
+            if (!field.fieldType().tokenized()) {
+                terms.add(new Term(field.name(), field.stringValue()));
+                continue;
+            }
+            for (String token : logEngine.tokens(field.name(), field.stringValue())) {
+                terms.add(new Term(field.name(), token));
+            }
+        }
+        return terms;
+    }
+}
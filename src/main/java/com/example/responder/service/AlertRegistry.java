@@ -0,0 +1,73 @@
+package com.example.responder.service;
+
+import com.example.responder.config.DetectionProperties;
+import com.example.responder.model.RunbookAlert;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.lucene.search.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Holds every runbook alert together with its pre-compiled Lucene {@link Query}. Queries are parsed
+ * once at ingestion time, so detection ticks never pay the QueryParser cost.
+ */
+@Service
+public class AlertRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertRegistry.class);
+
+    public record CompiledAlert(RunbookAlert alert, Query query) {}
+
+    private final Map<String, CompiledAlert> alerts = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final EmbeddedLogEngine logEngine;
+    private final DetectionProperties properties;
+
+    public AlertRegistry(EmbeddedLogEngine logEngine, DetectionProperties properties) {
+        this.logEngine = logEngine;
+        this.properties = properties;
+    }
+
+    /** Parses all alerts of a runbook and (re)registers them, replacing older versions. */
+    public List<CompiledAlert> register(String serviceKey, String markdown) {
+        alerts.values().removeIf(c -> c.alert().serviceName().equals(serviceKey));
+
+        List<CompiledAlert> compiled = new ArrayList<>();
+        for (RunbookAlert alert :
+                RunbookAlertParser.parse(serviceKey, markdown, properties.defaultWindow())) {
+            try {
+                CompiledAlert entry = new CompiledAlert(alert, logEngine.parseQuery(alert.query()));
+                alerts.put(alert.id(), entry);
+                compiled.add(entry);
+            } catch (Exception e) {
+                log.warn(
+                        "Skipping alert '{}' ({}): query does not parse: {}",
+                        alert.alertName(),
+                        alert.id(),
+                        e.getMessage());
+            }
+        }
+        version.incrementAndGet();
+        log.info(">>> Registered {} detection queries for '{}'", compiled.size(), serviceKey);
+        return compiled;
+    }
+
+    public CompiledAlert get(String alertId) {
+        return alerts.get(alertId);
+    }
+
+    /** Bumped on every registration; lets consumers rebuild derived structures lazily. */
+    public long version() {
+        return version.get();
+    }
+
+    public Collection<CompiledAlert> all() {
+        return List.copyOf(alerts.values());
+    }
+}
@@ -0,0 +1,361 @@
+package com.example.responder.service;
+
+import com.example.responder.config.ClusterProperties;
+import com.example.responder.model.AnalysisResponse;
+import com.example.responder.model.IncidentRequest;
+import com.example.responder.model.LogEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpConnectTimeoutException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * Cluster mode: routes incidents and log events to the node that owns their service on a
+ * consistent-hash ring of the statically configured members, so that node's runbook cache, log
+ * shard, incident memory and in-flight analyses are the only ones that ever see the service.
+ *
+ * <p>Members heartbeat each other on their readiness probe. A member that misses {@code
+ * failureThreshold} heartbeats in a row (failed forwards count too) leaves the ring and its
+ * services move to the next members on the ring; it rejoins with its next good heartbeat. Only the
+ * arcs of that member move, everything else stays where its caches are warm.
+ *
+ * <p>Forwarded requests carry {@link #FORWARDED_HEADER} and are always handled by the receiver,
+ * even if its view of the ring differs for a moment, so a request is forwarded at most once. If the
+ * owner cannot be connected to the request is handled locally. An analysis the owner did receive is
+ * never repeated here: its error answers are passed on to the caller, and so is a timeout waiting
+ * for its answer, which only says the analysis is slow, not that the owner is down.
+ *
+ * <p>Only requests keyed by a service are routed: analyses, log ingestion and simulated health
+ * changes. Scenario loads (which replace a node's whole index), log search and log export act on
+ * the node that receives them; run them against each member whose shard is of interest.
+ */
+@Service
+public class ClusterRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterRouter.class);
+
+    public static final String FORWARDED_HEADER = "X-Responder-Forwarded-By";
+
+    /**
+     * This node's view of the cluster.
+     *
+     * @param enabled Whether cluster mode is on; off, every service is owned by this node.
+     * @param self This node's base URL.
+     * @param members Members on the ring, this node included.
+     * @param down Configured members currently off the ring.
+     * @param owners Owner of every service this node knows of.
+     */
+    public record Status(
+            boolean enabled,
+            String self,
+            Set<String> members,
+            Set<String> down,
+            Map<String, String> owners) {}
+
+    private final ClusterProperties properties;
+    private final SystemStateService systemState;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+    private final Set<String> configured = new TreeSet<>();
+
+    private volatile HashRing ring = new HashRing(Set.of(), 1);
+    private HttpClient httpClient;
+    private ScheduledExecutorService scheduler;
+
+    public ClusterRouter(
+            ClusterProperties properties,
+            SystemStateService systemState,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.systemState = systemState;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.enabled()) {
+            log.info(">>> CLUSTER: Disabled, this node analyzes every incident it receives.");
+            return;
+        }
+        configured.addAll(properties.members());
+        configured.add(properties.self());
+        ring = new HashRing(configured, properties.virtualNodes());
+        meterRegistry.gauge("responder.cluster.members", this, r -> r.ring.members().size());
+
+        httpClient = HttpClient.newBuilder().connectTimeout(properties.heartbeatTimeout()).build();
+        scheduler =
+                Executors.newSingleThreadScheduledExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "cluster-heartbeat");
+                            t.setDaemon(true);
+                            return t;
+                        });
+        long interval = properties.heartbeatInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(
+                this::heartbeats, interval, interval, TimeUnit.MILLISECONDS);
+        log.info(
+                ">>> CLUSTER: {} of {} members (virtualNodes={}, heartbeat={})",
+                properties.self(),
+                configured,
+                properties.virtualNodes(),
+                properties.heartbeatInterval());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    /** The node owning a service; this node when cluster mode is off. */
+    public String ownerOf(String serviceName) {
+        if (!properties.enabled() || serviceName == null) return properties.self();
+        return ring.owner(serviceKey(serviceName));
+    }
+
+    /**
+     * Analysis of the incident by the node owning its service, or empty if that is this node, the
+     * request was already forwarded ({@code forwardedBy} set) or the owner could not be connected
+     * to, in which case the caller analyzes it locally.
+     *
+     * @throws ResponseStatusException with the owner's status if it answered with an error, {@code
+     *     504} if its answer timed out and {@code 502} if the exchange failed after connecting
+     */
+    public Optional<AnalysisResponse> forwardAnalysis(IncidentRequest request, String forwardedBy) {
+        String owner = ownerOf(request.serviceName());
+        if (forwardedBy != null || isSelf(owner)) return Optional.empty();
+        try {
+            byte[] body = post(owner, "/api/incident", objectMapper.writeValueAsBytes(request));
+            count("incident", "forwarded");
+            log.info(">>> CLUSTER: '{}' analyzed by its owner {}", request.serviceName(), owner);
+            return Optional.of(objectMapper.readValue(body, AnalysisResponse.class));
+        } catch (ConnectException | HttpConnectTimeoutException e) {
+            count("incident", "failed");
+            log.warn(
+                    ">>> CLUSTER: Owner {} of '{}' is unreachable, analyzing locally: {}",
+                    owner,
+                    request.serviceName(),
+                    e.getMessage());
+            return Optional.empty();
+        } catch (OwnerErrorException e) {
+            count("incident", "rejected");
+            throw new ResponseStatusException(HttpStatusCode.valueOf(e.status), e.body, e);
+        } catch (HttpTimeoutException e) {
+            count("incident", "timeout");
+            throw new ResponseStatusException(
+                    HttpStatus.GATEWAY_TIMEOUT,
+                    owner + " did not answer within " + properties.forwardTimeout(),
+                    e);
+        } catch (IOException e) {
+            count("incident", "failed");
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_GATEWAY, "Forwarding to " + owner + " failed", e);
+        } catch (InterruptedException e) {
+            throw new ResponseStatusException(
+                    HttpStatus.SERVICE_UNAVAILABLE, "Interrupted waiting for " + owner, e);
+        }
+    }
+
+    /**
+     * Sends the events of services owned by other nodes to their owners and returns the ones this
+     * node has to index: its own, those without a service, and those whose owner was unreachable.
+     * Already forwarded events ({@code forwardedBy} set) are all indexed here.
+     */
+    public List<LogEvent> forwardLogs(List<LogEvent> events, String forwardedBy) {
+        if (!properties.enabled() || forwardedBy != null) return events;
+        Map<String, List<LogEvent>> byOwner = new LinkedHashMap<>();
+        List<LogEvent> local = new ArrayList<>();
+        for (LogEvent event : events) {
+            String owner = ownerOf(event.serviceName());
+            if (isSelf(owner)) {
+                local.add(event);
+            } else {
+                byOwner.computeIfAbsent(owner, o -> new ArrayList<>()).add(event);
+            }
+        }
+        byOwner.forEach(
+                (owner, batch) -> {
+                    try {
+                        post(owner, "/api/logs", objectMapper.writeValueAsBytes(batch));
+                        count("logs", "forwarded");
+                    } catch (Exception e) {
+                        count("logs", "failed");
+                        log.warn(
+                                ">>> CLUSTER: Forwarding {} log events to {} failed, indexing"
+                                        + " locally: {}",
+                                batch.size(),
+                                owner,
+                                e.getMessage());
+                        local.addAll(batch);
+                    }
+                });
+        return local;
+    }
+
+    /**
+     * Applies a simulated health change on the node owning the service, whose agent reads it; empty
+     * if that is this node, the request was already forwarded or the owner is unreachable.
+     */
+    public Optional<String> forwardSimulation(String service, boolean healthy, String forwardedBy) {
+        String owner = ownerOf(service);
+        if (forwardedBy != null || isSelf(owner)) return Optional.empty();
+        String path =
+                "/api/incident/simulate?service="
+                        + URLEncoder.encode(service, StandardCharsets.UTF_8)
+                        + "&healthy="
+                        + healthy;
+        try {
+            byte[] body = post(owner, path, new byte[0]);
+            count("simulate", "forwarded");
+            return Optional.of(new String(body, StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            count("simulate", "failed");
+            log.warn(
+                    ">>> CLUSTER: Forwarding the health of '{}' to {} failed, applying locally: {}",
+                    service,
+                    owner,
+                    e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    public Status status() {
+        Map<String, String> owners = new TreeMap<>();
+        for (String service : systemState.knownServices()) {
+            owners.put(service, ownerOf(service));
+        }
+        Set<String> down = new TreeSet<>(configured);
+        down.removeAll(ring.members());
+        return new Status(properties.enabled(), properties.self(), ring.members(), down, owners);
+    }
+
+    private void heartbeats() {
+        for (String member : configured) {
+            if (isSelf(member)) continue;
+            HttpRequest request =
+                    HttpRequest.newBuilder(URI.create(member + properties.heartbeatPath()))
+                            .timeout(properties.heartbeatTimeout())
+                            .GET()
+                            .build();
+            httpClient
+                    .sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete(
+                            (response, error) ->
+                                    recordContact(
+                                            member,
+                                            error == null
+                                                    && response.statusCode() >= 200
+                                                    && response.statusCode() < 300));
+        }
+    }
+
+    /** Counts a heartbeat or forward and rebalances if a member left or rejoined the ring. */
+    synchronized void recordContact(String member, boolean reachable) {
+        int failed = reachable ? 0 : failures.getOrDefault(member, 0) + 1;
+        failures.put(member, failed);
+
+        Set<String> live = new TreeSet<>();
+        for (String candidate : configured) {
+            if (isSelf(candidate)
+                    || failures.getOrDefault(candidate, 0) < properties.failureThreshold()) {
+                live.add(candidate);
+            }
+        }
+        if (!live.equals(ring.members())) {
+            ring = new HashRing(live, properties.virtualNodes());
+            Counter.builder("responder.cluster.rebalances").register(meterRegistry).increment();
+            log.warn(
+                    ">>> CLUSTER: {} {}, rebalanced over {}",
+                    member,
+                    reachable ? "rejoined" : "is down",
+                    live);
+        }
+    }
+
+    private byte[] post(String owner, String path, byte[] body)
+            throws IOException, InterruptedException {
+        HttpRequest request =
+                HttpRequest.newBuilder(URI.create(owner + path))
+                        .timeout(properties.forwardTimeout())
+                        .header("Content-Type", "application/json")
+                        .header(FORWARDED_HEADER, properties.self())
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                        .build();
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (ConnectException | HttpConnectTimeoutException e) {
+            // Only a failed connect says the owner is gone; a slow answer does not
+            recordContact(owner, false);
+            throw e;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            throw new OwnerErrorException(owner + path, response);
+        }
+        return response.body();
+    }
+
+    /** An error status answered by the owner of a forwarded request. */
+    private static final class OwnerErrorException extends IOException {
+
+        private final int status;
+        private final String body;
+
+        OwnerErrorException(String target, HttpResponse<byte[]> response) {
+            super(target + " answered " + response.statusCode());
+            this.status = response.statusCode();
+            this.body = new String(response.body(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private boolean isSelf(String member) {
+        return member == null || member.equals(properties.self());
+    }
+
+    private void count(String kind, String outcome) {
+        Counter.builder("responder.cluster.forwards")
+                .tag("kind", kind)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String serviceKey(String serviceName) {
+        return serviceName.toLowerCase(Locale.ROOT).trim().replace(" ", "-");
+    }
+}
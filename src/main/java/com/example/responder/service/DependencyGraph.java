@@ -0,0 +1,215 @@
+package com.example.responder.service;
+
+import com.example.responder.config.DependencyGraphProperties;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+/**
+ * Which services call which, so the agent can look upstream: when payment fails because inventory
+ * does, inventory's runbook and health belong in the context from the first turn.
+ *
+ * <p>Edges come from the declared map in {@code responder.dependencies.file} and, optionally, from
+ * caller -> callee hops observed in the log index traces (see {@link
+ * EmbeddedLogEngine#traceCallEdges}). Declared edges always rank first; inferred ones by the number
+ * of traces that show them. The adjacency lists are an immutable snapshot, so lookups are a single
+ * map read; inference re-runs in the background after new logs arrived.
+ */
+@Component
+public class DependencyGraph {
+
+    private static final Logger log = LoggerFactory.getLogger(DependencyGraph.class);
+    private static final int DECLARED = Integer.MAX_VALUE;
+
+    private final DependencyGraphProperties properties;
+    private final EmbeddedLogEngine logEngine;
+    private final Map<String, Map<String, Integer>> declared;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    private final ExecutorService refresher =
+            Executors.newSingleThreadExecutor(
+                    r -> {
+                        Thread t = new Thread(r, "dependency-graph");
+                        t.setDaemon(true);
+                        return t;
+                    });
+
+    // service -> services it calls, strongest edge first
+    private volatile Map<String, List<String>> adjacency;
+    private volatile long refreshedSequence = -1;
+    private volatile long refreshedAtMillis;
+
+    public DependencyGraph(
+            DependencyGraphProperties properties,
+            EmbeddedLogEngine logEngine,
+            ObjectMapper objectMapper,
+            ResourceLoader resourceLoader) {
+        this.properties = properties;
+        this.logEngine = logEngine;
+        this.declared = load(properties.file(), objectMapper, resourceLoader);
+        this.adjacency = build(declared, Map.of());
+        maybeRefresh();
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    /** Services that {@code service} calls directly, strongest edge first. */
+    public List<String> dependenciesOf(String service) {
+        maybeRefresh();
+        return adjacency.getOrDefault(key(service), List.of());
+    }
+
+    /** Up to {@code n} upstream dependencies, breadth-first: direct ones before transitive. */
+    public List<String> nearestDependencies(String service, int n) {
+        return nearestDependencies(List.of(service), n);
+    }
+
+    /**
+     * Up to {@code n} upstream dependencies of a group of services, breadth-first from all of them
+     * at once. Members of the group are never returned, even if another member calls them.
+     */
+    public List<String> nearestDependencies(Collection<String> services, int n) {
+        maybeRefresh();
+        Map<String, List<String>> graph = adjacency;
+        List<String> nearest = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        for (String service : services) {
+            String start = key(service);
+            if (seen.add(start)) {
+                queue.add(start);
+            }
+        }
+        while (!queue.isEmpty() && nearest.size() < n) {
+            for (String dependency : graph.getOrDefault(queue.poll(), List.of())) {
+                if (nearest.size() == n) break;
+                if (seen.add(dependency)) {
+                    nearest.add(dependency);
+                    queue.add(dependency);
+                }
+            }
+        }
+        return nearest;
+    }
+
+    /** Re-reads the trace edges from the log index and swaps in a new snapshot. */
+    synchronized void refresh() {
+        long sequence = logEngine.currentSequence();
+        Map<String, Map<String, Integer>> inferred = new HashMap<>();
+        logEngine
+                .traceCallEdges(properties.maxTraces())
+                .forEach(
+                        (caller, callees) ->
+                                callees.forEach(
+                                        (callee, traces) -> {
+                                            if (traces >= properties.minTraceSupport()) {
+                                                inferred.computeIfAbsent(
+                                                                key(caller), k -> new HashMap<>())
+                                                        .merge(key(callee), traces, Integer::sum);
+                                            }
+                                        }));
+        adjacency = build(declared, inferred);
+        refreshedSequence = sequence;
+        refreshedAtMillis = System.currentTimeMillis();
+        log.info(">>> DEPENDENCIES: {} services with dependencies", adjacency.size());
+    }
+
+    private void maybeRefresh() {
+        if (!properties.inferFromTraces()
+                || logEngine.currentSequence() == refreshedSequence
+                || System.currentTimeMillis() - refreshedAtMillis
+                        < properties.refreshInterval().toMillis()
+                || !refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        refresher.execute(
+                () -> {
+                    try {
+                        refresh();
+                    } catch (RuntimeException e) {
+                        log.warn("Dependency inference failed", e);
+                    } finally {
+                        refreshing.set(false);
+                    }
+                });
+    }
+
+    private static Map<String, List<String>> build(
+            Map<String, Map<String, Integer>> declared,
+            Map<String, Map<String, Integer>> inferred) {
+        Map<String, Map<String, Integer>> weights = new HashMap<>();
+        for (var edges : List.of(declared, inferred)) {
+            edges.forEach(
+                    (caller, callees) ->
+                            callees.forEach(
+                                    (callee, weight) -> {
+                                        if (!caller.equals(callee)) {
+                                            weights.computeIfAbsent(caller, k -> new HashMap<>())
+                                                    .merge(callee, weight, Math::max);
+                                        }
+                                    }));
+        }
+        Map<String, List<String>> adjacency = new HashMap<>();
+        weights.forEach(
+                (caller, callees) ->
+                        adjacency.put(
+                                caller,
+                                callees.entrySet().stream()
+                                        .sorted(
+                                                Map.Entry.<String, Integer>comparingByValue()
+                                                        .reversed()
+                                                        .thenComparing(Map.Entry.comparingByKey()))
+                                        .map(Map.Entry::getKey)
+                                        .toList()));
+        return Map.copyOf(adjacency);
+    }
+
+    private static Map<String, Map<String, Integer>> load(
+            String location, ObjectMapper objectMapper, ResourceLoader resourceLoader) {
+        Resource resource = resourceLoader.getResource(location);
+        if (!resource.exists()) {
+            log.info(">>> DEPENDENCIES: No dependency file at {}", location);
+            return Map.of();
+        }
+        try (InputStream in = resource.getInputStream()) {
+            Map<String, List<String>> file =
+                    objectMapper.readValue(in, new TypeReference<Map<String, List<String>>>() {});
+            Map<String, Map<String, Integer>> edges = new HashMap<>();
+            file.forEach(
+                    (caller, callees) ->
+                            callees.forEach(
+                                    callee ->
+                                            edges.computeIfAbsent(key(caller), k -> new HashMap<>())
+                                                    .put(key(callee), DECLARED)));
+            return edges;
+        } catch (IOException e) {
+            throw new IllegalStateException("Invalid dependency file " + location, e);
+        }
+    }
+
+    private static String key(String service) {
+        return service.toLowerCase(Locale.ROOT).trim().replace(" ", "-");
+    }
+}
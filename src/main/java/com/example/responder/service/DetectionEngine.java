@@ -0,0 +1,198 @@
+package com.example.responder.service;
+
+import com.example.responder.config.DetectionProperties;
+import com.example.responder.model.DetectedIncident;
+import com.example.responder.model.RunbookAlert;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.search.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+/**
+ * Continuously evaluates every registered runbook alert query against the log index and opens an
+ * incident when an alert crosses its threshold within its time period.
+ *
+ * <p>Evaluation is incremental: every tick only counts documents indexed since the previous tick
+ * (by ingest sequence) and adds them to a per-alert sliding window. A tick with no new documents
+ * costs nothing beyond reading an AtomicLong.
+ *
+ * <p>Windows and open incidents describe the logs of one scenario. When a scenario load replaces
+ * the logs, both are reset and the new logs are counted from their first document.
+ */
+@Service
+public class DetectionEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(DetectionEngine.class);
+    private static final Duration BUCKET_WIDTH = Duration.ofSeconds(10);
+
+    private final EmbeddedLogEngine logEngine;
+    private final AlertRegistry alertRegistry;
+    private final DetectionProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<String, WindowedCounter> windows = new ConcurrentHashMap<>();
+    private final Map<String, DetectedIncident> openIncidents = new ConcurrentHashMap<>();
+    private volatile long lastEvaluatedSeq;
+    private volatile long lastGenerationStart;
+
+    private ScheduledExecutorService scheduler;
+
+    public DetectionEngine(
+            EmbeddedLogEngine logEngine,
+            AlertRegistry alertRegistry,
+            DetectionProperties properties,
+            ApplicationEventPublisher eventPublisher) {
+        this.logEngine = logEngine;
+        this.alertRegistry = alertRegistry;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.enabled()) {
+            log.info(">>> DETECTION: Disabled.");
+            return;
+        }
+        scheduler =
+                Executors.newSingleThreadScheduledExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "alert-detection");
+                            t.setDaemon(true);
+                            return t;
+                        });
+        long intervalMillis = properties.interval().toMillis();
+        scheduler.scheduleWithFixedDelay(
+                () -> {
+                    try {
+                        tick();
+                    } catch (Exception e) {
+                        log.warn("Detection tick failed", e);
+                    }
+                },
+                intervalMillis,
+                intervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    void tick() {
+        tick(System.currentTimeMillis());
+    }
+
+    /** One evaluation round at {@code now}. Package-private so it can be driven directly. */
+    synchronized void tick(long now) {
+        syncGeneration();
+        if (properties.mode() == DetectionProperties.Mode.SCHEDULED) {
+            countNewDocuments(now);
+        }
+        // Thresholds are re-checked on every tick so incidents also close as windows slide
+        checkThresholds(now);
+    }
+
+    private void countNewDocuments(long now) {
+        long upToSeq = logEngine.currentSequence();
+        List<AlertRegistry.CompiledAlert> alerts = new ArrayList<>(alertRegistry.all());
+
+        if (upToSeq > lastEvaluatedSeq && !alerts.isEmpty()) {
+            List<Query> queries = alerts.stream().map(AlertRegistry.CompiledAlert::query).toList();
+            long[] newMatches = logEngine.countNewMatches(queries, lastEvaluatedSeq, upToSeq);
+            for (int i = 0; i < alerts.size(); i++) {
+                window(alerts.get(i).alert()).add(now, newMatches[i]);
+            }
+        }
+        lastEvaluatedSeq = upToSeq;
+    }
+
+    /** Adds matches observed outside the scheduled path (e.g. by the AlertPercolator). */
+    public void recordMatches(RunbookAlert alert, long timestampMillis, long matches) {
+        syncGeneration();
+        window(alert).add(timestampMillis, matches);
+    }
+
+    /** Opens incidents for alerts above their threshold and clears the ones that fell below. */
+    public void checkThresholds() {
+        checkThresholds(System.currentTimeMillis());
+    }
+
+    private synchronized void checkThresholds(long now) {
+        for (AlertRegistry.CompiledAlert compiled : alertRegistry.all()) {
+            RunbookAlert alert = compiled.alert();
+            long inWindow = window(alert).sum(now, alert.timePeriod());
+            if (inWindow >= properties.thresholdFor(alert.id())) {
+                openIncidents.computeIfAbsent(alert.id(), id -> open(alert, inWindow, now));
+            } else if (openIncidents.remove(alert.id()) != null) {
+                log.info(">>> DETECTION: Alert '{}' ({}) cleared", alert.alertName(), alert.id());
+            }
+        }
+    }
+
+    private void syncGeneration() {
+        long generationStart = logEngine.generationStart();
+        if (generationStart != lastGenerationStart) {
+            synchronized (this) {
+                if (generationStart != lastGenerationStart) {
+                    resetFor(generationStart);
+                }
+            }
+        }
+    }
+
+    /** Counts and incidents of the replaced logs refer to documents that no longer exist. */
+    private void resetFor(long generationStart) {
+        if (!openIncidents.isEmpty()) {
+            log.info(
+                    ">>> DETECTION: Logs replaced, clearing {} open incidents",
+                    openIncidents.size());
+        }
+        windows.clear();
+        openIncidents.clear();
+        lastEvaluatedSeq = generationStart;
+        lastGenerationStart = generationStart;
+    }
+
+    private DetectedIncident open(RunbookAlert alert, long matchCount, long now) {
+        DetectedIncident incident =
+                new DetectedIncident(
+                        alert.id(),
+                        alert.serviceName(),
+                        alert.alertName(),
+                        alert.query(),
+                        matchCount,
+                        alert.timePeriod(),
+                        Instant.ofEpochMilli(now));
+        log.warn(
+                ">>> DETECTION: Alert '{}' fired for '{}' ({} matches in {})",
+                alert.alertName(),
+                alert.serviceName(),
+                matchCount,
+                alert.timePeriod());
+        eventPublisher.publishEvent(incident);
+        return incident;
+    }
+
+    private WindowedCounter window(RunbookAlert alert) {
+        return windows.computeIfAbsent(
+                alert.id(), id -> WindowedCounter.covering(alert.timePeriod(), BUCKET_WIDTH));
+    }
+
+    public List<DetectedIncident> openIncidents() {
+        return List.copyOf(openIncidents.values());
+    }
+}
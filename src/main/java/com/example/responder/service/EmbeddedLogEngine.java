@@ -1,268 +1,888 @@
 package com.example.responder.service;
 
+import com.example.responder.config.LogEngineProperties;
+import com.example.responder.model.LogEvent;
+import com.example.responder.model.LogIndexStats;
+import com.example.responder.model.LogScenario;
+import com.example.responder.model.ScenarioLoadReport;
 import com.example.responder.tools.ElfLogSearchTool;
+import com.example.responder.tools.LogBrowseTool;
+import com.example.responder.tools.TraceLookupTool;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.DelegatingAnalyzerWrapper;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.core.KeywordAnalyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer; // UPDATED IMPORT
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
 import org.apache.lucene.document.*;
 import org.apache.lucene.index.*;
+import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.search.*;
-import org.apache.lucene.store.ByteBuffersDirectory;
-import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.BytesRef;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+/**
+ * In-memory ELF log index, sharded by service ({@code application.name}). Each shard has its own
+ * writer, so ingest for different services runs in parallel and a noisy service never blocks
+ * searches on the others. Queries that require an {@code application.name} are routed to the
+ * matching shard only; all other queries fan out over every shard and the per-shard top hits are
+ * merged.
+ */
 @Service
 public class EmbeddedLogEngine {
 
     private static final Logger log = LoggerFactory.getLogger(EmbeddedLogEngine.class);
-    private Directory memoryIndex;
-    private StandardAnalyzer analyzer; // UPDATED TYPE
+
+    // Monotonic ingest sequence (never reset, not even by scenario switches). Lets consumers such
+    // as the DetectionEngine ask for "documents indexed since X" with a cheap point range.
+    public static final String SEQ_FIELD = "_seq";
+    public static final String TIMESTAMP_FIELD = "@timestamp";
+    // ID of the log template (see LogTemplateMiner) of the message, doc values only
+    public static final String TEMPLATE_FIELD = "template_id";
+
+    // ELF fields that are full-text analyzed; everything else is an exact keyword
+    private static final Set<String> TEXT_FIELDS =
+            Set.of(LogEvent.SERVICE, LogEvent.MESSAGE, LogEvent.STATUS_CODE);
+    // Integer-valued fields are also indexed as a LongPoint under "<field>.num" for range queries
+    public static final String NUMERIC_SUFFIX = ".num";
+    private static final Pattern INTEGER = Pattern.compile("-?\\d{1,18}");
+
+    // Logs without an application.name end up here
+    private static final String UNASSIGNED_SHARD = "_unassigned";
+    // Below this batch size, parallel ingest costs more than it saves
+    private static final int PARALLEL_INGEST_THRESHOLD = 512;
+    // Events claimed at a time by each bulk-indexing thread
+    private static final int BULK_BATCH_SIZE = 2_000;
+    // Upper bound on events returned for a single trace
+    private static final int MAX_TRACE_EVENTS = 200;
+    // Number of message templates summarized in a search response
+    private static final int TOP_TEMPLATES = 5;
+
+    /** Receives exported log lines one at a time (see {@link #export}). */
+    @FunctionalInterface
+    public interface HitSink {
+        void accept(Map<String, String> hit) throws IOException;
+    }
+
+    private final AtomicLong sequence = new AtomicLong();
+    // Sequence right before the first document of the live generation (see generationStart)
+    private volatile long generationStart;
+    private final List<LogIngestListener> ingestListeners = new CopyOnWriteArrayList<>();
+    // The live index generation; replaced wholesale by scenario loads (see LogIndex)
+    private final AtomicReference<LogIndex> current = new AtomicReference<>();
+    private final AtomicLong generations = new AtomicLong();
+    private final LogEngineProperties properties;
+    private final ScenarioCatalog scenarioCatalog;
+    private Analyzer analyzer;
+
+    // Separate pools, so heavy ingest can't starve searches (and vice versa)
+    private ExecutorService searchExecutor;
+    private ExecutorService ingestExecutor;
+
+    public EmbeddedLogEngine(LogEngineProperties properties, ScenarioCatalog scenarioCatalog) {
+        this.properties = properties;
+        this.scenarioCatalog = scenarioCatalog;
+    }
 
     @PostConstruct
     public void init() throws IOException {
-        memoryIndex = new ByteBuffersDirectory();
-        // UPDATED: Use StandardAnalyzer for robust, case-insensitive, punctuation-aware search
-        analyzer = new StandardAnalyzer();
+        // StandardAnalyzer for the text fields (case-insensitive, punctuation-aware search), but
+        // keyword fields must be queried verbatim: log.level:ERROR, type:opentracing-log, ...
+        analyzer = new SchemaAnalyzer();
+        int cores = Runtime.getRuntime().availableProcessors();
+        searchExecutor = Executors.newFixedThreadPool(cores, daemonThreads("log-search"));
+        ingestExecutor =
+                Executors.newFixedThreadPool(
+                        Math.max(cores, properties.indexingThreads()), daemonThreads("log-ingest"));
+        log.info(">>> LOG ENGINE: Using {} storage", properties.storage());
+        current.set(new LogIndex(generations.get(), analyzer, properties));
         // Start with a healthy state
         loadScenario("healthy");
     }
 
-    /** Wipes the existing index and seeds new data based on the requested simulation scenario. */
-    public void loadScenario(String scenarioName) {
+    @PreDestroy
+    public void close() throws IOException {
+        searchExecutor.shutdownNow();
+        ingestExecutor.shutdownNow();
+        current.get().decRef();
+    }
+
+    /** Replaces the whole index with the requested simulation scenario. */
+    public ScenarioLoadReport loadScenario(String scenarioName) {
+        return loadScenario(scenarioName, null);
+    }
+
+    /**
+     * Replaces the whole index with the requested simulation scenario (see {@link
+     * ScenarioCatalog}): its fixtures go through the regular ingest path, its generated traffic is
+     * bulk-indexed by several threads.
+     *
+     * <p>The scenario is built into a fresh index generation while searches keep running against
+     * the current one, then swapped in atomically. The old generation is closed once its last
+     * search finishes. Events ingested into the old generation while the load runs are discarded
+     * with it. Ingest listeners are handed the fixtures once the new generation is live.
+     *
+     * @param generatedEvents Overrides the generator's event count (null = as configured).
+     */
+    public synchronized ScenarioLoadReport loadScenario(String scenarioName, Long generatedEvents) {
         log.info(">>> SIMULATION: Switching Log Engine to Scenario: '{}'", scenarioName);
-        try (IndexWriter writer = new IndexWriter(memoryIndex, new IndexWriterConfig(analyzer))) {
-            writer.deleteAll();
-            switch (scenarioName.toLowerCase()) {
-                case "healthy" -> seedHealthy(writer);
-                case "payment-500-npe" -> seedPaymentNPE(writer);
-                case "payment-latency" -> seedPaymentLatency(writer);
-                case "inventory-db-timeout" -> seedInventoryDbTimeout(writer);
-                case "inventory-stock-mismatch" -> seedInventoryStockMismatch(writer);
-
-                // NEW SCENARIOS
-                case "inventory-cache-inconsistency" -> seedInventoryCacheInconsistency(writer);
-                case "payment-gateway-timeout" -> seedPaymentGatewayTimeout(writer);
-
-                default -> log.warn("Unknown scenario '{}', leaving index empty.", scenarioName);
+        LogScenario scenario = scenarioCatalog.get(scenarioName).orElse(null);
+        if (scenario == null) {
+            log.warn("Unknown scenario '{}', leaving index empty.", scenarioName);
+        }
+        long start = System.nanoTime();
+        long indexed = 0;
+        int threads = 1;
+        LogIndex next = new LogIndex(generations.incrementAndGet(), analyzer, properties);
+        List<LogEvent> fixtures = List.of();
+        try {
+            long previousSequence = sequence.get();
+            if (scenario != null) {
+                fixtures = fixtureEvents(scenario, System.currentTimeMillis());
+                ingestInto(next, fixtures);
+                indexed += fixtures.size();
+                if (scenario.generator() != null) {
+                    LogScenario.Generator spec =
+                            generatedEvents != null
+                                    ? scenario.generator().withEvents(generatedEvents)
+                                    : scenario.generator();
+                    threads = properties.indexingThreads();
+                    indexed +=
+                            bulkIngest(
+                                    next,
+                                    new SyntheticLogGenerator(spec, System.currentTimeMillis()),
+                                    threads);
+                }
             }
-            writer.commit();
-
-            debugDumpAllLogs().forEach(System.out::println);
+            next.commitAndRefresh();
+            next.publish(sequence.get());
+            current.getAndSet(next).decRef();
+            // Only after the swap: consumers that see the new start must find its documents
+            generationStart = previousSequence;
+            log.info(">>> SIMULATION: Swapped in index generation {}", next.generation());
+            notifyListeners(fixtures);
         } catch (IOException e) {
             log.error("Failed to load scenario", e);
+            releaseQuietly(next);
         }
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        var report =
+                new ScenarioLoadReport(
+                        scenarioName, indexed, millis, indexed * 1000.0 / millis, threads);
+        log.info(
+                ">>> SIMULATION: Indexed {} events in {} ms ({} events/s, {} threads)",
+                report.events(),
+                report.millis(),
+                Math.round(report.eventsPerSecond()),
+                report.indexingThreads());
+        return report;
     }
 
-    // --- Scenario Data Factories ---
-
-    private void seedHealthy(IndexWriter w) throws IOException {
-        addLog(
-                w,
-                "payment-service",
-                "INFO",
-                "200",
-                "opentracing-log",
-                "tx-ok-1",
-                "Payment processed successfully");
-        addLog(
-                w,
-                "inventory-service",
-                "INFO",
-                "200",
-                "opentracing-log",
-                "tx-ok-2",
-                "Stock updated");
-    }
-
-    private void seedInventoryCacheInconsistency(IndexWriter w) throws IOException {
-        // Goal: DB is fine (UP), but app is complaining about cache misses or stale data
-        // Query: service:"inventory-service" AND log.message:"Cache key miss" AND db.status:"UP"
-        for (int i = 0; i < 20; i++) {
-            Document doc = new Document();
-            doc.add(new TextField("application.name", "inventory-service", Field.Store.YES));
-            doc.add(
-                    new TextField(
-                            "log.message",
-                            "WARN: Cache key miss for SKU-999. Fetching from DB.",
-                            Field.Store.YES));
-            doc.add(
-                    new StringField(
-                            "db.status", "UP", Field.Store.YES)); // Explicit field for the query
-            doc.add(new StoredField("trace_id", "cache-miss-" + i));
-            w.addDocument(doc);
-        }
-    }
-
-    private void seedPaymentGatewayTimeout(IndexWriter w) throws IOException {
-        // Goal: 504 errors and high latency
-        // Query: service:"payment-service" AND status_code:504 AND metric:latency > 5000
-        for (int i = 0; i < 15; i++) {
-            Document doc = new Document();
-            doc.add(new TextField("application.name", "payment-service", Field.Store.YES));
-            doc.add(new TextField("status_code", "504", Field.Store.YES));
-            doc.add(new StringField("metric", "latency", Field.Store.YES));
-            // Lucene range query logic usually requires IntPoint, but here we simulate text match
-            // for the demo
-            // Or explicitly set value > 5000 as requested by the text parser logic
-            doc.add(new StringField("value", "6500", Field.Store.YES));
-            doc.add(
-                    new TextField(
-                            "log.message",
-                            "Gateway Timeout awaiting upstream response",
-                            Field.Store.YES));
-            doc.add(new StoredField("trace_id", "gw-timeout-" + i));
-            w.addDocument(doc);
-        }
-    }
-
-    private void seedPaymentNPE(IndexWriter w) throws IOException {
-        // Matches: status_code:[500 TO 599] AND log.level:ERROR
-        for (int i = 0; i < 50; i++) {
-            addLog(
-                    w,
-                    "payment-service",
-                    "ERROR",
-                    "500",
-                    "opentracing-log",
-                    "trace-npe-" + i,
-                    "java.lang.NullPointerException at"
-                            + " com.example.payment.Processor.process(Processor.java:42)");
-        }
-    }
-
-    private void seedPaymentLatency(IndexWriter w) throws IOException {
-        // Matches: metric:latency AND value > 2000
-        // Note: Lucene text fields require careful handling for range queries on numbers.
-        // For simplicity in this demo, we treat specific keywords or just add a log message field.
-        for (int i = 0; i < 20; i++) {
-            Document doc = new Document();
-            doc.add(new TextField("application.name", "payment-service", Field.Store.YES));
-            doc.add(new StringField("metric", "latency", Field.Store.YES));
-            doc.add(
-                    new StringField(
-                            "value",
-                            "5000",
-                            Field.Store.YES)); // Simple string match for simulation
-            doc.add(new StoredField("trace_id", "slow-tx-" + i));
-            w.addDocument(doc);
+    /**
+     * Indexes a micro-batch of log events and hands it to every registered {@link
+     * LogIngestListener}. Events become searchable immediately (near-real-time readers).
+     */
+    public void ingest(List<LogEvent> events) throws IOException {
+        LogIndex index = acquireIndex();
+        try {
+            ingestInto(index, events);
+        } finally {
+            index.decRef();
         }
+        notifyListeners(events);
     }
 
-    private void seedInventoryDbTimeout(IndexWriter w) throws IOException {
-        // Matches: log.message:"Connection check failed" AND db.type:postgres
-        for (int i = 0; i < 15; i++) {
-            Document doc = new Document();
-            doc.add(new TextField("application.name", "inventory-service", Field.Store.YES));
-            doc.add(new StringField("db.type", "postgres", Field.Store.YES));
-            doc.add(
-                    new TextField(
-                            "log.message",
-                            "Connection check failed. HikariPool-1 - Connection is not available",
-                            Field.Store.YES));
-            doc.add(new StoredField("trace_id", "db-err-" + i));
-            w.addDocument(doc);
-        }
-    }
-
-    private void seedInventoryStockMismatch(IndexWriter w) throws IOException {
-        // Matches: status_code:[500 TO 599] ... and specifically "StockCountMismatch"
-        for (int i = 0; i < 5; i++) {
-            addLog(
-                    w,
-                    "inventory-service",
-                    "ERROR",
-                    "500",
-                    "opentracing-log",
-                    "stock-err-" + i,
-                    "CRITICAL: StockCountMismatchException: SKU-123 expected 5 but found 3");
-        }
-    }
-
-    private void addLog(
-            IndexWriter w,
-            String app,
-            String level,
-            String status,
-            String type,
-            String traceId,
-            String message)
+    private void ingestInto(LogIndex index, List<LogEvent> events) throws IOException {
+        StampedBatch batch = stampAll(index, events);
+        Map<LogShard, List<Document>> byShard = batch.byShard();
+
+        if (byShard.size() > 1 && events.size() >= PARALLEL_INGEST_THRESHOLD) {
+            List<Future<?>> writes = new ArrayList<>();
+            byShard.forEach(
+                    (shard, docs) ->
+                            writes.add(
+                                    ingestExecutor.submit(
+                                            () -> {
+                                                writeAndRefresh(shard, docs);
+                                                return null;
+                                            })));
+            awaitAll(writes);
+        } else {
+            for (Map.Entry<LogShard, List<Document>> entry : byShard.entrySet()) {
+                writeAndRefresh(entry.getKey(), entry.getValue());
+            }
+        }
+        index.publish(batch.maxSequence());
+    }
+
+    public void addIngestListener(LogIngestListener listener) {
+        ingestListeners.add(listener);
+    }
+
+    /**
+     * Generates and indexes all events of {@code generator} with {@code threads} concurrent
+     * writers. Each thread claims {@link #BULK_BATCH_SIZE} events at a time and adds them with one
+     * {@code addDocuments} call per shard; IndexWriter gives every thread its own in-memory
+     * segment, flushed when the RAM buffer fills up. Nothing is refreshed until the caller commits,
+     * which is what makes this much faster than {@link #ingest}. For the same reason ingest
+     * listeners are not notified: they only see what {@link #ingest} publishes.
+     *
+     * @return Number of events indexed.
+     */
+    long bulkIngest(LogIndex index, SyntheticLogGenerator generator, int threads)
             throws IOException {
+        AtomicLong cursor = new AtomicLong();
+        long total = generator.size();
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(
+                    ingestExecutor.submit(
+                            () -> {
+                                long from;
+                                while ((from = cursor.getAndAdd(BULK_BATCH_SIZE)) < total) {
+                                    int count = (int) Math.min(BULK_BATCH_SIZE, total - from);
+                                    List<LogEvent> batch = generator.batch(from, count);
+                                    for (Map.Entry<LogShard, List<Document>> entry :
+                                            stampAll(index, batch).byShard().entrySet()) {
+                                        entry.getKey().addDocuments(entry.getValue());
+                                    }
+                                }
+                                return null;
+                            }));
+        }
+        awaitAll(workers);
+        return total;
+    }
+
+    /** Documents grouped by target shard, plus the highest ingest sequence among them. */
+    private record StampedBatch(Map<LogShard, List<Document>> byShard, long maxSequence) {}
+
+    private StampedBatch stampAll(LogIndex index, List<LogEvent> events) throws IOException {
+        Map<LogShard, List<Document>> byShard = new LinkedHashMap<>();
+        long maxSequence = 0;
+        for (LogEvent event : events) {
+            LogShard shard = shardFor(index, event);
+            long seq = sequence.incrementAndGet();
+            byShard.computeIfAbsent(shard, s -> new ArrayList<>())
+                    .add(stamp(index, event, shard, seq));
+            maxSequence = Math.max(maxSequence, seq);
+        }
+        return new StampedBatch(byShard, maxSequence);
+    }
+
+    /**
+     * Takes a reference on the current index generation; release it with {@link LogIndex#decRef()}.
+     * Retries if a scenario swap closes the generation in between.
+     */
+    private LogIndex acquireIndex() {
+        while (true) {
+            LogIndex index = current.get();
+            if (index.tryIncRef()) {
+                return index;
+            }
+        }
+    }
+
+    private static void releaseQuietly(LogIndex index) {
+        try {
+            index.decRef();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not release index generation {}", index.generation(), e);
+        }
+    }
+
+    private void notifyListeners(List<LogEvent> events) {
+        for (LogIngestListener listener : ingestListeners) {
+            try {
+                listener.onEvents(events);
+            } catch (Exception e) {
+                log.warn("Ingest listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    /** Expands the scenario's fixtures, replacing {@code {i}} with the repetition index. */
+    private static List<LogEvent> fixtureEvents(LogScenario scenario, long nowMillis) {
+        List<LogEvent> events = new ArrayList<>();
+        for (LogScenario.Fixture fixture : scenario.fixtures()) {
+            for (int i = 0; i < fixture.repeat(); i++) {
+                Map<String, String> fields = new HashMap<>();
+                String index = Integer.toString(i);
+                fixture.fields().forEach((k, v) -> fields.put(k, v.replace("{i}", index)));
+                long timestamp =
+                        fixture.agoMillis() > 0
+                                ? nowMillis - fixture.agoMillis() + i * fixture.stepMillis()
+                                : 0;
+                events.add(new LogEvent(timestamp, fields));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Maps an event onto the index schema: analyzed text for {@link #TEXT_FIELDS}, exact keywords
+     * for everything else. The fields the tools return also get doc values (see {@link
+     * LogDocValues}), so hits never need stored-field decompression, and integer values get a
+     * {@link #NUMERIC_SUFFIX} point field (see StructuredQueryCompiler). Does not add the ingest
+     * stamps, so the result can also be used for percolation.
+     */
+    public Document toDocument(LogEvent event) {
         Document doc = new Document();
-        doc.add(new TextField("application.name", app, Field.Store.YES));
-        doc.add(new StringField("log.level", level, Field.Store.YES));
-        doc.add(new StringField("type", type, Field.Store.YES));
-        doc.add(new TextField("status_code", status, Field.Store.YES));
-        doc.add(new TextField("log.message", message, Field.Store.YES)); // Added message field
-        doc.add(new StoredField("trace_id", traceId));
-        w.addDocument(doc);
+        event.fields()
+                .forEach(
+                        (name, value) -> {
+                            if (TEXT_FIELDS.contains(name)) {
+                                doc.add(new TextField(name, value, Field.Store.YES));
+                            } else {
+                                doc.add(new StringField(name, value, Field.Store.YES));
+                            }
+                            if (INTEGER.matcher(value).matches()) {
+                                doc.add(
+                                        new LongPoint(
+                                                name + NUMERIC_SUFFIX, Long.parseLong(value)));
+                            }
+                            // trace_id doc values also back the (trace_id, timestamp) index sort
+                            if (LogDocValues.SORTED_FIELDS.contains(name)) {
+                                doc.add(new SortedDocValuesField(name, new BytesRef(value)));
+                            } else if (LogDocValues.BINARY_FIELDS.contains(name)) {
+                                doc.add(new BinaryDocValuesField(name, new BytesRef(value)));
+                            }
+                        });
+        return doc;
+    }
+
+    private static void writeAndRefresh(LogShard shard, List<Document> docs) throws IOException {
+        shard.addDocuments(docs);
+        shard.refresh();
+    }
+
+    private static void awaitAll(List<Future<?>> futures) throws IOException {
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted during ingest", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+    }
+
+    private LogShard shardFor(LogIndex index, LogEvent event) throws IOException {
+        String service = event.serviceName();
+        String key =
+                service == null || service.isBlank()
+                        ? UNASSIGNED_SHARD
+                        : service.toLowerCase(Locale.ROOT).trim().replace(" ", "-");
+        LogShard shard = index.shard(key);
+        if (service != null) {
+            shard.addServiceTokens(tokens(LogEvent.SERVICE, service));
+        }
+        return shard;
+    }
+
+    /**
+     * Stamps the event's document with its ingest sequence, timestamp and template ID, and counts
+     * it in the generation's rate baseline.
+     */
+    private Document stamp(LogIndex index, LogEvent event, LogShard shard, long seq) {
+        Document doc = toDocument(event);
+        long timestamp = event.timestamp() > 0 ? event.timestamp() : System.currentTimeMillis();
+        index.rateBaseline().record(shard.name(), event, timestamp);
+        doc.add(new LongPoint(SEQ_FIELD, seq));
+        doc.add(new NumericDocValuesField(SEQ_FIELD, seq));
+        doc.add(new LongPoint(TIMESTAMP_FIELD, timestamp));
+        doc.add(new NumericDocValuesField(TIMESTAMP_FIELD, timestamp));
+        doc.add(new StoredField(TIMESTAMP_FIELD, timestamp));
+        String message = event.get(LogEvent.MESSAGE);
+        if (message != null) {
+            doc.add(
+                    new NumericDocValuesField(
+                            TEMPLATE_FIELD, index.templateMiner().assign(message, timestamp)));
+        }
+        return doc;
+    }
+
+    public Analyzer analyzer() {
+        return analyzer;
+    }
+
+    /** Analyzes a value the same way the index does for the given field. */
+    public List<String> tokens(String field, String text) {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream stream = analyzer.tokenStream(field, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            stream.end();
+        } catch (IOException e) {
+            log.debug("Could not analyze '{}' for field '{}'", text, field, e);
+        }
+        return tokens;
+    }
+
+    /**
+     * Acquires searchers over the shards that can hold matches for the query. A query that requires
+     * {@code application.name} terms only hits shards whose service name contains all of them;
+     * anything else fans out to every shard.
+     */
+    ShardSearchers searchersFor(Query query) throws IOException {
+        List<String> serviceTerms = QueryTerms.required(query, LogEvent.SERVICE);
+        LogIndex index = acquireIndex();
+        List<LogShard> targets =
+                index.shards().stream()
+                        .filter(s -> serviceTerms.isEmpty() || s.mayContainService(serviceTerms))
+                        .toList();
+        return new ShardSearchers(index, targets, searchExecutor);
+    }
+
+    /** Runs the query on every routed shard in parallel and merges the per-shard top hits. */
+    static TopDocs searchAll(ShardSearchers searchers, Query query, int n) throws IOException {
+        List<TopDocs> perShard = searchers.map(s -> s.search(query, n));
+        TopDocs[] hits = perShard.toArray(new TopDocs[0]);
+        for (int i = 0; i < hits.length; i++) {
+            // TopDocs.merge breaks ties (and lets us find the shard again) by shardIndex
+            for (ScoreDoc scoreDoc : hits[i].scoreDocs) {
+                scoreDoc.shardIndex = i;
+            }
+        }
+        return TopDocs.merge(n, hits);
+    }
+
+    /** Parses a Lucene query string with the engine's analyzer and default field. */
+    public Query parseQuery(String queryString) throws ParseException {
+        // QueryParser is not thread-safe, so every call gets its own instance
+        return new QueryParser("log.message", analyzer).parse(queryString);
+    }
+
+    /**
+     * Ingest sequence right before the first document of the current index generation. Changes
+     * (only) when a scenario load swaps in a new generation, right after the swap; every document
+     * of the current generation has a higher sequence.
+     */
+    public long generationStart() {
+        return generationStart;
+    }
+
+    /** Highest ingest sequence that is searchable in the current index generation. */
+    public long currentSequence() {
+        return current.get().visibleSequence();
+    }
+
+    /**
+     * Counts, for each query, the matching documents whose ingest sequence is in (afterSeq,
+     * upToSeq]. All queries share one reader and one sequence filter; the point range lets Lucene
+     * skip every segment (and BKD block) that only holds already-evaluated documents.
+     */
+    public long[] countNewMatches(List<Query> queries, long afterSeq, long upToSeq) {
+        long[] counts = new long[queries.size()];
+        if (upToSeq <= afterSeq || queries.isEmpty()) {
+            return counts;
+        }
+        Query newDocs = LongPoint.newRangeQuery(SEQ_FIELD, afterSeq + 1, upToSeq);
+        try {
+            for (int i = 0; i < queries.size(); i++) {
+                Query incremental =
+                        new BooleanQuery.Builder()
+                                .add(queries.get(i), BooleanClause.Occur.FILTER)
+                                .add(newDocs, BooleanClause.Occur.FILTER)
+                                .build();
+                try (ShardSearchers searchers = searchersFor(queries.get(i))) {
+                    for (int c : searchers.map(s -> s.count(incremental))) {
+                        counts[i] += c;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.error("Incremental alert evaluation failed", e);
+        }
+        return counts;
+    }
+
+    /** Number of indexed events matching the query, without collecting hits or patterns. */
+    public long count(Query query) throws IOException {
+        try (ShardSearchers searchers = searchersFor(query)) {
+            long total = 0;
+            for (int c : searchers.map(s -> s.count(query))) {
+                total += c;
+            }
+            return total;
+        }
     }
 
     public ElfLogSearchTool.Response executeSearch(String queryString) {
+        Query query;
         try {
-            // Always open a fresh reader to see the latest writes
-            try (IndexReader reader = DirectoryReader.open(memoryIndex)) {
-                IndexSearcher searcher = new IndexSearcher(reader);
-                QueryParser parser = new QueryParser("log.message", analyzer); // Default field
+            query = parseQuery(queryString);
+        } catch (Exception e) {
+            log.error("Lucene Query Failed", e);
+            return errorResponse("Query Error: " + e.getMessage());
+        }
+        return executeSearch(query, queryString);
+    }
 
-                Query query = parser.parse(queryString);
-                TopDocs docs = searcher.search(query, 10);
+    /**
+     * Runs an already compiled query (e.g. a cached runbook alert query or one built by {@link
+     * StructuredQueryCompiler}), skipping the QueryParser entirely.
+     *
+     * @param queryString How the query is shown in the summary.
+     */
+    public ElfLogSearchTool.Response executeSearch(Query query, String queryString) {
+        try {
+            // Searchers are refreshed on every ingest, so they always see the latest writes
+            try (ShardSearchers searchers = searchersFor(query)) {
+                TopDocs docs = searchAll(searchers, query, 10);
 
                 List<String> traceIds = new ArrayList<>();
                 for (ScoreDoc scoreDoc : docs.scoreDocs) {
-                    Document d = searcher.doc(scoreDoc.doc);
-                    traceIds.add(d.get("trace_id"));
+                    IndexReader reader = searchers.searcher(scoreDoc.shardIndex).getIndexReader();
+                    traceIds.add(LogDocValues.get(reader, LogEvent.TRACE_ID, scoreDoc.doc));
                 }
+                List<ElfLogSearchTool.TemplateCount> templates = topTemplates(searchers, query);
+                ElfLogSearchTool.Baseline baseline = baseline(searchers, query);
 
+                String summary =
+                        "Found " + docs.totalHits.value + " matches for query: " + queryString;
+                if (!templates.isEmpty()) {
+                    summary +=
+                            ". Dominant pattern ("
+                                    + templates.get(0).matchCount()
+                                    + "x): "
+                                    + templates.get(0).template();
+                }
+                if (!"NO_BASELINE".equals(baseline.verdict())) {
+                    summary +=
+                            String.format(
+                                    ". Rate vs baseline (%s): %.1f/min vs %.1f/min, z=%.1f (%s)",
+                                    baseline.dimension(),
+                                    baseline.currentPerMinute(),
+                                    baseline.baselinePerMinute(),
+                                    baseline.zScore(),
+                                    baseline.verdict());
+                }
                 return new ElfLogSearchTool.Response(
                         (int) docs.totalHits.value,
                         traceIds,
                         List.of("simulated-pod-1", "simulated-pod-2"),
-                        "Found " + docs.totalHits.value + " matches for query: " + queryString);
+                        templates,
+                        baseline,
+                        summary);
             }
         } catch (Exception e) {
             log.error("Lucene Query Failed", e);
-            return new ElfLogSearchTool.Response(
-                    0, List.of(), List.of(), "Query Error: " + e.getMessage());
+            return errorResponse("Query Error: " + e.getMessage());
+        }
+    }
+
+    public static ElfLogSearchTool.Response errorResponse(String summary) {
+        return new ElfLogSearchTool.Response(0, List.of(), List.of(), List.of(), null, summary);
+    }
+
+    /** True for the analyzed full-text fields; every other field is an exact keyword. */
+    public static boolean isTextField(String field) {
+        return TEXT_FIELDS.contains(field);
+    }
+
+    /**
+     * Rate baseline of the service the query is scoped to, i.e. the one routed shard whose name has
+     * exactly the query's required {@code application.name} tokens. Queries without a service term
+     * compare with all services; partial service terms (e.g. {@code application.name:payment}) get
+     * none, as neither one service's rate nor the global one describes them.
+     */
+    private ElfLogSearchTool.Baseline baseline(ShardSearchers searchers, Query query) {
+        LogRateBaseline rates = searchers.index().rateBaseline();
+        List<String> serviceTerms = QueryTerms.required(query, LogEvent.SERVICE);
+        if (serviceTerms.isEmpty()) {
+            return rates.compare(null, query);
+        }
+        if (searchers.size() == 1) {
+            String service = searchers.shard(0).name();
+            if (Set.copyOf(tokens(LogEvent.SERVICE, service)).equals(Set.copyOf(serviceTerms))) {
+                return rates.compare(service, query);
+            }
+        }
+        return LogRateBaseline.none(
+                String.join(" ", serviceTerms) + " " + LogRateBaseline.dimensionFor(query));
+    }
+
+    /**
+     * One page of matching log lines, newest first, with only the requested fields.
+     *
+     * @param cursor {@code nextCursor} of the previous page, or null for the first page.
+     * @param fields Fields to return (null or empty = a default set).
+     */
+    public LogBrowseTool.Response searchPage(
+            String queryString, String cursor, int pageSize, List<String> fields) {
+        List<String> columns =
+                fields == null || fields.isEmpty() ? LogPager.DEFAULT_FIELDS : fields;
+        try {
+            Query query = parseQuery(queryString);
+            FieldDoc after = LogPager.decodeCursor(cursor);
+            try (ShardSearchers searchers = searchersFor(query)) {
+                LogPager.Page page = LogPager.page(searchers, query, after, pageSize, columns);
+                String next = LogPager.encodeCursor(page.last());
+                return new LogBrowseTool.Response(
+                        page.hits(),
+                        next,
+                        page.hits().size()
+                                + " lines for query: "
+                                + queryString
+                                + (next != null ? " (more available via nextCursor)" : ""));
+            }
+        } catch (Exception e) {
+            log.error("Paged log search failed", e);
+            return new LogBrowseTool.Response(List.of(), null, "Query Error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streams up to {@code limit} matching log lines, newest first, into {@code sink}. All pages
+     * come from one point-in-time view of the index, and only one page is held in memory.
+     *
+     * @return Number of lines written.
+     */
+    public long export(String queryString, List<String> fields, long limit, HitSink sink)
+            throws IOException, ParseException {
+        List<String> columns =
+                fields == null || fields.isEmpty() ? LogPager.DEFAULT_FIELDS : fields;
+        Query query = parseQuery(queryString);
+        try (ShardSearchers searchers = searchersFor(query)) {
+            return LogPager.export(searchers, query, columns, limit, sink);
+        }
+    }
+
+    /**
+     * Summarizes all matches (not just the top 10) by message template, straight from the
+     * template_id doc values. Far cheaper than shipping raw lines to the LLM.
+     */
+    private List<ElfLogSearchTool.TemplateCount> topTemplates(ShardSearchers searchers, Query query)
+            throws IOException {
+        Map<Integer, Long> counts = new HashMap<>();
+        List<Map<Integer, Long>> perShard =
+                searchers.map(
+                        s -> {
+                            TemplateCountCollector collector = new TemplateCountCollector();
+                            s.search(query, collector);
+                            return collector.counts();
+                        });
+        for (Map<Integer, Long> shardCounts : perShard) {
+            shardCounts.forEach((id, n) -> counts.merge(id, n, Long::sum));
         }
+
+        List<ElfLogSearchTool.TemplateCount> templates = new ArrayList<>();
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed())
+                .limit(TOP_TEMPLATES)
+                .forEach(
+                        e -> {
+                            LogTemplateMiner.Template t =
+                                    searchers.index().templateMiner().describe(e.getKey());
+                            if (t != null) {
+                                templates.add(
+                                        new ElfLogSearchTool.TemplateCount(
+                                                t.id(), t.pattern(), e.getValue(), t.example()));
+                            }
+                        });
+        return templates;
     }
 
     /**
-     * DEBUG TOOL: Returns a raw dump of all logs currently in the index.
-     * Useful for verifying seed data and schema fields.
+     * Returns every event of a trace across all services, ordered by timestamp. Uses a direct term
+     * lookup on {@code trace_id} in each segment (no query parsing, no scoring); thanks to the
+     * (trace_id, timestamp) index sort the hits of a trace are neighbouring docs in each segment.
      */
-    public List<String> debugDumpAllLogs() {
-        List<String> debugOutput = new ArrayList<>();
-        try (IndexReader reader = DirectoryReader.open(memoryIndex)) {
-            IndexSearcher searcher = new IndexSearcher(reader);
-
-            // MatchAllDocsQuery retrieves every single document in the index
-            Query query = new MatchAllDocsQuery();
-            // Fetch up to 1000 logs for debugging
-            TopDocs docs = searcher.search(query, 1000);
-
-            debugOutput.add(">>> INDEX DUMP: Total Documents Indexed: " + docs.totalHits.value);
-
-            for (ScoreDoc scoreDoc : docs.scoreDocs) {
-                Document d = searcher.doc(scoreDoc.doc);
-                // Format the output to show the most critical fields
-                String logEntry = String.format(
-                        "Trace: [%s] | App: [%s] | Status: [%s] | Msg: %s",
-                        d.get("trace_id"),
-                        d.get("application.name"),
-                        d.get("status_code"),
-                        d.get("log.message")
-                );
-                debugOutput.add(logEntry);
+    public TraceLookupTool.Response getTrace(String traceId) {
+        BytesRef term = new BytesRef(traceId.trim());
+        try (ShardSearchers searchers = searchersFor(new MatchAllDocsQuery())) {
+            List<TraceLookupTool.Event> events = new ArrayList<>();
+            for (List<TraceLookupTool.Event> shardEvents :
+                    searchers.map(s -> readTrace(s.getIndexReader(), term))) {
+                events.addAll(shardEvents);
             }
+            events.sort(Comparator.comparingLong(TraceLookupTool.Event::timestamp));
+
+            List<String> services =
+                    events.stream().map(TraceLookupTool.Event::service).distinct().toList();
+            int total = events.size();
+            return new TraceLookupTool.Response(
+                    traceId,
+                    total,
+                    services,
+                    events.subList(0, Math.min(total, MAX_TRACE_EVENTS)),
+                    total == 0
+                            ? "No events found for trace " + traceId
+                            : "Trace " + traceId + " has " + total + " events across " + services);
         } catch (IOException e) {
-            log.error("Failed to dump logs for debugging", e);
-            debugOutput.add("ERROR: Could not read index: " + e.getMessage());
+            log.error("Trace lookup failed", e);
+            return new TraceLookupTool.Response(
+                    traceId, 0, List.of(), List.of(), "Trace Lookup Error: " + e.getMessage());
+        }
+    }
+
+    private static List<TraceLookupTool.Event> readTrace(IndexReader reader, BytesRef traceId)
+            throws IOException {
+        List<TraceLookupTool.Event> events = new ArrayList<>();
+        for (LeafReaderContext leaf : reader.leaves()) {
+            Terms terms = leaf.reader().terms(LogEvent.TRACE_ID);
+            if (terms == null) continue;
+            TermsEnum termsEnum = terms.iterator();
+            if (!termsEnum.seekExact(traceId)) continue;
+
+            Bits liveDocs = leaf.reader().getLiveDocs();
+            LogDocValues values = new LogDocValues(leaf.reader());
+            PostingsEnum postings = termsEnum.postings(null, PostingsEnum.NONE);
+            for (int doc = postings.nextDoc();
+                    doc != DocIdSetIterator.NO_MORE_DOCS;
+                    doc = postings.nextDoc()) {
+                if (liveDocs != null && !liveDocs.get(doc)) continue;
+                events.add(
+                        new TraceLookupTool.Event(
+                                values.getLong(TIMESTAMP_FIELD, doc),
+                                values.get(LogEvent.SERVICE, doc),
+                                values.get(LogEvent.LEVEL, doc),
+                                values.get(LogEvent.STATUS_CODE, doc),
+                                values.get(LogEvent.MESSAGE, doc)));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Service call edges observed in traces (see DependencyGraph). Logs carry no parent span, so
+     * the service with the earliest event of a trace is taken as its root, and every other service
+     * of the trace counts as one root -> callee observation. Services called side by side (a
+     * fan-out) therefore never become each other's dependencies.
+     *
+     * <p>Up to {@code maxTraces} traces are sampled. Shards are per service, so the first event per
+     * (trace, service) is collected from doc values across all shards. Segments are sorted by
+     * trace_id, so once the sample is full each leaf is only read up to its largest trace_id.
+     *
+     * @return caller -> callee -> number of traces with that hop.
+     */
+    public Map<String, Map<String, Integer>> traceCallEdges(int maxTraces) {
+        Map<String, Map<String, Long>> firstEvents = new HashMap<>();
+        BytesRef lastSampled = null;
+        try (ShardSearchers searchers = searchersFor(new MatchAllDocsQuery())) {
+            for (int s = 0; s < searchers.size(); s++) {
+                for (LeafReaderContext leaf : searchers.searcher(s).getIndexReader().leaves()) {
+                    Bits liveDocs = leaf.reader().getLiveDocs();
+                    LogDocValues values = new LogDocValues(leaf.reader());
+                    for (int doc = 0; doc < leaf.reader().maxDoc(); doc++) {
+                        if (liveDocs != null && !liveDocs.get(doc)) continue;
+                        String traceId = values.get(LogEvent.TRACE_ID, doc);
+                        String service = values.get(LogEvent.SERVICE, doc);
+                        if (traceId == null || service == null) continue;
+                        Map<String, Long> services = firstEvents.get(traceId);
+                        if (services == null) {
+                            if (firstEvents.size() >= maxTraces) {
+                                if (new BytesRef(traceId).compareTo(lastSampled) > 0) break;
+                                continue;
+                            }
+                            services = new HashMap<>();
+                            firstEvents.put(traceId, services);
+                            BytesRef id = new BytesRef(traceId);
+                            if (lastSampled == null || id.compareTo(lastSampled) > 0) {
+                                lastSampled = id;
+                            }
+                        }
+                        services.merge(service, values.getLong(TIMESTAMP_FIELD, doc), Math::min);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Trace edge scan failed", e);
+            return Map.of();
+        }
+
+        Map<String, Map<String, Integer>> edges = new HashMap<>();
+        for (Map<String, Long> services : firstEvents.values()) {
+            if (services.size() < 2) continue;
+            String root =
+                    services.entrySet().stream()
+                            .min(
+                                    Map.Entry.<String, Long>comparingByValue()
+                                            .thenComparing(Map.Entry.comparingByKey()))
+                            .orElseThrow()
+                            .getKey();
+            Map<String, Integer> callees = edges.computeIfAbsent(root, caller -> new HashMap<>());
+            for (String service : services.keySet()) {
+                if (!service.equals(root)) {
+                    callees.merge(service, 1, Integer::sum);
+                }
+            }
+        }
+        return edges;
+    }
+
+    /** Index statistics of the current generation (see the logindex actuator endpoint). */
+    public LogIndexStats stats() throws IOException {
+        LogIndex index = acquireIndex();
+        try {
+            List<LogIndexStats.Shard> shardStats = new ArrayList<>();
+            for (LogShard shard : index.shards()) {
+                shardStats.add(shard.stats());
+            }
+            shardStats.sort(Comparator.comparing(LogIndexStats.Shard::name));
+            return new LogIndexStats(
+                    index.generation(),
+                    properties.storage().name(),
+                    shardStats.stream().mapToLong(LogIndexStats.Shard::docs).sum(),
+                    shardStats);
+        } finally {
+            index.decRef();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + "-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    /** Routes every field to the analyzer that matches how {@link #toDocument} indexes it. */
+    private static final class SchemaAnalyzer extends DelegatingAnalyzerWrapper {
+
+        private final Analyzer text = new StandardAnalyzer();
+        private final Analyzer keyword = new KeywordAnalyzer();
+
+        private SchemaAnalyzer() {
+            super(PER_FIELD_REUSE_STRATEGY);
+        }
+
+        @Override
+        protected Analyzer getWrappedAnalyzer(String fieldName) {
+            return TEXT_FIELDS.contains(fieldName) ? text : keyword;
         }
-        return debugOutput;
     }
-}
\ No newline at end of file
+}
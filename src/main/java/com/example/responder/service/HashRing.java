@@ -0,0 +1,57 @@
+package com.example.responder.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring. Every member is hashed onto the ring at {@code virtualNodes}
+ * points, and a key belongs to the member at the first point at or after the key's hash. Adding or
+ * removing a member only moves the keys of the arcs that member gains or loses.
+ */
+final class HashRing {
+
+    private final NavigableMap<Long, String> points = new TreeMap<>();
+    private final SortedSet<String> members;
+
+    HashRing(Set<String> members, int virtualNodes) {
+        this.members = new TreeSet<>(members);
+        for (String member : this.members) {
+            for (int i = 0; i < Math.max(1, virtualNodes); i++) {
+                // Collisions are astronomically rare; the smaller name wins, same on every node
+                points.merge(hash(member + "#" + i), member, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+    }
+
+    /** The member owning {@code key}, or null if the ring is empty. */
+    String owner(String key) {
+        if (points.isEmpty()) return null;
+        Map.Entry<Long, String> point = points.ceilingEntry(hash(key));
+        return (point != null ? point : points.firstEntry()).getValue();
+    }
+
+    SortedSet<String> members() {
+        return members;
+    }
+
+    private static long hash(String value) {
+        try {
+            byte[] digest =
+                    MessageDigest.getInstance("MD5").digest(value.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash = (hash << 8) | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is required by the JDK", e);
+        }
+    }
+}
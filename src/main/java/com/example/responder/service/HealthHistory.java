@@ -0,0 +1,99 @@
+package com.example.responder.service;
+
+/**
+ * Fixed-size ring buffer of health probe samples for a single service. Stores status and latency in
+ * primitive arrays so that every service only costs a few hundred bytes, no matter how long the
+ * poller runs.
+ */
+public class HealthHistory {
+
+    private final boolean[] up;
+    private final int[] latencyMillis;
+    private final long[] timestampMillis;
+    private int next; // Slot that receives the next sample
+    private int size;
+
+    public HealthHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity must be positive: " + capacity);
+        }
+        this.up = new boolean[capacity];
+        this.latencyMillis = new int[capacity];
+        this.timestampMillis = new long[capacity];
+    }
+
+    /**
+     * Appends a sample, overwriting the oldest one when full.
+     *
+     * @return the previous latest status, or null if this is the first sample.
+     */
+    public synchronized Boolean record(boolean healthy, int latency, long timestamp) {
+        Boolean previous = size == 0 ? null : up[latestIndex()];
+        up[next] = healthy;
+        latencyMillis[next] = latency;
+        timestampMillis[next] = timestamp;
+        next = (next + 1) % up.length;
+        size = Math.min(size + 1, up.length);
+        return previous;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized boolean latestHealthy() {
+        return size == 0 || up[latestIndex()];
+    }
+
+    public synchronized int latestLatencyMillis() {
+        return size == 0 ? 0 : latencyMillis[latestIndex()];
+    }
+
+    public synchronized long latestTimestampMillis() {
+        return size == 0 ? 0 : timestampMillis[latestIndex()];
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int downCount() {
+        int down = 0;
+        for (int i = 0; i < size; i++) {
+            if (!up[i]) down++;
+        }
+        return down;
+    }
+
+    /** Number of UP/DOWN flips within the buffered window (oldest to newest). */
+    public synchronized int transitions() {
+        int flips = 0;
+        int oldest = (next - size + up.length) % up.length;
+        for (int i = 1; i < size; i++) {
+            int prev = (oldest + i - 1) % up.length;
+            int cur = (oldest + i) % up.length;
+            if (up[prev] != up[cur]) flips++;
+        }
+        return flips;
+    }
+
+    /** Human/LLM friendly summary, e.g. "DOWN 3 of last 10 probes (4 flips), last latency 45ms". */
+    public synchronized String summary() {
+        if (size == 0) {
+            return "No probes recorded yet.";
+        }
+        return "DOWN "
+                + downCount()
+                + " of last "
+                + size
+                + " probes ("
+                + transitions()
+                + " flips), last latency "
+                + latestLatencyMillis()
+                + "ms";
+    }
+
+    private int latestIndex() {
+        return (next - 1 + up.length) % up.length;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.responder.service;
+
+import com.example.responder.config.HealthPollerProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Background poller that keeps {@link SystemStateService} up to date, so the agent's health checks
+ * are in-memory reads instead of synchronous probes on the incident's critical path.
+ *
+ * <p>Each round probes every known service on a bounded pool. A service whose previous probe is
+ * still in flight is skipped for that round instead of queueing up behind a hanging endpoint.
+ */
+@Service
+public class HealthPoller {
+
+    private static final Logger log = LoggerFactory.getLogger(HealthPoller.class);
+
+    private final SystemStateService systemState;
+    private final HealthPollerProperties properties;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    private HttpClient httpClient;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService probeExecutor;
+
+    public HealthPoller(SystemStateService systemState, HealthPollerProperties properties) {
+        this.systemState = systemState;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.enabled()) {
+            log.info(">>> HEALTH POLLER: Disabled, relying on the chaos switch only.");
+            return;
+        }
+        httpClient = HttpClient.newBuilder().connectTimeout(properties.probeTimeout()).build();
+        scheduler =
+                Executors.newSingleThreadScheduledExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "health-poller");
+                            t.setDaemon(true);
+                            return t;
+                        });
+        AtomicInteger probeThreads = new AtomicInteger();
+        probeExecutor =
+                Executors.newFixedThreadPool(
+                        Math.max(1, properties.maxConcurrentProbes()),
+                        r -> {
+                            Thread t =
+                                    new Thread(r, "health-probe-" + probeThreads.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        });
+        log.info(
+                ">>> HEALTH POLLER: Started (interval={}, jitter={}, maxConcurrentProbes={})",
+                properties.interval(),
+                properties.jitter(),
+                properties.maxConcurrentProbes());
+        scheduleNextRound();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) scheduler.shutdownNow();
+        if (probeExecutor != null) probeExecutor.shutdownNow();
+    }
+
+    private void scheduleNextRound() {
+        long jitterMillis = properties.jitter().toMillis();
+        long jitter = jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis) : 0;
+        long delay = properties.interval().toMillis() + jitter;
+        scheduler.schedule(
+                () -> {
+                    try {
+                        pollAll();
+                    } catch (Exception e) {
+                        log.warn("Health polling round failed", e);
+                    } finally {
+                        scheduleNextRound();
+                    }
+                },
+                delay,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /** Starts one polling round; the returned future completes when its probes are done. */
+    CompletableFuture<Void> pollAll() {
+        Set<String> services = new TreeSet<>(systemState.knownServices());
+        services.addAll(properties.targets().keySet());
+
+        List<CompletableFuture<Void>> probes = new ArrayList<>();
+        for (String service : services) {
+            if (!inFlight.add(service)) {
+                log.debug("Skipping probe for '{}': previous probe still running", service);
+                continue;
+            }
+            probes.add(
+                    CompletableFuture.runAsync(
+                            () -> {
+                                try {
+                                    probe(service);
+                                } finally {
+                                    inFlight.remove(service);
+                                }
+                            },
+                            probeExecutor));
+        }
+        return CompletableFuture.allOf(probes.toArray(CompletableFuture[]::new));
+    }
+
+    private void probe(String service) {
+        String target = properties.targets().get(service);
+        long start = System.nanoTime();
+        boolean healthy;
+
+        if (target == null) {
+            // No real endpoint configured: probe the simulated infrastructure
+            healthy = systemState.isSimulatedHealthy(service);
+        } else {
+            healthy = probeHttp(service, target);
+        }
+
+        int latencyMillis = (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        systemState.recordProbe(service, healthy, latencyMillis);
+    }
+
+    private boolean probeHttp(String service, String target) {
+        try {
+            HttpRequest request =
+                    HttpRequest.newBuilder(URI.create(target))
+                            .timeout(properties.probeTimeout())
+                            .GET()
+                            .build();
+            int status =
+                    httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return status >= 200 && status < 300;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.debug("Probe for '{}' failed: {}", service, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.responder.service;
+
+import com.example.responder.config.DetectionProperties;
+import com.example.responder.model.AnalysisResponse;
+import com.example.responder.model.DetectedIncident;
+import com.example.responder.model.IncidentRequest;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hands automatically detected incidents to the agent (when {@code
+ * responder.detection.auto-analyze=true}). Runs on its own thread so detection ticks never wait for
+ * the LLM.
+ */
+@Component
+public class IncidentAutoTriage {
+
+    private static final Logger log = LoggerFactory.getLogger(IncidentAutoTriage.class);
+
+    private final SreAgentService agentService;
+    private final DetectionProperties properties;
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(
+                    r -> {
+                        Thread t = new Thread(r, "incident-auto-triage");
+                        t.setDaemon(true);
+                        return t;
+                    });
+
+    public IncidentAutoTriage(SreAgentService agentService, DetectionProperties properties) {
+        this.agentService = agentService;
+        this.properties = properties;
+    }
+
+    @EventListener
+    public void onIncidentDetected(DetectedIncident incident) {
+        if (!properties.autoAnalyze()) return;
+
+        executor.execute(
+                () -> {
+                    IncidentRequest request =
+                            new IncidentRequest(
+                                    incident.serviceName(),
+                                    "Alert '"
+                                            + incident.alertName()
+                                            + "' fired: "
+                                            + incident.matchCount()
+                                            + " log matches for "
+                                            + incident.query(),
+                                    incident.window().toMinutes() + "m");
+                    AnalysisResponse response = agentService.analyze(request);
+                    log.info(
+                            ">>> AUTO-TRIAGE: '{}' -> {} (escalate={})",
+                            incident.alertId(),
+                            response.failureType(),
+                            response.requiresEscalation());
+                });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.responder.service;
+
+import com.example.responder.config.IncidentBatchProperties;
+import com.example.responder.model.AgentConfig;
+import com.example.responder.model.AnalysisResponse;
+import com.example.responder.model.IncidentBatchRequest;
+import com.example.responder.model.IncidentBatchRequest.Incident;
+import com.example.responder.model.IncidentBatchResponse;
+import com.example.responder.model.IncidentRequest;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+/**
+ * Analyzes an alert storm as a handful of correlated groups instead of one agent run per incident.
+ *
+ * <p>Two incidents are correlated when they were reported within {@code window} of each other and
+ * either belong to the same service or describe similar symptoms (issue embeddings on the local
+ * model). Correlation is transitive, so a cascade that unfolds over several minutes still ends up
+ * in one group as long as each step follows the previous one within the window. Each group gets one
+ * retrieval pass over all its services and one ReAct run (SreAgentService#analyzeCorrelated); every
+ * incident of the group receives that shared analysis.
+ */
+@Service
+public class IncidentBatchAnalyzer {
+
+    private static final Logger log = LoggerFactory.getLogger(IncidentBatchAnalyzer.class);
+
+    private final SreAgentService agentService;
+    private final EmbeddingModel embeddingModel;
+    private final IncidentBatchProperties properties;
+    private final ExecutorService executor;
+
+    public IncidentBatchAnalyzer(
+            SreAgentService agentService,
+            @Lazy EmbeddingModel embeddingModel,
+            IncidentBatchProperties properties) {
+        this.agentService = agentService;
+        this.embeddingModel = embeddingModel;
+        this.properties = properties;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor =
+                Executors.newFixedThreadPool(
+                        Math.max(1, properties.concurrency()),
+                        r -> {
+                            Thread t = new Thread(r, "incident-batch-" + threads.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    public IncidentBatchResponse analyze(IncidentBatchRequest batch) {
+        return analyze(batch, AgentConfig.defaults());
+    }
+
+    public IncidentBatchResponse analyze(IncidentBatchRequest batch, AgentConfig config) {
+        validate(batch);
+        List<Incident> incidents = withDefaults(batch.incidents());
+        if (incidents.isEmpty()) {
+            return new IncidentBatchResponse(List.of(), 0);
+        }
+        List<float[]> embeddings =
+                embeddingModel
+                        .embed(incidents.stream().map(i -> i.request().issue()).toList())
+                        .stream()
+                        .map(RunbookCache::normalize)
+                        .toList();
+        List<List<Integer>> clusters = cluster(incidents, embeddings, properties);
+        log.info(
+                ">>> BATCH: {} incidents correlated into {} agent runs",
+                incidents.size(),
+                clusters.size());
+
+        List<CompletableFuture<AnalysisResponse>> analyses =
+                clusters.stream()
+                        .map(
+                                members ->
+                                        CompletableFuture.supplyAsync(
+                                                () -> analyzeCluster(incidents, members, config),
+                                                executor))
+                        .toList();
+
+        AnalysisResponse[] byIncident = new AnalysisResponse[incidents.size()];
+        int[] clusterOf = new int[incidents.size()];
+        for (int c = 0; c < clusters.size(); c++) {
+            AnalysisResponse shared = analyses.get(c).join();
+            for (int member : clusters.get(c)) {
+                byIncident[member] = shared;
+                clusterOf[member] = c;
+            }
+        }
+
+        List<IncidentBatchResponse.Result> results = new ArrayList<>(incidents.size());
+        for (int i = 0; i < incidents.size(); i++) {
+            int self = i;
+            List<String> correlatedWith =
+                    clusters.get(clusterOf[i]).stream()
+                            .filter(member -> member != self)
+                            .map(member -> incidents.get(member).id())
+                            .toList();
+            results.add(
+                    new IncidentBatchResponse.Result(
+                            incidents.get(i).id(), clusterOf[i], correlatedWith, byIncident[i]));
+        }
+        return new IncidentBatchResponse(results, clusters.size());
+    }
+
+    private AnalysisResponse analyzeCluster(
+            List<Incident> incidents, List<Integer> members, AgentConfig config) {
+        List<IncidentRequest> requests =
+                members.stream().map(member -> incidents.get(member).request()).toList();
+        try {
+            return agentService.analyzeCorrelated(requests, config);
+        } catch (RuntimeException e) {
+            // One failed group must not fail the other groups of the storm
+            log.warn(">>> BATCH: Analysis of {} incidents failed", requests.size(), e);
+            return SreAgentService.fallbackResponse("Batch analysis failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Groups incidents (indexes into {@code incidents}) by time, service and issue similarity.
+     * Groups are ordered by their first incident, members in request order.
+     *
+     * @param embeddings Unit-length issue embeddings, parallel to {@code incidents}.
+     */
+    static List<List<Integer>> cluster(
+            List<Incident> incidents,
+            List<float[]> embeddings,
+            IncidentBatchProperties properties) {
+        int n = incidents.size();
+        int[] parent = IntStream.range(0, n).toArray();
+        int[] size = new int[n];
+        Arrays.fill(size, 1);
+
+        // Sweep in time order so only pairs inside the window are compared
+        List<Integer> byTime =
+                IntStream.range(0, n)
+                        .boxed()
+                        .sorted(Comparator.comparing(i -> incidents.get(i).reportedAt()))
+                        .toList();
+        Duration window = properties.window();
+        for (int a = 0; a < n; a++) {
+            int i = byTime.get(a);
+            Instant windowEnd = incidents.get(i).reportedAt().plus(window);
+            for (int b = a + 1; b < n; b++) {
+                int j = byTime.get(b);
+                if (incidents.get(j).reportedAt().isAfter(windowEnd)) break;
+                boolean correlated =
+                        serviceKey(incidents.get(i)).equals(serviceKey(incidents.get(j)))
+                                || RunbookCache.score(embeddings.get(i), embeddings.get(j))
+                                        >= properties.minSimilarity();
+                if (correlated) {
+                    union(parent, size, i, j, properties.maxClusterSize());
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            groups.computeIfAbsent(find(parent, i), root -> new ArrayList<>()).add(i);
+        }
+        return List.copyOf(groups.values());
+    }
+
+    private static void union(int[] parent, int[] size, int a, int b, int maxSize) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA == rootB || size[rootA] + size[rootB] > maxSize) return;
+        if (size[rootA] < size[rootB]) {
+            int swap = rootA;
+            rootA = rootB;
+            rootB = swap;
+        }
+        parent[rootB] = rootA;
+        size[rootA] += size[rootB];
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static String serviceKey(Incident incident) {
+        return incident.request().serviceName().toLowerCase(Locale.ROOT).trim().replace(" ", "-");
+    }
+
+    /**
+     * Rejects batches with an incident the agent cannot work on: no request, service or issue.
+     *
+     * @throws IllegalArgumentException naming the first such incident
+     */
+    public static void validate(IncidentBatchRequest batch) {
+        List<Incident> incidents = batch.incidents() != null ? batch.incidents() : List.of();
+        for (int i = 0; i < incidents.size(); i++) {
+            Incident incident = incidents.get(i);
+            String name =
+                    incident != null && incident.id() != null
+                            ? "'" + incident.id() + "'"
+                            : "#" + (i + 1);
+            if (incident == null || incident.request() == null) {
+                throw new IllegalArgumentException("Incident " + name + " has no request");
+            }
+            if (isBlank(incident.request().serviceName())) {
+                throw new IllegalArgumentException("Incident " + name + " has no serviceName");
+            }
+            if (isBlank(incident.request().issue())) {
+                throw new IllegalArgumentException("Incident " + name + " has no issue");
+            }
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static List<Incident> withDefaults(List<Incident> incidents) {
+        if (incidents == null) return List.of();
+        Instant now = Instant.now();
+        List<Incident> normalized = new ArrayList<>(incidents.size());
+        for (int i = 0; i < incidents.size(); i++) {
+            Incident incident = incidents.get(i);
+            normalized.add(
+                    new Incident(
+                            incident.id() != null ? incident.id() : "incident-" + (i + 1),
+                            incident.request(),
+                            incident.reportedAt() != null ? incident.reportedAt() : now));
+        }
+        return normalized;
+    }
+}
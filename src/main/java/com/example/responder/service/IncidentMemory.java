@@ -0,0 +1,429 @@
+package com.example.responder.service;
+
+import com.example.responder.config.IncidentMemoryProperties;
+import com.example.responder.model.AnalysisResponse;
+import com.example.responder.model.IncidentRequest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.KnnFloatVectorField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.VectorSimilarityFunction;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.KnnFloatVectorQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.LockObtainFailedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers resolved incidents so a recurring one is not diagnosed from scratch.
+ *
+ * <p>Every confident analysis is stored in an on-disk Lucene index (HNSW graph over the issue
+ * embedding, plus the analysis as JSON). On a new incident the nearest remembered issue of the same
+ * service is looked up. A very similar, fresh hit whose investigation query still matches events in
+ * the log index is returned as is, which takes milliseconds instead of an agent run. Other close
+ * hits are handed to the agent as a worked example.
+ *
+ * <p>A remembered analysis is searchable at once; the index is committed in the background (see
+ * {@code responder.memory.commit-interval}), so analyses do not wait for an fsync. The issue is
+ * embedded once per incident: remembering reuses the embedding of the preceding lookup.
+ *
+ * <p>Metrics: {@code responder.memory.lookups} (per outcome: reused, example, miss; the hit rate is
+ * reused over all), {@code responder.memory.lookup} (latency), {@code responder.memory.hit.age}
+ * (age of the analyses that were hit, i.e. their freshness) and {@code responder.memory.size}.
+ */
+@Component
+public class IncidentMemory {
+
+    private static final Logger log = LoggerFactory.getLogger(IncidentMemory.class);
+    public static final String MODEL = "incident-memory";
+
+    private static final String ID = "id";
+    private static final String SERVICE = "service";
+    private static final String VECTOR = "issue_vector";
+    private static final String ISSUE = "issue";
+    private static final String ANALYSIS = "analysis";
+    private static final String RESOLVED_AT = "resolved_at";
+    private static final String DEFAULT_WINDOW = "1h";
+    // Incidents whose lookup embedding is kept until their analysis is remembered
+    private static final int RECENT_EMBEDDINGS = 256;
+
+    public enum Kind {
+        /** Validated against the current logs; return it instead of running the agent. */
+        REUSE,
+        /** Similar enough to guide the agent, not to replace it. */
+        EXAMPLE
+    }
+
+    /** A remembered analysis and how it relates to the incident at hand. */
+    public record Recall(
+            Kind kind, String issue, AnalysisResponse analysis, double similarity, Duration age) {
+
+        /** The analysis as a worked example for the agent's context. */
+        public String example(ObjectMapper objectMapper) {
+            String report;
+            try {
+                report = objectMapper.writeValueAsString(analysis);
+            } catch (JsonProcessingException e) {
+                report = analysis.toString();
+            }
+            return "--- PREVIOUSLY RESOLVED SIMILAR INCIDENT (similarity "
+                    + String.format(Locale.ROOT, "%.2f", similarity)
+                    + ", resolved "
+                    + age.truncatedTo(ChronoUnit.MINUTES)
+                    + " ago; verify it applies before reusing it) ---\nISSUE: "
+                    + issue
+                    + "\nFINAL REPORT: "
+                    + report;
+        }
+    }
+
+    private final IncidentMemoryProperties properties;
+    private final EmbeddingModel embeddingModel;
+    private final EmbeddedLogEngine logEngine;
+    private final StructuredQueryCompiler compiler;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    // Issue -> normalized embedding of the most recent lookups, least recently used first
+    private final Map<String, float[]> recentEmbeddings =
+            Collections.synchronizedMap(
+                    new LinkedHashMap<>(16, 0.75f, true) {
+                        @Override
+                        protected boolean removeEldestEntry(Map.Entry<String, float[]> eldest) {
+                            return size() > RECENT_EMBEDDINGS;
+                        }
+                    });
+
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    private ScheduledExecutorService committer;
+
+    public IncidentMemory(
+            IncidentMemoryProperties properties,
+            @Lazy EmbeddingModel embeddingModel,
+            EmbeddedLogEngine logEngine,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.embeddingModel = embeddingModel;
+        this.logEngine = logEngine;
+        this.compiler = new StructuredQueryCompiler(logEngine);
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!properties.enabled()) {
+            log.info(">>> MEMORY: Disabled.");
+            return;
+        }
+        Files.createDirectories(properties.path());
+        directory = FSDirectory.open(properties.path());
+        try {
+            writer =
+                    new IndexWriter(
+                            directory,
+                            new IndexWriterConfig()
+                                    .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        } catch (LockObtainFailedException e) {
+            directory.close();
+            throw new IllegalStateException(
+                    properties.path()
+                            + " is used by another node; give each node its own"
+                            + " responder.memory.path",
+                    e);
+        }
+        searcherManager = new SearcherManager(writer, null);
+        committer =
+                Executors.newSingleThreadScheduledExecutor(
+                        r -> {
+                            Thread t = new Thread(r, "incident-memory-commit");
+                            t.setDaemon(true);
+                            return t;
+                        });
+        long interval = properties.commitInterval().toMillis();
+        committer.scheduleWithFixedDelay(this::commit, interval, interval, TimeUnit.MILLISECONDS);
+        meterRegistry.gauge("responder.memory.size", this, IncidentMemory::size);
+        log.info(
+                ">>> MEMORY: {} resolved incidents in {}",
+                writer.getDocStats().numDocs,
+                properties.path());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (writer == null) return;
+        committer.shutdownNow();
+        searcherManager.close();
+        writer.close(); // commits what the committer has not
+        directory.close();
+    }
+
+    /** Looks up the closest remembered incident of the same service; empty on a miss. */
+    public Optional<Recall> recall(IncidentRequest request) {
+        if (writer == null) {
+            return Optional.empty();
+        }
+        long start = System.nanoTime();
+        Optional<Recall> recall;
+        try {
+            recall = lookup(request);
+        } catch (IOException | RuntimeException e) {
+            // The memory is an optimization; the agent can always start from scratch
+            log.warn(">>> MEMORY: Lookup failed: {}", e.getMessage());
+            recall = Optional.empty();
+        }
+        Timer.builder("responder.memory.lookup")
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        String outcome =
+                recall.map(r -> r.kind() == Kind.REUSE ? "reused" : "example").orElse("miss");
+        Counter.builder("responder.memory.lookups")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+        recall.ifPresent(
+                r -> {
+                    DistributionSummary.builder("responder.memory.hit.age")
+                            .baseUnit("seconds")
+                            .tag("outcome", outcome)
+                            .register(meterRegistry)
+                            .record(r.age().toSeconds());
+                    log.info(
+                            ">>> MEMORY: {} for '{}' (similarity {}, {} old)",
+                            outcome,
+                            request.issue(),
+                            String.format(Locale.ROOT, "%.3f", r.similarity()),
+                            r.age());
+                });
+        return recall;
+    }
+
+    private Optional<Recall> lookup(IncidentRequest request) throws IOException {
+        float[] embedding = embed(request.issue());
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top =
+                    searcher.search(
+                            new KnnFloatVectorQuery(
+                                    VECTOR,
+                                    embedding,
+                                    1,
+                                    new TermQuery(new Term(SERVICE, key(request.serviceName())))),
+                            1);
+            if (top.scoreDocs.length == 0) {
+                return Optional.empty();
+            }
+            ScoreDoc hit = top.scoreDocs[0];
+            // DOT_PRODUCT scores are (1 + cos) / 2, the scale RunbookCache uses
+            double similarity = hit.score;
+            if (similarity < properties.exampleSimilarity()) {
+                return Optional.empty();
+            }
+            Document doc = searcher.storedFields().document(hit.doc);
+            AnalysisResponse analysis =
+                    objectMapper.readValue(doc.get(ANALYSIS), AnalysisResponse.class);
+            Duration age =
+                    Duration.ofMillis(
+                            System.currentTimeMillis()
+                                    - doc.getField(RESOLVED_AT).numericValue().longValue());
+
+            if (similarity >= properties.reuseSimilarity()
+                    && age.compareTo(properties.maxAge()) <= 0) {
+                long matches = stillMatching(analysis.investigationQuery(), request.timeWindow());
+                if (matches > 0) {
+                    return Optional.of(
+                            new Recall(
+                                    Kind.REUSE,
+                                    doc.get(ISSUE),
+                                    reused(analysis, similarity, age, matches),
+                                    similarity,
+                                    age));
+                }
+            }
+            return Optional.of(new Recall(Kind.EXAMPLE, doc.get(ISSUE), analysis, similarity, age));
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Stores a confident analysis. A near-identical remembered incident of the same service is
+     * replaced, so repeats refresh one entry instead of piling up.
+     */
+    public void remember(IncidentRequest request, AnalysisResponse analysis) {
+        if (writer == null
+                || MODEL.equals(analysis.model())
+                || "AGENT_FAILURE".equals(analysis.failureType())
+                || analysis.confidence() == null
+                || analysis.confidence() < properties.minConfidence()) {
+            return;
+        }
+        try {
+            float[] embedding = embed(request.issue());
+            String service = key(request.serviceName());
+            Document doc = new Document();
+            doc.add(new StringField(SERVICE, service, Field.Store.YES));
+            doc.add(
+                    new KnnFloatVectorField(
+                            VECTOR, embedding, VectorSimilarityFunction.DOT_PRODUCT));
+            doc.add(new StoredField(ISSUE, request.issue()));
+            doc.add(new StoredField(ANALYSIS, objectMapper.writeValueAsString(analysis)));
+            doc.add(new StoredField(RESOLVED_AT, System.currentTimeMillis()));
+            store(service, embedding, doc);
+        } catch (IOException | RuntimeException e) {
+            log.warn(">>> MEMORY: Could not remember '{}': {}", request.issue(), e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the near-identical entry of the service, if any, else adds one. Synchronized and
+     * refreshed before returning, so two concurrent repeats cannot both miss each other's entry.
+     */
+    private synchronized void store(String service, float[] embedding, Document doc)
+            throws IOException {
+        String id = nearDuplicate(service, embedding).orElse(UUID.randomUUID().toString());
+        doc.add(new StringField(ID, id, Field.Store.YES));
+        writer.updateDocument(new Term(ID, id), doc);
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    private void commit() {
+        try {
+            if (writer.hasUncommittedChanges()) {
+                writer.commit();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn(">>> MEMORY: Commit failed: {}", e.getMessage());
+        }
+    }
+
+    /** Normalized issue embedding, reused from a recent lookup of the same issue if possible. */
+    private float[] embed(String issue) {
+        float[] embedding = recentEmbeddings.get(issue);
+        if (embedding == null) {
+            embedding = RunbookCache.normalize(embeddingModel.embed(issue));
+            recentEmbeddings.put(issue, embedding);
+        }
+        return embedding;
+    }
+
+    private Optional<String> nearDuplicate(String service, float[] embedding) throws IOException {
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top =
+                    searcher.search(
+                            new KnnFloatVectorQuery(
+                                    VECTOR,
+                                    embedding,
+                                    1,
+                                    new TermQuery(new Term(SERVICE, service))),
+                            1);
+            if (top.scoreDocs.length == 0
+                    || top.scoreDocs[0].score < properties.reuseSimilarity()) {
+                return Optional.empty();
+            }
+            return Optional.of(searcher.storedFields().document(top.scoreDocs[0].doc).get(ID));
+        } finally {
+            searcherManager.release(searcher);
+        }
+    }
+
+    /**
+     * Events within the incident's time window (the last hour if it has none) matching the
+     * remembered investigation query; 0 if either does not parse. Old events alone must not
+     * validate a reuse.
+     */
+    private long stillMatching(String query, String timeWindow) {
+        if (query == null || query.isBlank() || query.equals("N/A")) {
+            return 0;
+        }
+        try {
+            String window =
+                    timeWindow == null || timeWindow.isBlank() ? DEFAULT_WINDOW : timeWindow;
+            return logEngine.count(
+                    new BooleanQuery.Builder()
+                            .add(logEngine.parseQuery(query), BooleanClause.Occur.MUST)
+                            .add(compiler.timeWindow(window), BooleanClause.Occur.FILTER)
+                            .build());
+        } catch (Exception e) {
+            log.debug(
+                    "Remembered query '{}' over '{}' is not usable: {}",
+                    query,
+                    timeWindow,
+                    e.getMessage());
+            return 0;
+        }
+    }
+
+    private static AnalysisResponse reused(
+            AnalysisResponse analysis, double similarity, Duration age, long matches) {
+        Map<String, Object> evidence = new LinkedHashMap<>();
+        if (analysis.evidence() != null) {
+            evidence.putAll(analysis.evidence());
+        }
+        evidence.put(
+                "incidentMemory",
+                Map.of(
+                        "similarity", similarity,
+                        "resolvedAt", Instant.now().minus(age).toString(),
+                        "currentMatches", matches));
+        return new AnalysisResponse(
+                analysis.failureType(),
+                analysis.rootCauseHypothesis(),
+                analysis.investigationQuery(),
+                evidence,
+                analysis.responsibleTeam(),
+                analysis.remediationSteps(),
+                analysis.requiresEscalation(),
+                analysis.citations(),
+                analysis.confidence(),
+                MODEL);
+    }
+
+    private static String key(String service) {
+        return service == null ? "" : service.toLowerCase(Locale.ROOT).trim().replace(" ", "-");
+    }
+
+    int size() {
+        return writer == null ? 0 : writer.getDocStats().numDocs;
+    }
+}
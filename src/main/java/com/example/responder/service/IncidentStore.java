@@ -0,0 +1,574 @@
+package com.example.responder.service;
+
+import com.example.responder.config.IncidentStoreProperties;
+import com.example.responder.model.AnalysisResponse;
+import com.example.responder.model.IncidentRecord;
+import com.example.responder.model.IncidentRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only store of every analyzed incident: the request, the returned analysis and the time
+ * spent per phase.
+ *
+ * <p>Records are Smile-encoded frames ({@code [length][crc32c][payload]}) in segment files named
+ * after the store offset they start at; a record's ID is its offset. Callers only enqueue, so the
+ * request path pays for a queue offer. A single writer thread appends whatever arrived within
+ * {@code commitInterval} and fsyncs once per batch (group commit); records become queryable after
+ * that fsync. A small in-memory index (append order, which is time order, plus postings by service
+ * and failureType) answers queries, and the frames are read back through memory-mapped segments.
+ *
+ * <p>On startup the segments are scanned to rebuild the index; a torn frame at the end of the last
+ * segment (crash during a write) is truncated away. The directory is locked while the store is
+ * open, so a second node configured with the same path fails to start instead of interleaving its
+ * writes.
+ */
+@Component
+public class IncidentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IncidentStore.class);
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String LOCK_FILE = "store.lock";
+    private static final int FRAME_HEADER = 8;
+    private static final int MAX_BATCH = 1_000;
+
+    /** Query filters; null means any. {@code from} is inclusive, {@code to} exclusive. */
+    public record Query(String service, String failureType, Instant from, Instant to) {
+        public static final Query ALL = new Query(null, null, null, null);
+    }
+
+    @FunctionalInterface
+    public interface RecordSink {
+        void accept(IncidentRecord record) throws IOException;
+    }
+
+    private record Pending(
+            IncidentRequest request, AnalysisResponse response, Map<String, Long> phaseMillis) {}
+
+    private record Entry(long id, long timestamp, String service, String failureType) {}
+
+    private final IncidentStoreProperties properties;
+    private final ObjectMapper smile;
+    private final MeterRegistry meterRegistry;
+    private final BlockingQueue<Pending> queue;
+    private final Counter dropped;
+
+    private final NavigableMap<Long, Segment> segments = new TreeMap<>();
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+    // Append order is id order and (clamped) time order
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, List<Integer>> byService = new HashMap<>();
+    private final Map<String, List<Integer>> byFailureType = new HashMap<>();
+
+    // Written by the writer thread only
+    private Segment active;
+    private long lastTimestamp;
+
+    private final Object progress = new Object();
+    private long enqueued;
+    private long processed;
+    private volatile boolean running;
+    private Thread writer;
+    private FileChannel lockChannel;
+
+    public IncidentStore(
+            IncidentStoreProperties properties,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        // Same modules and settings as the JSON mapper, binary encoding
+        this.smile = objectMapper.copyWith(new SmileFactory());
+        this.meterRegistry = meterRegistry;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.queueCapacity()));
+        this.dropped = meterRegistry.counter("responder.store.dropped");
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!properties.enabled()) {
+            log.info(">>> STORE: Disabled.");
+            return;
+        }
+        Files.createDirectories(properties.path());
+        lock();
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(properties.path())) {
+            files =
+                    listing.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                            .sorted()
+                            .toList();
+        }
+        for (int i = 0; i < files.size(); i++) {
+            recover(files.get(i), i == files.size() - 1);
+        }
+        if (segments.isEmpty()) {
+            active = createSegment(0);
+        } else {
+            active = segments.lastEntry().getValue();
+        }
+        meterRegistry.gauge("responder.store.records", entries, List::size);
+        meterRegistry.gauge("responder.store.queue", queue, BlockingQueue::size);
+
+        running = true;
+        writer = new Thread(this::writeLoop, "incident-store");
+        writer.setDaemon(true);
+        writer.start();
+        log.info(
+                ">>> STORE: {} incidents in {} segments under {}",
+                entries.size(),
+                segments.size(),
+                properties.path());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (writer == null) return;
+        running = false;
+        try {
+            // The writer drains the queue before it exits
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+        lockChannel.close();
+    }
+
+    private void lock() throws IOException {
+        lockChannel =
+                FileChannel.open(
+                        properties.path().resolve(LOCK_FILE),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // held by another store in this JVM
+        }
+        if (lock == null) {
+            lockChannel.close();
+            throw new IllegalStateException(
+                    properties.path()
+                            + " is used by another node; give each node its own"
+                            + " responder.store.path");
+        }
+    }
+
+    /** Enqueues an analyzed incident; never blocks. Drops (and counts) it if the queue is full. */
+    public void append(
+            IncidentRequest request, AnalysisResponse response, Map<String, Long> phaseMillis) {
+        if (writer == null) return;
+        synchronized (progress) {
+            if (!queue.offer(new Pending(request, response, new LinkedHashMap<>(phaseMillis)))) {
+                dropped.increment();
+                log.warn(">>> STORE: Queue full, dropped the analysis of '{}'", request.issue());
+                return;
+            }
+            enqueued++;
+        }
+    }
+
+    /** Waits until everything appended so far is durable (or failed to write). */
+    boolean flush(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (progress) {
+            long target = enqueued;
+            while (processed < target) {
+                long left = deadline - System.nanoTime();
+                if (left <= 0) return false;
+                TimeUnit.NANOSECONDS.timedWait(progress, left);
+            }
+            return true;
+        }
+    }
+
+    /** Matching records, newest first. */
+    public List<IncidentRecord> query(Query query, int limit) throws IOException {
+        List<IncidentRecord> records = new ArrayList<>();
+        for (long id : select(query, limit, true)) {
+            records.add(read(id));
+        }
+        return records;
+    }
+
+    /** Streams every matching record to the sink, oldest first. */
+    public long export(Query query, long limit, RecordSink sink) throws IOException {
+        long[] ids = select(query, limit, false);
+        for (long id : ids) {
+            sink.accept(read(id));
+        }
+        return ids.length;
+    }
+
+    public int size() {
+        indexLock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    // --- Index ---
+
+    private long[] select(Query query, long limit, boolean newestFirst) {
+        String service = key(query.service());
+        String failureType = key(query.failureType());
+        indexLock.readLock().lock();
+        try {
+            List<Integer> candidates = allEntries();
+            if (service != null) {
+                candidates = byService.getOrDefault(service, List.of());
+            }
+            if (failureType != null) {
+                List<Integer> byType = byFailureType.getOrDefault(failureType, List.of());
+                if (byType.size() < candidates.size()) candidates = byType;
+            }
+            // Candidates are in time order, so the time range is a slice
+            int lo = query.from() == null ? 0 : lowerBound(candidates, query.from());
+            int hi = query.to() == null ? candidates.size() : lowerBound(candidates, query.to());
+
+            List<Long> ids = new ArrayList<>();
+            for (int i = lo; i < hi && ids.size() < limit; i++) {
+                Entry entry = entries.get(candidates.get(newestFirst ? hi - 1 - (i - lo) : i));
+                if ((service == null || service.equals(entry.service()))
+                        && (failureType == null || failureType.equals(entry.failureType()))) {
+                    ids.add(entry.id());
+                }
+            }
+            return ids.stream().mapToLong(Long::longValue).toArray();
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    private List<Integer> allEntries() {
+        return new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                return index;
+            }
+
+            @Override
+            public int size() {
+                return entries.size();
+            }
+        };
+    }
+
+    /** First candidate recorded at or after {@code time}. */
+    private int lowerBound(List<Integer> candidates, Instant time) {
+        long millis = time.toEpochMilli();
+        int lo = 0;
+        int hi = candidates.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (entries.get(candidates.get(mid)).timestamp() < millis) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /** Called with the write lock held. */
+    private void index(IncidentRecord record) {
+        AnalysisResponse response = record.response();
+        Entry entry =
+                new Entry(
+                        record.id(),
+                        record.recordedAt().toEpochMilli(),
+                        key(record.request().serviceName()),
+                        key(response != null ? response.failureType() : null));
+        int position = entries.size();
+        entries.add(entry);
+        if (entry.service() != null) {
+            byService.computeIfAbsent(entry.service(), k -> new ArrayList<>()).add(position);
+        }
+        if (entry.failureType() != null) {
+            byFailureType
+                    .computeIfAbsent(entry.failureType(), k -> new ArrayList<>())
+                    .add(position);
+        }
+    }
+
+    private static String key(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // --- Writer ---
+
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                // Group commit: whatever arrives within the interval shares one fsync
+                long deadline = System.nanoTime() + properties.commitInterval().toNanos();
+                while (batch.size() < MAX_BATCH) {
+                    queue.drainTo(batch, MAX_BATCH - batch.size());
+                    long left = deadline - System.nanoTime();
+                    if (left <= 0 || batch.size() >= MAX_BATCH) break;
+                    Pending next = queue.poll(left, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error(">>> STORE: Could not write {} incidents", batch.size(), e);
+            } finally {
+                synchronized (progress) {
+                    processed += batch.size();
+                    progress.notifyAll();
+                }
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) throws IOException {
+        long start = System.nanoTime();
+        List<IncidentRecord> written = new ArrayList<>(batch.size());
+        try {
+            for (Pending pending : batch) {
+                if (active.written >= properties.segmentSize().toBytes()) {
+                    commit(written);
+                    active = createSegment(active.base + active.written);
+                }
+                // Clamped so the index stays sorted even if the wall clock steps back
+                lastTimestamp = Math.max(lastTimestamp, System.currentTimeMillis());
+                IncidentRecord record =
+                        new IncidentRecord(
+                                active.base + active.written,
+                                Instant.ofEpochMilli(lastTimestamp),
+                                pending.request(),
+                                pending.response(),
+                                pending.phaseMillis());
+                byte[] payload = smile.writeValueAsBytes(record);
+                CRC32C crc = new CRC32C();
+                crc.update(payload);
+                ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER + payload.length);
+                frame.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+                while (frame.hasRemaining()) {
+                    active.written += active.channel.write(frame, active.written);
+                }
+                written.add(record);
+            }
+            commit(written);
+        } catch (IOException | RuntimeException e) {
+            rollback();
+            throw e;
+        }
+        Timer.builder("responder.store.commit")
+                .register(meterRegistry)
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /** Fsyncs the active segment and makes the records written to it queryable. */
+    private void commit(List<IncidentRecord> written) throws IOException {
+        active.channel.force(false);
+        active.durable = active.written;
+
+        indexLock.writeLock().lock();
+        try {
+            written.forEach(this::index);
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+        written.clear();
+    }
+
+    /**
+     * Drops what a failed batch wrote after the last fsync. Left in place, a torn frame would make
+     * recovery truncate every later commit, and a complete one would resurrect a record that was
+     * never acknowledged. If the file cannot be truncated, later records go to a new segment and
+     * recovery skips the garbage.
+     */
+    private void rollback() {
+        if (active.written == active.durable) return;
+        try {
+            active.channel.truncate(active.durable);
+            active.written = active.durable;
+        } catch (IOException e) {
+            log.error(">>> STORE: Could not truncate {}, starting a new segment", active.base, e);
+            try {
+                active = createSegment(active.base + active.written);
+            } catch (IOException again) {
+                log.error(">>> STORE: Could not start a new segment", again);
+            }
+        }
+    }
+
+    private Segment createSegment(long base) throws IOException {
+        Path path = properties.path().resolve(String.format("%020d%s", base, SEGMENT_SUFFIX));
+        Segment segment = new Segment(base, path, 0);
+        synchronized (segments) {
+            segments.put(base, segment);
+        }
+        return segment;
+    }
+
+    // --- Reads and recovery ---
+
+    private IncidentRecord read(long id) throws IOException {
+        Segment segment;
+        synchronized (segments) {
+            segment = segments.floorEntry(id).getValue();
+        }
+        long position = id - segment.base;
+        int length = segment.slice(position, FRAME_HEADER).getInt();
+        // CRC is checked on recovery; the page cache is trusted afterwards
+        byte[] payload = new byte[length];
+        segment.slice(position + FRAME_HEADER, length).get(payload);
+        return smile.readValue(payload, IncidentRecord.class);
+    }
+
+    private void recover(Path path, boolean last) throws IOException {
+        String name = path.getFileName().toString();
+        long base = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        Segment segment = new Segment(base, path, Files.size(path));
+        synchronized (segments) {
+            segments.put(base, segment);
+        }
+
+        long position = 0;
+        while (position + FRAME_HEADER <= segment.durable) {
+            ByteBuffer header = segment.slice(position, FRAME_HEADER);
+            int length = header.getInt();
+            int expected = header.getInt();
+            if (length <= 0 || position + FRAME_HEADER + length > segment.durable) break;
+            byte[] payload = new byte[length];
+            segment.slice(position + FRAME_HEADER, length).get(payload);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            if ((int) crc.getValue() != expected) break;
+            IncidentRecord record = smile.readValue(payload, IncidentRecord.class);
+            index(record);
+            lastTimestamp = Math.max(lastTimestamp, record.recordedAt().toEpochMilli());
+            position += FRAME_HEADER + length;
+        }
+
+        if (position < segment.durable) {
+            log.warn(
+                    ">>> STORE: {} has {} unreadable bytes at offset {}{}",
+                    path,
+                    segment.durable - position,
+                    position,
+                    last ? ", truncated" : ", skipped");
+            if (last) {
+                segment.truncate(position);
+            }
+        }
+        segment.written = last ? position : segment.durable;
+    }
+
+    /**
+     * One segment file. Reads go through read-only mappings: when the file has grown, only the new
+     * bytes are mapped, so a read never re-maps what is already mapped.
+     */
+    private static final class Segment {
+
+        final long base;
+        final FileChannel channel;
+        // Writer-thread state: bytes written, and bytes fsynced (readable)
+        long written;
+        volatile long durable;
+        // Start offset -> mapping of the bytes from there; contiguous up to mappedEnd
+        private final NavigableMap<Long, MappedByteBuffer> regions = new TreeMap<>();
+        private long mappedEnd;
+
+        Segment(long base, Path path, long size) throws IOException {
+            this.base = base;
+            this.channel =
+                    FileChannel.open(
+                            path,
+                            StandardOpenOption.CREATE,
+                            StandardOpenOption.READ,
+                            StandardOpenOption.WRITE);
+            this.written = size;
+            this.durable = size;
+        }
+
+        /** The {@code length} durable bytes at {@code position}, positioned at their start. */
+        synchronized ByteBuffer slice(long position, int length) throws IOException {
+            long end = position + length;
+            if (end > durable) {
+                throw new IOException("Offset " + end + " is past the end of segment " + base);
+            }
+            while (mappedEnd < end) {
+                long size = Math.min(durable - mappedEnd, Integer.MAX_VALUE);
+                regions.put(mappedEnd, channel.map(FileChannel.MapMode.READ_ONLY, mappedEnd, size));
+                mappedEnd += size;
+            }
+            Map.Entry<Long, MappedByteBuffer> region = regions.floorEntry(position);
+            int offset = (int) (position - region.getKey());
+            if (offset + length <= region.getValue().capacity()) {
+                return region.getValue().slice(offset, length);
+            }
+            // Commits end on frame boundaries, so only a torn frame spans two mappings
+            ByteBuffer copy = ByteBuffer.allocate(length);
+            for (long p = position; copy.hasRemaining(); ) {
+                region = regions.floorEntry(p);
+                offset = (int) (p - region.getKey());
+                int n = Math.min(copy.remaining(), region.getValue().capacity() - offset);
+                copy.put(region.getValue().slice(offset, n));
+                p += n;
+            }
+            return copy.flip();
+        }
+
+        /** Cuts the file back to {@code size} and drops the mappings of the removed bytes. */
+        synchronized void truncate(long size) throws IOException {
+            channel.truncate(size);
+            channel.force(true);
+            durable = size;
+            written = size;
+            regions.clear();
+            mappedEnd = 0;
+        }
+    }
+}
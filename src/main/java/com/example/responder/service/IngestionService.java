@@ -1,13 +1,17 @@
 package com.example.responder.service;
 
+import com.example.responder.config.StartupProperties;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.VectorStore;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 import org.springframework.core.io.support.ResourcePatternResolver;
@@ -19,17 +23,49 @@ public class IngestionService implements CommandLineRunner {
 
     private static final Logger log = LoggerFactory.getLogger(IngestionService.class);
     private final VectorStore vectorStore;
+    private final AlertRegistry alertRegistry;
+    private final RetrievalWarmup retrievalWarmup;
+    private final StartupProperties startupProperties;
 
-    public IngestionService(VectorStore vectorStore) {
+    public IngestionService(
+            @Lazy VectorStore vectorStore,
+            AlertRegistry alertRegistry,
+            RetrievalWarmup retrievalWarmup,
+            StartupProperties startupProperties) {
         this.vectorStore = vectorStore;
+        this.alertRegistry = alertRegistry;
+        this.retrievalWarmup = retrievalWarmup;
+        this.startupProperties = startupProperties;
     }
 
     @Override
     public void run(String... args) throws Exception {
+        if (!startupProperties.backgroundIngestion()) {
+            ingestAll();
+            return;
+        }
+        // Readiness stays down until the warm-up at the end of ingestAll() has run
+        Thread worker =
+                new Thread(
+                        () -> {
+                            try {
+                                ingestAll();
+                            } catch (Exception e) {
+                                log.error(">>> Background ingestion failed", e);
+                            }
+                        },
+                        "runbook-ingestion");
+        worker.setDaemon(true);
+        worker.start();
+        log.info(">>> Runbook ingestion continues in the background");
+    }
+
+    public void ingestAll() throws Exception {
         log.info(">>> STARTING MANUAL INGESTION...");
 
         ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
         Resource[] resources = resolver.getResources("classpath:runbooks/*.md");
+        Map<String, List<Document>> ingested = new LinkedHashMap<>();
 
         for (Resource resource : resources) {
             String serviceKey = resource.getFilename().replace(".md", "").toLowerCase();
@@ -68,7 +104,14 @@ public class IngestionService implements CommandLineRunner {
                     ">>> Ingested {} alerts for '{}' (Manual Split)",
                     processedDocuments.size(),
                     serviceKey);
+
+            // 5. Pre-compile the detection queries for proactive alerting
+            alertRegistry.register(serviceKey, content);
+            ingested.put(serviceKey, processedDocuments);
         }
         log.info(">>> Global Ingestion Complete!");
+
+        // 6. Warm the retrieval path before the instance reports ready
+        retrievalWarmup.warmUp(ingested);
     }
 }
@@ -0,0 +1,254 @@
+package com.example.responder.service;
+
+import com.example.responder.config.LlmRateLimitProperties;
+import com.example.responder.model.IncidentRequest;
+import com.example.responder.model.IncidentRequest.Severity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.messages.Message;
+import org.springframework.ai.chat.messages.ToolResponseMessage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.stereotype.Component;
+
+/**
+ * Central admission for every LLM call: token buckets for the provider's requests/minute and
+ * tokens/minute limits, handed out by priority.
+ *
+ * <p>A call's priority rank is its severity plus its service tier (lower runs first, ties in
+ * arrival order), so a critical incident on a tier-0 service gets the first free capacity. Every
+ * {@code agingInterval} of waiting lowers the rank by one, so batch and low-severity work still
+ * gets through during an alert storm. The waiting set is scanned on every grant; it is as long as
+ * the number of concurrent incidents, which keeps that cheaper than re-keying a heap as ranks age.
+ *
+ * <p>One admission covers one agent turn and reserves its first request. Every physical HTTP
+ * request to the provider is reported by the transport (see {@code LlmTransportConfig}) through
+ * {@link #chargeRequest()}, so the retries and hedges of a turn (ResilientLlmCaller) and the tool
+ * round-trips inside one ChatClient call draw on the request bucket too: a request beyond the
+ * reservations made so far takes a request right away, even into debt, which later admissions wait
+ * out. The reported usage corrects the token bucket afterwards.
+ */
+@Component
+public class LlmScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmScheduler.class);
+    private static final long MAX_AWAIT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // Rough English/JSON average; only the order of magnitude matters for admission
+    private static final int CHARS_PER_TOKEN = 4;
+
+    /** Scheduling key of a call: lower {@link #rank()} runs first. */
+    public record Priority(Severity severity, int serviceTier) {
+        int rank() {
+            return severity.ordinal() + serviceTier;
+        }
+    }
+
+    /** Offline work such as golden dataset generation and eval judging. */
+    public static final Priority BATCH = new Priority(Severity.LOW, 3);
+
+    private final LlmRateLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final TokenBucket requests;
+    private final TokenBucket tokens;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final List<Ticket> waiting = new ArrayList<>();
+    private final Counter sentCounter;
+    // Requests taken from the bucket and requests actually sent; both guarded by the lock
+    private long reservedRequests;
+    private long sentRequests;
+
+    public LlmScheduler(LlmRateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.requests = new TokenBucket(properties.requestsPerMinute(), properties.burst());
+        this.tokens = new TokenBucket(properties.tokensPerMinute(), properties.burst());
+        meterRegistry.gauge("responder.llm.queue.depth", waiting, List::size);
+        this.sentCounter = Counter.builder("responder.llm.requests").register(meterRegistry);
+    }
+
+    public Priority priorityOf(IncidentRequest request) {
+        Severity severity = request.severity() != null ? request.severity() : Severity.MEDIUM;
+        int tier =
+                request.serviceTier() != null
+                        ? request.serviceTier()
+                        : properties.tierOf(request.serviceName());
+        return new Priority(severity, tier);
+    }
+
+    /**
+     * Waits for capacity, then runs {@code call}.
+     *
+     * @param estimatedTokens Expected token usage, see {@link #estimateTokens(List)}.
+     */
+    public <T> T submit(Priority priority, int estimatedTokens, Supplier<T> call) {
+        long charged = Math.max(1, Math.min(estimatedTokens, tokens.capacity()));
+        long waitNanos = acquire(priority, charged);
+        Timer.builder("responder.llm.queue.wait")
+                .tag("severity", priority.severity().name())
+                .tag("tier", Integer.toString(priority.serviceTier()))
+                .register(meterRegistry)
+                .record(waitNanos, TimeUnit.NANOSECONDS);
+        if (waitNanos > TimeUnit.SECONDS.toNanos(1)) {
+            log.info(
+                    ">>> LLM SCHEDULER: {} call waited {}ms for capacity",
+                    priority,
+                    TimeUnit.NANOSECONDS.toMillis(waitNanos));
+        }
+
+        T result = call.get();
+
+        if (result instanceof ChatResponse response
+                && response.getMetadata().getUsage() != null
+                && response.getMetadata().getUsage().getTotalTokens() != null) {
+            long used = response.getMetadata().getUsage().getTotalTokens();
+            lock.lock();
+            try {
+                tokens.give(charged - used);
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return result;
+    }
+
+    private long acquire(Priority priority, long charged) {
+        long enqueued = System.nanoTime();
+        lock.lock();
+        Ticket ticket = new Ticket(priority, charged, enqueued);
+        try {
+            waiting.add(ticket);
+            while (true) {
+                long now = System.nanoTime();
+                requests.refill(now);
+                tokens.refill(now);
+                long await = MAX_AWAIT_NANOS;
+                if (next(now) == ticket) {
+                    if (requests.available() >= 1 && tokens.available() >= charged) {
+                        requests.give(-1);
+                        tokens.give(-charged);
+                        reservedRequests++;
+                        waiting.remove(ticket);
+                        changed.signalAll();
+                        return now - enqueued;
+                    }
+                    await = Math.max(requests.nanosUntil(1), tokens.nanosUntil(charged));
+                }
+                changed.awaitNanos(Math.max(1, Math.min(await, MAX_AWAIT_NANOS)));
+            }
+        } catch (InterruptedException e) {
+            waiting.remove(ticket);
+            changed.signalAll();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for LLM capacity", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Counts one HTTP request sent to the provider. Requests covered by an admission's reservation
+     * are free; any other (hedge, retry, tool round-trip) takes a request from the bucket without
+     * waiting, as the turn that sends it was already admitted.
+     */
+    public void chargeRequest() {
+        sentCounter.increment();
+        lock.lock();
+        try {
+            sentRequests++;
+            if (sentRequests > reservedRequests) {
+                reservedRequests = sentRequests;
+                requests.refill(System.nanoTime());
+                requests.give(-1);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The waiting call with the lowest aged rank; called with the lock held. */
+    private Ticket next(long now) {
+        Ticket best = null;
+        double bestRank = Double.MAX_VALUE;
+        for (Ticket ticket : waiting) {
+            double rank = ticket.agedRank(now, properties.agingInterval().toNanos());
+            // Strict comparison: the list is in arrival order, so ties stay first come first served
+            if (rank < bestRank) {
+                best = ticket;
+                bestRank = rank;
+            }
+        }
+        return best;
+    }
+
+    /** Approximates the prompt tokens of a conversation from its size. */
+    public static int estimateTokens(List<Message> messages) {
+        long chars = 0;
+        for (Message message : messages) {
+            if (message.getText() != null) chars += message.getText().length();
+            if (message instanceof ToolResponseMessage toolResponse) {
+                for (var response : toolResponse.getResponses()) {
+                    chars += response.responseData().length();
+                }
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, chars / CHARS_PER_TOKEN + 1);
+    }
+
+    public static int estimateTokens(String prompt) {
+        return prompt.length() / CHARS_PER_TOKEN + 1;
+    }
+
+    private record Ticket(Priority priority, long tokens, long enqueued) {
+        double agedRank(long now, long agingNanos) {
+            double aged = agingNanos > 0 ? (now - enqueued) / (double) agingNanos : 0;
+            return priority.rank() - Math.floor(aged);
+        }
+    }
+
+    /** Continuously refilled bucket; may go negative when a call used more than it was charged. */
+    private static final class TokenBucket {
+
+        private final long capacity;
+        private final double perNano;
+        private double available;
+        private long lastRefill = System.nanoTime();
+
+        TokenBucket(int perMinute, Duration burst) {
+            this.perNano = perMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.capacity = Math.max(1, (long) (perNano * burst.toNanos()));
+            this.available = capacity;
+        }
+
+        long capacity() {
+            return capacity;
+        }
+
+        double available() {
+            return available;
+        }
+
+        void refill(long now) {
+            available = Math.min(capacity, available + (now - lastRefill) * perNano);
+            lastRefill = now;
+        }
+
+        void give(double amount) {
+            available = Math.min(capacity, available + amount);
+        }
+
+        long nanosUntil(double amount) {
+            return available >= amount ? 0 : (long) Math.ceil((amount - available) / perNano);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.responder.service;
+
+import com.example.responder.model.LogEvent;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.search.DocIdSetIterator;
+
+/**
+ * Reads the fields the tools return (service, level, status, message, trace ID, timestamp) from doc
+ * values instead of stored fields. That avoids decompressing whole stored-field blocks per hit,
+ * which matters once stored fields use best compression.
+ *
+ * <p>An instance is bound to one segment and caches one iterator per field, so documents must be
+ * requested in increasing doc ID order (as postings and collectors deliver them).
+ */
+final class LogDocValues {
+
+    static final Set<String> SORTED_FIELDS =
+            Set.of(LogEvent.SERVICE, LogEvent.LEVEL, LogEvent.STATUS_CODE, LogEvent.TRACE_ID);
+    static final Set<String> BINARY_FIELDS = Set.of(LogEvent.MESSAGE);
+
+    private final LeafReader reader;
+    private final Map<String, DocIdSetIterator> iterators = new HashMap<>();
+
+    LogDocValues(LeafReader reader) {
+        this.reader = reader;
+    }
+
+    /** Random-access read of a single field by top-level doc ID (fresh iterator per call). */
+    static String get(IndexReader topReader, String field, int doc) throws IOException {
+        List<LeafReaderContext> leaves = topReader.leaves();
+        LeafReaderContext leaf = leaves.get(ReaderUtil.subIndex(doc, leaves));
+        return new LogDocValues(leaf.reader()).get(field, doc - leaf.docBase);
+    }
+
+    String get(String field, int doc) throws IOException {
+        DocIdSetIterator iterator = iterator(field, doc);
+        if (iterator instanceof SortedDocValues sorted && sorted.advanceExact(doc)) {
+            return sorted.lookupOrd(sorted.ordValue()).utf8ToString();
+        }
+        if (iterator instanceof BinaryDocValues binary && binary.advanceExact(doc)) {
+            return binary.binaryValue().utf8ToString();
+        }
+        return null;
+    }
+
+    long getLong(String field, int doc) throws IOException {
+        DocIdSetIterator iterator = iterator(field, doc);
+        if (iterator instanceof NumericDocValues numeric && numeric.advanceExact(doc)) {
+            return numeric.longValue();
+        }
+        return 0;
+    }
+
+    private DocIdSetIterator iterator(String field, int doc) throws IOException {
+        DocIdSetIterator iterator = iterators.get(field);
+        // Doc values iterators are forward-only: start over if asked for an earlier doc
+        if (iterator == null || iterator.docID() > doc) {
+            if (SORTED_FIELDS.contains(field)) {
+                iterator = DocValues.getSorted(reader, field);
+            } else if (BINARY_FIELDS.contains(field)) {
+                iterator = DocValues.getBinary(reader, field);
+            } else {
+                iterator = DocValues.getNumeric(reader, field);
+            }
+            iterators.put(field, iterator);
+        }
+        return iterator;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.responder.service;
+
+import com.example.responder.config.LogEngineProperties;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.lucene.analysis.Analyzer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One generation of the log index: its shards plus the template miner and rate baseline that
+ * describe exactly those documents. A scenario load builds a new generation next to the live one
+ * and swaps it in atomically, so searches never see a half-loaded index.
+ *
+ * <p>Reference counted like Lucene's {@code ReferenceManager}: the engine holds one reference while
+ * the generation is current, and every search holds one while it runs. The shards are closed when
+ * the last reference is released, i.e. after the swap once in-flight searches finish.
+ */
+final class LogIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(LogIndex.class);
+
+    private final long generation;
+    private final Analyzer analyzer;
+    private final LogEngineProperties properties;
+    private final Map<String, LogShard> shards = new ConcurrentHashMap<>();
+    private final LogTemplateMiner templateMiner = new LogTemplateMiner();
+    private final LogRateBaseline rateBaseline = new LogRateBaseline();
+    private final AtomicInteger refCount = new AtomicInteger(1);
+    // Highest ingest sequence that is searchable in this generation
+    private final AtomicLong visibleSequence = new AtomicLong();
+
+    LogIndex(long generation, Analyzer analyzer, LogEngineProperties properties) {
+        this.generation = generation;
+        this.analyzer = analyzer;
+        this.properties = properties;
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    LogTemplateMiner templateMiner() {
+        return templateMiner;
+    }
+
+    LogRateBaseline rateBaseline() {
+        return rateBaseline;
+    }
+
+    Collection<LogShard> shards() {
+        return shards.values();
+    }
+
+    /** Returns the shard with the given key, creating it on first use. */
+    LogShard shard(String key) throws IOException {
+        LogShard shard = shards.get(key);
+        if (shard == null) {
+            synchronized (shards) {
+                shard = shards.get(key);
+                if (shard == null) {
+                    shard = new LogShard(key, analyzer, properties);
+                    shards.put(key, shard);
+                    log.info(">>> LOG ENGINE: Created shard '{}' (generation {})", key, generation);
+                }
+            }
+        }
+        return shard;
+    }
+
+    long visibleSequence() {
+        return visibleSequence.get();
+    }
+
+    /** Records that all documents up to {@code sequence} are now searchable. */
+    void publish(long sequence) {
+        visibleSequence.accumulateAndGet(sequence, Math::max);
+    }
+
+    void commitAndRefresh() throws IOException {
+        for (LogShard shard : shards.values()) {
+            shard.commit();
+            shard.refresh();
+        }
+    }
+
+    /** Takes a reference unless the generation is already closed. */
+    boolean tryIncRef() {
+        int count;
+        while ((count = refCount.get()) > 0) {
+            if (refCount.compareAndSet(count, count + 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    void decRef() throws IOException {
+        int count = refCount.decrementAndGet();
+        if (count == 0) {
+            IOException failure = null;
+            for (LogShard shard : shards.values()) {
+                try {
+                    shard.close();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            log.info(">>> LOG ENGINE: Released index generation {}", generation);
+            if (failure != null) throw failure;
+        } else if (count < 0) {
+            throw new IllegalStateException("Index generation " + generation + " released twice");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.responder.service;
+
+import com.example.responder.model.LogEvent;
+import java.util.List;
+
+/** Callback for components that want to see every micro-batch indexed by the log engine. */
+@FunctionalInterface
+public interface LogIngestListener {
+
+    void onEvents(List<LogEvent> events);
+}
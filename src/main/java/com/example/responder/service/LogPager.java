@@ -0,0 +1,198 @@
+package com.example.responder.service;
+
+import com.example.responder.model.LogEvent;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+
+/**
+ * Cursor pagination over the matches of a query, newest first. Every page is a {@code searchAfter}
+ * over all routed shards, sorted by (timestamp, ingest sequence) with a constant-score query, so no
+ * scores are computed. The sequence is unique, which makes the order total and the cursor (the last
+ * hit's sort values) stable across shards.
+ *
+ * <p>Only the requested fields are read, from doc values where the schema has them (see {@link
+ * LogDocValues}); other fields fall back to field-restricted stored-field loads.
+ */
+final class LogPager {
+
+    static final List<String> DEFAULT_FIELDS =
+            List.of(
+                    EmbeddedLogEngine.TIMESTAMP_FIELD,
+                    LogEvent.SERVICE,
+                    LogEvent.LEVEL,
+                    LogEvent.STATUS_CODE,
+                    LogEvent.TRACE_ID,
+                    LogEvent.MESSAGE);
+
+    private static final Sort NEWEST_FIRST =
+            new Sort(
+                    new SortField(EmbeddedLogEngine.TIMESTAMP_FIELD, SortField.Type.LONG, true),
+                    new SortField(EmbeddedLogEngine.SEQ_FIELD, SortField.Type.LONG, true));
+
+    /** One page of hits plus the sort position of its last hit (null if it was the last page). */
+    record Page(List<Map<String, String>> hits, FieldDoc last) {}
+
+    private LogPager() {}
+
+    static Page page(
+            ShardSearchers searchers, Query query, FieldDoc after, int size, List<String> fields)
+            throws IOException {
+        Query constantScore = new ConstantScoreQuery(query);
+        List<TopFieldDocs> perShard =
+                searchers.map(s -> s.searchAfter(after, constantScore, size, NEWEST_FIRST, false));
+        TopFieldDocs[] shardHits = perShard.toArray(new TopFieldDocs[0]);
+        for (int i = 0; i < shardHits.length; i++) {
+            for (var scoreDoc : shardHits[i].scoreDocs) {
+                scoreDoc.shardIndex = i;
+            }
+        }
+        TopDocs merged = TopDocs.merge(NEWEST_FIRST, size, shardHits);
+
+        FieldDoc[] hits =
+                Arrays.copyOf(merged.scoreDocs, merged.scoreDocs.length, FieldDoc[].class);
+        List<Map<String, String>> rows = read(searchers, hits, fields);
+        FieldDoc last = hits.length == size ? hits[hits.length - 1] : null;
+        return new Page(rows, last);
+    }
+
+    /** Streams every match (up to {@code limit}) page by page; at most one page is on the heap. */
+    static long export(
+            ShardSearchers searchers,
+            Query query,
+            List<String> fields,
+            long limit,
+            EmbeddedLogEngine.HitSink sink)
+            throws IOException {
+        long written = 0;
+        FieldDoc after = null;
+        while (written < limit) {
+            int size = (int) Math.min(1_000, limit - written);
+            Page page = page(searchers, query, after, size, fields);
+            for (Map<String, String> hit : page.hits()) {
+                sink.accept(hit);
+            }
+            written += page.hits().size();
+            if (page.last() == null) break;
+            after = resumeAfter(page.last());
+        }
+        return written;
+    }
+
+    static String encodeCursor(FieldDoc last) {
+        if (last == null) return null;
+        FieldDoc resume = resumeAfter(last);
+        String position = resume.fields[0] + ":" + resume.fields[1];
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static FieldDoc decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String[] position =
+                    new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8)
+                            .split(":");
+            return new FieldDoc(
+                    -1,
+                    Float.NaN,
+                    new Object[] {Long.parseLong(position[0]), Long.parseLong(position[1])});
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor '" + cursor + "'");
+        }
+    }
+
+    /**
+     * A shard-independent searchAfter position right behind {@code last}. Doc IDs are only
+     * meaningful within one shard, so the position carries doc -1 (never used as a tie-breaker) and
+     * sequence - 1 instead: since sequences are unique integers, everything sorting after
+     * (timestamp, seq - 1) inclusive is exactly everything after {@code last}.
+     */
+    private static FieldDoc resumeAfter(FieldDoc last) {
+        return new FieldDoc(
+                -1, Float.NaN, new Object[] {last.fields[0], (Long) last.fields[1] - 1});
+    }
+
+    /** Reads the requested fields of the hits, visiting each segment in doc ID order. */
+    private static List<Map<String, String>> read(
+            ShardSearchers searchers, FieldDoc[] hits, List<String> fields) throws IOException {
+        Set<String> stored =
+                fields.stream()
+                        .filter(f -> !isDocValuesField(f))
+                        .collect(Collectors.toUnmodifiableSet());
+        List<Map<String, String>> rows = new ArrayList<>(hits.length);
+        for (int i = 0; i < hits.length; i++) {
+            rows.add(null);
+        }
+
+        Integer[] order = new Integer[hits.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(
+                order,
+                Comparator.<Integer>comparingInt(i -> hits[i].shardIndex)
+                        .thenComparingInt(i -> hits[i].doc));
+
+        LeafReaderContext leaf = null;
+        LogDocValues values = null;
+        StoredFields storedFields = null;
+        int shard = -1;
+        for (int i : order) {
+            FieldDoc hit = hits[i];
+            IndexReader reader = searchers.searcher(hit.shardIndex).getIndexReader();
+            List<LeafReaderContext> leaves = reader.leaves();
+            LeafReaderContext hitLeaf = leaves.get(ReaderUtil.subIndex(hit.doc, leaves));
+            if (hit.shardIndex != shard || hitLeaf != leaf) {
+                shard = hit.shardIndex;
+                leaf = hitLeaf;
+                values = new LogDocValues(leaf.reader());
+                storedFields = stored.isEmpty() ? null : leaf.reader().storedFields();
+            }
+            int doc = hit.doc - leaf.docBase;
+
+            Map<String, String> row = new LinkedHashMap<>();
+            Document storedDoc = storedFields != null ? storedFields.document(doc, stored) : null;
+            for (String field : fields) {
+                String value;
+                if (field.equals(EmbeddedLogEngine.TIMESTAMP_FIELD)) {
+                    value = Long.toString(values.getLong(field, doc));
+                } else if (isDocValuesField(field)) {
+                    value = values.get(field, doc);
+                } else {
+                    value = storedDoc.get(field);
+                }
+                if (value != null) {
+                    row.put(field, value);
+                }
+            }
+            rows.set(i, row);
+        }
+        return rows;
+    }
+
+    private static boolean isDocValuesField(String field) {
+        return field.equals(EmbeddedLogEngine.TIMESTAMP_FIELD)
+                || LogDocValues.SORTED_FIELDS.contains(field)
+                || LogDocValues.BINARY_FIELDS.contains(field);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.responder.service;
+
+import com.example.responder.model.LogEvent;
+import com.example.responder.tools.ElfLogSearchTool;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermRangeQuery;
+
+/**
+ * Rolling per-service log rates, so a search result can say "5x the usual error rate" instead of
+ * just a raw count.
+ *
+ * <p>At ingest time every event bumps a few one-minute counters: the service total, its log level
+ * and its status class (e.g. "5xx"). A search picks the most specific of these dimensions its query
+ * requires and compares the last 5 minutes with the twelve 5-minute windows before it.
+ *
+ * <p>Each index generation (see {@link LogIndex}) has its own instance.
+ */
+public class LogRateBaseline {
+
+    private static final String ALL_SERVICES = "*";
+    private static final String TOTAL = "total";
+
+    private static final Duration BUCKET_WIDTH = Duration.ofMinutes(1);
+    private static final int WINDOW_BUCKETS = 5;
+    private static final int BASELINE_WINDOWS = 12;
+
+    private final Map<String, WindowedCounter> counters = new ConcurrentHashMap<>();
+
+    /** Counts an ingested event for its (normalized) service and for all services. */
+    public void record(String service, LogEvent event, long timestampMillis) {
+        for (String dimension : dimensionsOf(event)) {
+            counter(service, dimension).add(timestampMillis, 1);
+            if (!service.equals(ALL_SERVICES)) {
+                counter(ALL_SERVICES, dimension).add(timestampMillis, 1);
+            }
+        }
+    }
+
+    public void clear() {
+        counters.clear();
+    }
+
+    /** Compares the current rate of the query's dimension with its baseline. */
+    public ElfLogSearchTool.Baseline compare(String service, Query query) {
+        String dimension = dimensionFor(query);
+        String serviceKey = service != null ? service : ALL_SERVICES;
+        WindowedCounter counter = counters.get(key(serviceKey, dimension));
+        WindowedCounter total = counters.get(key(serviceKey, TOTAL));
+        String label =
+                (serviceKey.equals(ALL_SERVICES) ? "all services" : serviceKey) + " " + dimension;
+
+        if (counter == null || total == null) {
+            return none(label);
+        }
+
+        long windowMillis = counter.bucketMillis() * WINDOW_BUCKETS;
+        long currentEnd = counter.bucketStart(System.currentTimeMillis()) + counter.bucketMillis();
+        long currentStart = currentEnd - windowMillis;
+        double minutes = windowMillis / 60_000.0;
+
+        double current = counter.sumRange(currentStart, currentEnd);
+        double[] history = new double[BASELINE_WINDOWS];
+        boolean hasHistory = false;
+        for (int i = 0; i < BASELINE_WINDOWS; i++) {
+            long end = currentStart - i * windowMillis;
+            history[i] = counter.sumRange(end - windowMillis, end);
+            hasHistory |= total.sumRange(end - windowMillis, end) > 0;
+        }
+        if (!hasHistory) {
+            return new ElfLogSearchTool.Baseline(label, current / minutes, 0, 0, 0, "NO_BASELINE");
+        }
+
+        double mean = 0;
+        for (double h : history) mean += h;
+        mean /= history.length;
+        double variance = 0;
+        for (double h : history) variance += (h - mean) * (h - mean);
+        double stdDev = Math.sqrt(variance / history.length);
+
+        // Floor the spread at one event per window so a perfectly flat history doesn't explode
+        double zScore = (current - mean) / Math.max(stdDev, 1.0);
+        double ratio = current / Math.max(mean, 1.0);
+        String verdict = zScore >= 3 ? "ANOMALOUS" : zScore >= 2 ? "ELEVATED" : "NORMAL";
+        return new ElfLogSearchTool.Baseline(
+                label, current / minutes, mean / minutes, ratio, zScore, verdict);
+    }
+
+    /** Result for a dimension without any counts. */
+    static ElfLogSearchTool.Baseline none(String label) {
+        return new ElfLogSearchTool.Baseline(label, 0, 0, 0, 0, "NO_BASELINE");
+    }
+
+    /** Most specific tracked dimension that every match of the query must have. */
+    static String dimensionFor(Query query) {
+        List<String> levels = QueryTerms.required(query, LogEvent.LEVEL);
+        if (!levels.isEmpty()) {
+            return LogEvent.LEVEL + ":" + levels.get(0);
+        }
+        List<String> statuses = QueryTerms.required(query, LogEvent.STATUS_CODE);
+        if (!statuses.isEmpty() && !statuses.get(0).isEmpty()) {
+            return LogEvent.STATUS_CODE + ":" + statuses.get(0).charAt(0) + "xx";
+        }
+        for (Query leaf : QueryTerms.requiredLeaves(query)) {
+            if (leaf instanceof TermRangeQuery range
+                    && range.getField().equals(LogEvent.STATUS_CODE)
+                    && range.getLowerTerm() != null
+                    && range.getLowerTerm().length > 0) {
+                char statusClass = (char) range.getLowerTerm().bytes[range.getLowerTerm().offset];
+                return LogEvent.STATUS_CODE + ":" + statusClass + "xx";
+            }
+        }
+        return TOTAL;
+    }
+
+    private static List<String> dimensionsOf(LogEvent event) {
+        String level = event.get(LogEvent.LEVEL);
+        String status = event.get(LogEvent.STATUS_CODE);
+        String levelDim = level != null ? LogEvent.LEVEL + ":" + level : null;
+        String statusDim =
+                status != null && !status.isEmpty()
+                        ? LogEvent.STATUS_CODE + ":" + status.charAt(0) + "xx"
+                        : null;
+        if (levelDim != null && statusDim != null) return List.of(TOTAL, levelDim, statusDim);
+        if (levelDim != null) return List.of(TOTAL, levelDim);
+        if (statusDim != null) return List.of(TOTAL, statusDim);
+        return List.of(TOTAL);
+    }
+
+    private WindowedCounter counter(String service, String dimension) {
+        return counters.computeIfAbsent(
+                key(service, dimension),
+                k ->
+                        new WindowedCounter(
+                                BUCKET_WIDTH, WINDOW_BUCKETS * (BASELINE_WINDOWS + 1) + 1));
+    }
+
+    private static String key(String service, String dimension) {
+        return service + "|" + dimension;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.responder.service;
+
+import com.example.responder.config.LogEngineProperties;
+import com.example.responder.model.LogEvent;
+import com.example.responder.model.LogIndexStats;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.codecs.lucene99.Lucene99Codec;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SegmentInfo;
+import org.apache.lucene.index.SegmentReader;
+import org.apache.lucene.index.Terms;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.MMapDirectory;
+import org.apache.lucene.util.IOUtils;
+
+/**
+ * One partition of the log index, holding the logs of a single service. Every shard has its own
+ * directory, writer and near-real-time {@link SearcherManager}, so a noisy service only ever
+ * contends with itself.
+ */
+final class LogShard implements Closeable {
+
+    private final String name;
+    private final Path path; // Only set for OFF_HEAP storage
+    private final Directory directory;
+    private final IndexWriter writer;
+    private final SearcherManager searcherManager;
+
+    // Analyzed tokens of every application.name written to this shard (used for query routing)
+    private final Set<String> serviceTokens = ConcurrentHashMap.newKeySet();
+
+    LogShard(String name, Analyzer analyzer, LogEngineProperties properties) throws IOException {
+        this.name = name;
+        IndexWriterConfig config = new IndexWriterConfig(analyzer);
+        config.setRAMBufferSizeMB(properties.ramBufferMb());
+        if (properties.storage() == LogEngineProperties.Storage.OFF_HEAP) {
+            // Memory-mapped files: the index lives in the OS page cache, not on the Java heap
+            // A fresh directory per shard, so nodes sharing the root never open the same index
+            this.path =
+                    Files.createTempDirectory(
+                            Files.createDirectories(properties.path()), name + "-");
+            this.directory = new MMapDirectory(path);
+            config.setCodec(new Lucene99Codec(Lucene99Codec.Mode.BEST_COMPRESSION));
+        } else {
+            this.path = null;
+            this.directory = new ByteBuffersDirectory();
+        }
+        // Docs of one trace are stored next to each other, in time order (see getTrace)
+        config.setIndexSort(
+                new Sort(
+                        new SortField(LogEvent.TRACE_ID, SortField.Type.STRING),
+                        new SortField(EmbeddedLogEngine.TIMESTAMP_FIELD, SortField.Type.LONG)));
+        this.writer = new IndexWriter(directory, config);
+        this.searcherManager = new SearcherManager(writer, null);
+    }
+
+    String name() {
+        return name;
+    }
+
+    void addDocuments(List<Document> docs) throws IOException {
+        writer.addDocuments(docs);
+    }
+
+    void addServiceTokens(Collection<String> tokens) {
+        serviceTokens.addAll(tokens);
+    }
+
+    /** True if a document of this shard can contain all the given application.name tokens. */
+    boolean mayContainService(Collection<String> tokens) {
+        return serviceTokens.containsAll(tokens);
+    }
+
+    /** Makes all writes so far visible to newly acquired searchers. */
+    void refresh() throws IOException {
+        searcherManager.maybeRefreshBlocking();
+    }
+
+    IndexSearcher acquire() throws IOException {
+        return searcherManager.acquire();
+    }
+
+    void release(IndexSearcher searcher) throws IOException {
+        searcherManager.release(searcher);
+    }
+
+    void commit() throws IOException {
+        writer.commit();
+    }
+
+    /**
+     * Doc counts, file sizes by index structure and per-field term statistics of the segments the
+     * current searcher sees. Compound segments are broken down by the files they pack.
+     */
+    LogIndexStats.Shard stats() throws IOException {
+        IndexSearcher searcher = acquire();
+        try {
+            IndexReader reader = searcher.getIndexReader();
+            Map<String, Long> bytes = new TreeMap<>();
+            Map<String, long[]> fieldTotals = new TreeMap<>();
+            for (LeafReaderContext leaf : reader.leaves()) {
+                if (FilterLeafReader.unwrap(leaf.reader()) instanceof SegmentReader segment) {
+                    addFileSizes(segment.getSegmentInfo().info, bytes);
+                }
+                for (FieldInfo info : leaf.reader().getFieldInfos()) {
+                    Terms terms = leaf.reader().terms(info.name);
+                    if (terms == null) continue;
+                    long[] totals = fieldTotals.computeIfAbsent(info.name, f -> new long[3]);
+                    long size = terms.size();
+                    totals[0] = totals[0] < 0 || size < 0 ? -1 : totals[0] + size;
+                    totals[1] += terms.getDocCount();
+                    totals[2] += terms.getSumDocFreq();
+                }
+            }
+            Map<String, LogIndexStats.Field> fields = new TreeMap<>();
+            fieldTotals.forEach(
+                    (field, t) -> fields.put(field, new LogIndexStats.Field(t[0], t[1], t[2])));
+            return new LogIndexStats.Shard(
+                    name,
+                    reader.numDocs(),
+                    reader.numDeletedDocs(),
+                    reader.leaves().size(),
+                    writer.ramBytesUsed(),
+                    bytes,
+                    fields);
+        } finally {
+            release(searcher);
+        }
+    }
+
+    /** Adds the segment's file sizes (the searcher keeps its files from being deleted). */
+    private void addFileSizes(SegmentInfo segment, Map<String, Long> bytes) throws IOException {
+        if (segment.getUseCompoundFile()) {
+            try (Directory compound =
+                    segment.getCodec()
+                            .compoundFormat()
+                            .getCompoundReader(directory, segment, IOContext.READONCE)) {
+                for (String file : compound.listAll()) {
+                    bytes.merge(structureOf(file), compound.fileLength(file), Long::sum);
+                }
+            }
+            // The segment info and live docs are kept outside the compound file
+            for (String file : segment.files()) {
+                if (!file.endsWith(".cfs") && !file.endsWith(".cfe")) {
+                    bytes.merge(structureOf(file), directory.fileLength(file), Long::sum);
+                }
+            }
+            return;
+        }
+        for (String file : segment.files()) {
+            bytes.merge(structureOf(file), directory.fileLength(file), Long::sum);
+        }
+    }
+
+    private static String structureOf(String file) {
+        String extension = file.substring(file.lastIndexOf('.') + 1);
+        return switch (extension) {
+            case "tim", "tip", "tmd", "doc", "pos", "pay" -> "postings";
+            case "dvd", "dvm" -> "docValues";
+            case "fdt", "fdx", "fdm" -> "storedFields";
+            case "kdd", "kdi", "kdm" -> "points";
+            case "nvd", "nvm" -> "norms";
+            default -> "other";
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        searcherManager.close();
+        writer.close();
+        directory.close();
+        if (path != null) {
+            IOUtils.rm(path);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.responder.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Online log template miner (Drain). Messages are tokenized, numeric-looking tokens are masked, and
+ * the message is routed through a fixed-depth tree (token count -> first token) to a small group of
+ * templates. It joins the most similar template if enough positions match, generalizing differing
+ * positions to {@code <*>}; otherwise it starts a new template.
+ *
+ * <p>Runs inline at ingest time in {@link EmbeddedLogEngine}; each log document stores the ID of
+ * its template, and per-template counts are kept in one-minute buckets.
+ *
+ * <p>Each index generation (see {@link LogIndex}) has its own instance. Locking is striped by
+ * group: a message only competes with messages of the same length and first token, the only ones
+ * that can touch the same templates, so parallel ingest of different message shapes never waits.
+ */
+public class LogTemplateMiner {
+
+    public static final String WILDCARD = "<*>";
+
+    private static final double SIMILARITY_THRESHOLD = 0.5;
+    private static final int MAX_TEMPLATES_PER_GROUP = 100;
+    private static final Duration BUCKET_WIDTH = Duration.ofMinutes(1);
+    private static final Duration HISTORY = Duration.ofHours(1);
+
+    /** Snapshot of a template as returned to callers. */
+    public record Template(int id, String pattern, String example, long totalCount) {}
+
+    /** Leaf of the tree (token count -> first token); its monitor guards its clusters. */
+    private record GroupKey(int length, String firstToken) {}
+
+    private static final class Group {
+        private final List<Cluster> clusters = new ArrayList<>();
+    }
+
+    /** Tokens and count are guarded by the monitor of the cluster's group. */
+    private static final class Cluster {
+        private final int id;
+        private final Group group;
+        private final String[] tokens;
+        private final String example;
+        private final WindowedCounter recent = WindowedCounter.covering(HISTORY, BUCKET_WIDTH);
+        private long count;
+
+        private Cluster(int id, Group group, String[] tokens, String example) {
+            this.id = id;
+            this.group = group;
+            this.tokens = tokens;
+            this.example = example;
+        }
+    }
+
+    private final Map<GroupKey, Group> groups = new ConcurrentHashMap<>();
+    private final Map<Integer, Cluster> byId = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    /** Assigns the message to a template (creating or generalizing one) and returns its ID. */
+    public int assign(String message, long timestampMillis) {
+        String[] tokens = tokenize(message);
+        Group group =
+                groups.computeIfAbsent(
+                        new GroupKey(tokens.length, tokens.length == 0 ? "" : tokens[0]),
+                        k -> new Group());
+
+        Cluster best = null;
+        synchronized (group) {
+            double bestSimilarity = -1;
+            for (Cluster cluster : group.clusters) {
+                double similarity = similarity(cluster.tokens, tokens);
+                if (similarity > bestSimilarity) {
+                    best = cluster;
+                    bestSimilarity = similarity;
+                }
+            }
+
+            boolean groupFull = group.clusters.size() >= MAX_TEMPLATES_PER_GROUP;
+            if (best != null && (bestSimilarity >= SIMILARITY_THRESHOLD || groupFull)) {
+                generalize(best.tokens, tokens);
+            } else {
+                best = new Cluster(nextId.getAndIncrement(), group, tokens, message);
+                group.clusters.add(best);
+                byId.put(best.id, best);
+            }
+            best.count++;
+        }
+        best.recent.add(timestampMillis, 1);
+        return best.id;
+    }
+
+    public Template describe(int templateId) {
+        Cluster cluster = byId.get(templateId);
+        if (cluster == null) return null;
+        synchronized (cluster.group) {
+            return new Template(
+                    cluster.id, String.join(" ", cluster.tokens), cluster.example, cluster.count);
+        }
+    }
+
+    /** Messages assigned to the template within the trailing window (max one hour). */
+    public long recentCount(int templateId, Duration window) {
+        Cluster cluster = byId.get(templateId);
+        return cluster == null ? 0 : cluster.recent.sum(System.currentTimeMillis(), window);
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public void clear() {
+        groups.clear();
+        byId.clear();
+    }
+
+    private static String[] tokenize(String message) {
+        String trimmed = message == null ? "" : message.trim();
+        if (trimmed.isEmpty()) return new String[0];
+
+        String[] tokens = trimmed.split("\\s+");
+        for (int i = 0; i < tokens.length; i++) {
+            // IDs, counts, durations, SKUs... are variables, not part of the template
+            if (tokens[i].chars().anyMatch(Character::isDigit)) {
+                tokens[i] = WILDCARD;
+            }
+        }
+        return tokens;
+    }
+
+    /** Share of positions with identical tokens (template wildcards don't count as a match). */
+    private static double similarity(String[] template, String[] tokens) {
+        if (tokens.length == 0) return 1.0;
+        int same = 0;
+        for (int i = 0; i < tokens.length; i++) {
+            if (!template[i].equals(WILDCARD) && template[i].equals(tokens[i])) same++;
+        }
+        return (double) same / tokens.length;
+    }
+
+    private static void generalize(String[] template, String[] tokens) {
+        for (int i = 0; i < template.length; i++) {
+            if (!template[i].equals(tokens[i])) template[i] = WILDCARD;
+        }
+    }
+}
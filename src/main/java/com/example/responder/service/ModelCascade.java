@@ -0,0 +1,108 @@
+package com.example.responder.service;
+
+import com.example.responder.model.AnalysisResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Decides when a cascade tier's final report is good enough, and records per-tier metrics.
+ *
+ * <p>Metrics: {@code responder.agent.turn} (timer per tier), {@code responder.agent.completions}
+ * (reports accepted per tier) and {@code responder.agent.escalations} (per source tier and reason).
+ * The escalation rate of a tier is its escalations over its escalations plus completions.
+ */
+@Component
+public class ModelCascade {
+
+    private static final Logger log = LoggerFactory.getLogger(ModelCascade.class);
+
+    public enum Reason {
+        UNPARSEABLE,
+        UNKNOWN_ALERT,
+        LOW_CONFIDENCE,
+        NO_REPORT
+    }
+
+    public record Escalation(Reason reason, String detail) {}
+
+    private final MeterRegistry meterRegistry;
+
+    public ModelCascade(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Checks a final report against the retrieved runbook alerts.
+     *
+     * @param report The parsed report, or null if the JSON did not parse.
+     * @param alertHeaders The "## Alert:" names of the runbook chunks in the context.
+     * @return Why the report should go to the next tier, or empty to accept it.
+     */
+    public Optional<Escalation> check(
+            AnalysisResponse report, Collection<String> alertHeaders, double minConfidence) {
+        if (report == null) {
+            return Optional.of(new Escalation(Reason.UNPARSEABLE, "the report is not valid JSON"));
+        }
+        String failureType = normalize(report.failureType());
+        boolean known =
+                alertHeaders.stream()
+                        .map(ModelCascade::normalize)
+                        .anyMatch(h -> !h.isEmpty() && failureType.contains(h));
+        if (!known) {
+            return Optional.of(
+                    new Escalation(
+                            Reason.UNKNOWN_ALERT,
+                            "failureType '"
+                                    + report.failureType()
+                                    + "' matches none of the alerts "
+                                    + alertHeaders));
+        }
+        if (report.confidence() == null || report.confidence() < minConfidence) {
+            return Optional.of(
+                    new Escalation(
+                            Reason.LOW_CONFIDENCE,
+                            "confidence " + report.confidence() + " is below " + minConfidence));
+        }
+        return Optional.empty();
+    }
+
+    public void recordTurn(String tier, long nanos) {
+        Timer.builder("responder.agent.turn")
+                .tag("tier", tier)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordEscalation(String from, String to, Escalation escalation) {
+        log.info(
+                ">>> CASCADE: {} -> {} ({}: {})",
+                from,
+                to,
+                escalation.reason(),
+                escalation.detail());
+        Counter.builder("responder.agent.escalations")
+                .tag("tier", from)
+                .tag("reason", escalation.reason().name())
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordCompletion(String tier) {
+        Counter.builder("responder.agent.completions")
+                .tag("tier", tier)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.replace("Alert:", "").trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.responder.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Unit vectors as int8 codes for candidate ranking, with the full-precision floats kept off-heap in
+ * a memory-mapped scratch file for exact re-scoring.
+ *
+ * <p>Each vector is scaled by its largest absolute component to {@code [-127, 127]}, so the heap
+ * holds one byte per dimension plus a scale instead of four bytes. Codes are compared with an
+ * integer dot product; only the few best candidates are read back from the file.
+ *
+ * <p>The file is deleted on close. Ordinals of replaced vectors are {@link #release released} and
+ * reused by later additions, so re-ingesting runbooks does not grow it.
+ */
+final class QuantizedVectors implements Closeable {
+
+    /** The heap side of a stored vector: its codes, their scale and where its floats live. */
+    record Code(byte[] values, float scale, int ordinal) {}
+
+    // 4096 vectors per mapping: ~6 MB at 384 dimensions, so small corpora map little
+    private static final int VECTORS_PER_REGION = 1 << 12;
+
+    private final FileChannel channel;
+    private volatile FloatBuffer[] regions = new FloatBuffer[0];
+    private int dimensions = -1;
+    private int size;
+    private final ArrayDeque<Integer> free = new ArrayDeque<>();
+
+    QuantizedVectors(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Path file = Files.createTempFile(directory, "runbook-vectors-", ".f32");
+        channel =
+                FileChannel.open(
+                        file,
+                        StandardOpenOption.READ,
+                        StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    /**
+     * Writes a unit vector to the file, in a released slot if any, and returns its quantized form.
+     */
+    synchronized Code add(float[] unit) throws IOException {
+        if (dimensions < 0) {
+            dimensions = unit.length;
+        } else if (unit.length != dimensions) {
+            throw new IllegalArgumentException(
+                    "Expected " + dimensions + " dimensions, got " + unit.length);
+        }
+        if (!free.isEmpty()) {
+            int ordinal = free.pop();
+            regions[ordinal / VECTORS_PER_REGION].put(offset(ordinal), unit);
+            return quantize(unit, ordinal);
+        }
+        int ordinal = size;
+        int region = ordinal / VECTORS_PER_REGION;
+        if (region == regions.length) {
+            long regionBytes = (long) VECTORS_PER_REGION * dimensions * Float.BYTES;
+            FloatBuffer mapped =
+                    channel.map(FileChannel.MapMode.READ_WRITE, region * regionBytes, regionBytes)
+                            .order(ByteOrder.nativeOrder())
+                            .asFloatBuffer();
+            FloatBuffer[] grown = Arrays.copyOf(regions, region + 1);
+            grown[region] = mapped;
+            regions = grown;
+        }
+        regions[region].put(offset(ordinal), unit);
+        size++;
+        return quantize(unit, ordinal);
+    }
+
+    /** Makes the slots of vectors nobody reads any more available to {@link #add}. */
+    synchronized void release(Iterable<Code> codes) {
+        for (Code code : codes) {
+            free.push(code.ordinal());
+        }
+    }
+
+    /** Slots in the file, in use or released. */
+    synchronized int capacity() {
+        return size;
+    }
+
+    /** Quantizes a vector that is not stored, such as a query. */
+    static Code quantize(float[] vector) {
+        return quantize(vector, -1);
+    }
+
+    private static Code quantize(float[] vector, int ordinal) {
+        float max = 0;
+        for (float v : vector) {
+            max = Math.max(max, Math.abs(v));
+        }
+        float scale = max == 0 ? 1 : max / 127;
+        byte[] values = new byte[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            values[i] = (byte) Math.round(vector[i] / scale);
+        }
+        return new Code(values, scale, ordinal);
+    }
+
+    /** Approximate dot product of two quantized vectors. */
+    static double dot(Code a, Code b) {
+        byte[] x = a.values();
+        byte[] y = b.values();
+        int sum = 0;
+        for (int i = 0; i < x.length; i++) {
+            sum += x[i] * y[i];
+        }
+        return (double) sum * a.scale() * b.scale();
+    }
+
+    /** Exact dot product of a query with a stored vector, read from the mapped file. */
+    double exactDot(float[] query, Code stored) {
+        FloatBuffer region = regions[stored.ordinal() / VECTORS_PER_REGION];
+        int offset = offset(stored.ordinal());
+        double dot = 0;
+        for (int i = 0; i < query.length; i++) {
+            dot += query[i] * region.get(offset + i);
+        }
+        return dot;
+    }
+
+    private int offset(int ordinal) {
+        return (ordinal % VECTORS_PER_REGION) * dimensions;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.responder.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+
+/** Static helpers for inspecting compiled Lucene queries. */
+final class QueryTerms {
+
+    private QueryTerms() {}
+
+    /**
+     * Terms that every document matching the query must contain: terms of TermQuery/PhraseQuery
+     * leaves reachable through MUST/FILTER clauses only. Ranges, wildcards and SHOULD/MUST_NOT
+     * branches contribute nothing, so the result is always safe to use as a pre-filter.
+     */
+    static List<Term> required(Query query) {
+        List<Term> terms = new ArrayList<>();
+        query.visit(
+                new QueryVisitor() {
+                    @Override
+                    public void consumeTerms(Query q, Term... consumed) {
+                        terms.addAll(List.of(consumed));
+                    }
+
+                    @Override
+                    public QueryVisitor getSubVisitor(BooleanClause.Occur occur, Query parent) {
+                        boolean required =
+                                occur == BooleanClause.Occur.MUST
+                                        || occur == BooleanClause.Occur.FILTER;
+                        return required ? this : QueryVisitor.EMPTY_VISITOR;
+                    }
+                });
+        return terms;
+    }
+
+    /**
+     * Leaf queries (ranges, wildcards, ...) reachable through MUST/FILTER clauses only, i.e. the
+     * non-term constraints every match must satisfy.
+     */
+    static List<Query> requiredLeaves(Query query) {
+        List<Query> leaves = new ArrayList<>();
+        query.visit(
+                new QueryVisitor() {
+                    @Override
+                    public void visitLeaf(Query leaf) {
+                        leaves.add(leaf);
+                    }
+
+                    @Override
+                    public QueryVisitor getSubVisitor(BooleanClause.Occur occur, Query parent) {
+                        boolean required =
+                                occur == BooleanClause.Occur.MUST
+                                        || occur == BooleanClause.Occur.FILTER;
+                        return required ? this : QueryVisitor.EMPTY_VISITOR;
+                    }
+                });
+        return leaves;
+    }
+
+    /** Required term texts on a single field (e.g. the tokens of application.name:"x-service"). */
+    static List<String> required(Query query, String field) {
+        return required(query).stream()
+                .filter(t -> t.field().equals(field))
+                .map(Term::text)
+                .toList();
+    }
+}
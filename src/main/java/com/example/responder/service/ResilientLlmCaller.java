@@ -0,0 +1,226 @@
+package com.example.responder.service;
+
+import com.example.responder.config.LlmProperties;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+/**
+ * Runs LLM calls with a per-turn timeout, jittered retries and hedging.
+ *
+ * <p>Provider tail latency dominates the incident p99, so a turn that is slower than the configured
+ * percentile of recent turns gets a duplicate request, and whichever finishes first wins; the loser
+ * is interrupted. Hedged turns may run their tool calls twice, which is fine because every agent
+ * tool is read-only.
+ *
+ * <p>Spring AI's own RetryTemplate is switched off ({@code spring.ai.retry.max-attempts=1}) so that
+ * retries and their backoff are decided here, inside the turn budget. Its error handler still maps
+ * provider responses to exceptions, and treats every 4xx as permanent: throttling only reaches
+ * {@link #isTransient} as a TransientAiException because {@code spring.ai.retry.on-http-codes}
+ * lists 429 (and 529).
+ */
+@Component
+public class ResilientLlmCaller {
+
+    private static final Logger log = LoggerFactory.getLogger(ResilientLlmCaller.class);
+    // Below this many samples the percentile is noise; use the configured initial delay instead
+    private static final int MIN_SAMPLES = 20;
+
+    private final LlmProperties properties;
+    private final LatencyWindow latencies = new LatencyWindow(256);
+    private final ExecutorService executor;
+
+    public ResilientLlmCaller(LlmProperties properties) {
+        this.properties = properties;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor =
+                Executors.newCachedThreadPool(
+                        r -> {
+                            Thread t = new Thread(r, "llm-call-" + threads.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs {@code call} until it succeeds, fails permanently or runs out of attempts.
+     *
+     * @param operation Name used in log lines.
+     */
+    public <T> T call(String operation, Supplier<T> call) {
+        RuntimeException failure = null;
+        for (int attempt = 1; attempt <= properties.maxAttempts(); attempt++) {
+            if (attempt > 1) {
+                long backoff = backoffMillis(attempt);
+                log.warn(
+                        ">>> LLM: {} attempt {}/{} in {}ms after: {}",
+                        operation,
+                        attempt,
+                        properties.maxAttempts(),
+                        backoff,
+                        failure.getMessage());
+                sleep(backoff);
+            }
+            try {
+                return hedged(operation, call);
+            } catch (RuntimeException e) {
+                if (!isTransient(e)) {
+                    throw e;
+                }
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+
+    /** Current hedge delay: the configured percentile of recent turn latencies. */
+    public long hedgeDelayMillis() {
+        long percentile = latencies.percentile(properties.hedgePercentile(), MIN_SAMPLES);
+        return percentile < 0 ? properties.hedgeInitialDelay().toMillis() : percentile;
+    }
+
+    private <T> T hedged(String operation, Supplier<T> call) {
+        CompletionService<T> racers = new ExecutorCompletionService<>(executor);
+        List<Future<T>> started = new ArrayList<>(2);
+        long deadline = System.nanoTime() + properties.turnTimeout().toNanos();
+        boolean hedged = !properties.hedging();
+        long hedgeAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(hedgeDelayMillis());
+        RuntimeException failure = null;
+
+        started.add(racers.submit(timed(call)));
+        int pending = 1;
+        try {
+            while (pending > 0) {
+                long waitUntil = hedged ? deadline : Math.min(deadline, hedgeAt);
+                Future<T> done = racers.poll(waitUntil - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    if (hedged || System.nanoTime() >= deadline) {
+                        throw new TransientAiException(
+                                operation + " timed out after " + properties.turnTimeout());
+                    }
+                    hedged = true;
+                    started.add(racers.submit(timed(call)));
+                    pending++;
+                    log.info(
+                            ">>> LLM: {} slower than p{} ({}ms), sent a hedged request",
+                            operation,
+                            properties.hedgePercentile(),
+                            hedgeDelayMillis());
+                    continue;
+                }
+                pending--;
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    failure = unwrap(e.getCause());
+                    if (!isTransient(failure)) {
+                        throw failure;
+                    }
+                }
+            }
+            throw failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(operation + " interrupted", e);
+        } finally {
+            started.forEach(f -> f.cancel(true));
+        }
+    }
+
+    private <T> Callable<T> timed(Supplier<T> call) {
+        return () -> {
+            long start = System.nanoTime();
+            T result = call.get();
+            latencies.record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return result;
+        };
+    }
+
+    private long backoffMillis(int attempt) {
+        long ceiling =
+                Math.min(
+                        properties.backoffMax().toMillis(),
+                        properties.backoffBase().toMillis() << Math.min(attempt - 2, 20));
+        return ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during LLM retry backoff", e);
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException runtime) return runtime;
+        if (cause instanceof IOException io) return new UncheckedIOException(io);
+        return new IllegalStateException(cause);
+    }
+
+    /** Timeouts, I/O errors, throttling and server errors are worth another attempt. */
+    static boolean isTransient(Throwable e) {
+        if (e instanceof HttpStatusCodeException status) {
+            int code = status.getStatusCode().value();
+            return code == 429 || code >= 500;
+        }
+        return e instanceof TransientAiException
+                || e instanceof ResourceAccessException
+                || e instanceof UncheckedIOException;
+    }
+
+    /** Ring buffer of the most recent successful call latencies. */
+    static final class LatencyWindow {
+
+        private final long[] samples;
+        private int next;
+        private int size;
+
+        LatencyWindow(int capacity) {
+            this.samples = new long[capacity];
+        }
+
+        synchronized void record(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            size = Math.min(size + 1, samples.length);
+        }
+
+        /** Returns the given percentile, or -1 with fewer than {@code minSamples} samples. */
+        synchronized long percentile(double percentile, int minSamples) {
+            if (size < minSamples) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100.0 * size) - 1;
+            return sorted[Math.max(0, Math.min(rank, size - 1))];
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.responder.service;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.SearchRequest;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warms the retrieval path once the runbooks are ingested, so the first incidents after a deploy
+ * don't pay for it: loads the ONNX embedding model, fills the {@link RunbookCache} and runs one
+ * synthetic, service-filtered query per service against Elasticsearch to heat its caches.
+ *
+ * <p>Also the "warmup" health indicator, which is part of the readiness group: the instance only
+ * reports ready (and gets traffic) after warm-up has run.
+ */
+@Component("warmup")
+public class RetrievalWarmup implements HealthIndicator {
+
+    private static final Logger log = LoggerFactory.getLogger(RetrievalWarmup.class);
+
+    private final EmbeddingModel embeddingModel;
+    private final VectorStore vectorStore;
+    private final RunbookCache runbookCache;
+    private volatile Map<String, Object> result;
+
+    public RetrievalWarmup(
+            @Lazy EmbeddingModel embeddingModel,
+            @Lazy VectorStore vectorStore,
+            RunbookCache runbookCache) {
+        this.embeddingModel = embeddingModel;
+        this.vectorStore = vectorStore;
+        this.runbookCache = runbookCache;
+    }
+
+    /** Runs the warm-up for the freshly ingested runbook chunks, by service. */
+    public void warmUp(Map<String, List<Document>> chunksByService) {
+        long start = System.currentTimeMillis();
+        Map<String, Object> details = new LinkedHashMap<>();
+
+        long modelStart = System.currentTimeMillis();
+        embeddingModel.embed("warm-up"); // First call loads the ONNX model and tokenizer
+        details.put("modelLoadMillis", System.currentTimeMillis() - modelStart);
+
+        chunksByService.forEach(runbookCache::put);
+        details.put("cachedChunks", runbookCache.size());
+
+        int failed = 0;
+        for (String service : chunksByService.keySet()) {
+            try {
+                vectorStore.similaritySearch(
+                        SearchRequest.builder()
+                                .query(service + " error")
+                                .topK(5)
+                                .filterExpression("service_name == '" + service + "'")
+                                .build());
+            } catch (Exception e) {
+                failed++;
+                log.warn(">>> WARM-UP: Vector store query for '{}' failed", service, e);
+            }
+        }
+        details.put("services", chunksByService.size());
+        details.put("failedVectorStoreQueries", failed);
+        details.put("totalMillis", System.currentTimeMillis() - start);
+        // Time-to-ready: JVM start until the readiness gate opens
+        details.put(
+                "timeToReadyMillis",
+                System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime());
+
+        result = details;
+        log.info(">>> WARM-UP COMPLETE: {}", details);
+    }
+
+    public boolean isComplete() {
+        return result != null;
+    }
+
+    @Override
+    public Health health() {
+        return isComplete()
+                ? Health.up().withDetails(result).build()
+                : Health.outOfService().withDetail("reason", "retrieval warm-up pending").build();
+    }
+}
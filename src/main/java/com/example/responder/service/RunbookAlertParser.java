@@ -0,0 +1,63 @@
+package com.example.responder.service;
+
+import com.example.responder.model.RunbookAlert;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Extracts the "## Alert:" sections (name, detection query, time period) from runbook markdown. */
+public final class RunbookAlertParser {
+
+    // Same split as IngestionService, so alert IDs line up with the vector store chunk IDs
+    private static final Pattern ALERT_SPLIT = Pattern.compile("(?m)^(?=## Alert:)");
+    private static final Pattern ALERT_HEADER = Pattern.compile("(?m)^## Alert:\\s*(.+)$");
+    private static final Pattern LUCENE_BLOCK = Pattern.compile("(?s)```lucene\\s*(.*?)```");
+    private static final Pattern TIME_PERIOD =
+            Pattern.compile(
+                    "(?i)\\*\\*Time Period:\\*\\*\\s*(\\d+)\\s*(minutes?|mins?|m|hours?|h)\\b");
+
+    private RunbookAlertParser() {}
+
+    public static List<RunbookAlert> parse(
+            String serviceKey, String markdown, Duration defaultWindow) {
+        List<RunbookAlert> alerts = new ArrayList<>();
+        String[] rawChunks = ALERT_SPLIT.split(markdown);
+
+        for (int i = 0; i < rawChunks.length; i++) {
+            String chunk = rawChunks[i].trim();
+            Matcher header = ALERT_HEADER.matcher(chunk);
+            Matcher query = LUCENE_BLOCK.matcher(chunk);
+            if (chunk.isEmpty() || !header.find() || !query.find()) continue;
+
+            alerts.add(
+                    new RunbookAlert(
+                            serviceKey + "_alert_" + i,
+                            serviceKey,
+                            header.group(1).trim(),
+                            query.group(1).trim().replaceAll("\\s+", " "),
+                            parseTimePeriod(chunk, defaultWindow)));
+        }
+        return alerts;
+    }
+
+    /** Returns the alert names ("## Alert: name") in the given runbook text, in order. */
+    public static List<String> headers(String markdown) {
+        List<String> headers = new ArrayList<>();
+        Matcher header = ALERT_HEADER.matcher(markdown);
+        while (header.find()) {
+            headers.add(header.group(1).trim());
+        }
+        return headers;
+    }
+
+    static Duration parseTimePeriod(String chunk, Duration defaultWindow) {
+        Matcher m = TIME_PERIOD.matcher(chunk);
+        if (!m.find()) return defaultWindow;
+        long amount = Long.parseLong(m.group(1));
+        return m.group(2).toLowerCase().startsWith("h")
+                ? Duration.ofHours(amount)
+                : Duration.ofMinutes(amount);
+    }
+}
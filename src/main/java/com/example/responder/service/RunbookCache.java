@@ -0,0 +1,190 @@
+package com.example.responder.service;
+
+import com.example.responder.config.RetrievalProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process copy of every runbook chunk with its embedding, grouped by {@code service_name}.
+ * Service-scoped retrieval (the strict metadata filtering path) only ever ranks the handful of
+ * chunks of one service, so it is done here with a dot product instead of an Elasticsearch round
+ * trip. Only the issue text still needs embedding, on the local ONNX model.
+ *
+ * <p>Scores use the same scale as Elasticsearch's cosine similarity, {@code (1 + cos) / 2}, so
+ * {@code minScore} thresholds mean the same thing on both paths.
+ *
+ * <p>With {@code responder.retrieval.quantized} the heap only holds int8 codes of the embeddings
+ * (see {@link QuantizedVectors}). Chunks are ranked by their codes, and the best {@code topK *
+ * oversample} are re-scored exactly from the memory-mapped full-precision vectors, so results and
+ * scores match the float ranking unless a true top chunk falls outside the candidates. Replacing a
+ * service releases its old vectors under the write lock, so no running search still reads them.
+ */
+@Component
+public class RunbookCache {
+
+    /** A cached chunk: its float embedding, or its int8 code when quantized. */
+    private record Chunk(Document document, float[] embedding, QuantizedVectors.Code code) {}
+
+    private record Scored(Chunk chunk, double score) {}
+
+    private final Map<String, List<Chunk>> chunksByService = new ConcurrentHashMap<>();
+    private final EmbeddingModel embeddingModel;
+    private final RetrievalProperties properties;
+    // Searches hold the read lock while they use a service's vectors; replacing frees them
+    private final ReadWriteLock vectorsLock = new ReentrantReadWriteLock();
+    private QuantizedVectors quantizedVectors;
+
+    public RunbookCache(@Lazy EmbeddingModel embeddingModel, RetrievalProperties properties) {
+        this.embeddingModel = embeddingModel;
+        this.properties = properties;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (properties.quantized()) {
+            quantizedVectors = new QuantizedVectors(properties.path());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (quantizedVectors != null) {
+            quantizedVectors.close();
+        }
+    }
+
+    /** Embeds and caches the chunks of one service, replacing what was cached before. */
+    public void put(String serviceKey, List<Document> documents) {
+        List<float[]> embeddings =
+                embeddingModel.embed(documents.stream().map(Document::getText).toList());
+        List<Chunk> chunks = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            float[] unit = normalize(embeddings.get(i));
+            if (quantizedVectors == null) {
+                chunks.add(new Chunk(documents.get(i), unit, null));
+                continue;
+            }
+            try {
+                chunks.add(new Chunk(documents.get(i), null, quantizedVectors.add(unit)));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not store the vectors of " + serviceKey, e);
+            }
+        }
+        List<Chunk> previous;
+        vectorsLock.writeLock().lock();
+        try {
+            previous = chunksByService.put(serviceKey, List.copyOf(chunks));
+            if (previous != null && quantizedVectors != null) {
+                quantizedVectors.release(previous.stream().map(Chunk::code).toList());
+            }
+        } finally {
+            vectorsLock.writeLock().unlock();
+        }
+    }
+
+    public boolean contains(String serviceKey) {
+        return chunksByService.containsKey(serviceKey);
+    }
+
+    public int size() {
+        return chunksByService.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * The {@code topK} chunks of a service most similar to the query, best first; empty if the
+     * service is not cached (the caller then falls back to the vector store).
+     */
+    public Optional<List<Document>> search(
+            String serviceKey, String query, int topK, double minScore) {
+        if (!chunksByService.containsKey(serviceKey)) {
+            return Optional.empty();
+        }
+        float[] queryEmbedding = normalize(embeddingModel.embed(query));
+        vectorsLock.readLock().lock();
+        try {
+            List<Chunk> chunks = chunksByService.get(serviceKey);
+            List<Chunk> candidates =
+                    quantizedVectors == null
+                            ? chunks
+                            : candidates(chunks, queryEmbedding, topK * properties.oversample());
+            return Optional.of(
+                    candidates.stream()
+                            .map(c -> new Scored(c, exactScore(queryEmbedding, c)))
+                            .filter(s -> s.score() >= minScore)
+                            .sorted(Comparator.comparingDouble(Scored::score).reversed())
+                            .limit(topK)
+                            .map(s -> s.chunk().document())
+                            .toList());
+        } finally {
+            vectorsLock.readLock().unlock();
+        }
+    }
+
+    /** Slots in the quantized vector file, 0 when not quantized. */
+    int vectorCapacity() {
+        return quantizedVectors == null ? 0 : quantizedVectors.capacity();
+    }
+
+    /** The {@code limit} chunks with the highest approximate (int8) score, in no order. */
+    private static List<Chunk> candidates(List<Chunk> chunks, float[] queryEmbedding, int limit) {
+        if (chunks.size() <= limit) {
+            return chunks;
+        }
+        QuantizedVectors.Code query = QuantizedVectors.quantize(queryEmbedding);
+        PriorityQueue<Scored> best =
+                new PriorityQueue<>(limit + 1, Comparator.comparingDouble(Scored::score));
+        for (Chunk chunk : chunks) {
+            double approximate = QuantizedVectors.dot(query, chunk.code());
+            if (best.size() < limit) {
+                best.add(new Scored(chunk, approximate));
+            } else if (approximate > best.peek().score()) {
+                best.poll();
+                best.add(new Scored(chunk, approximate));
+            }
+        }
+        return best.stream().map(Scored::chunk).toList();
+    }
+
+    private double exactScore(float[] queryEmbedding, Chunk chunk) {
+        return chunk.embedding() != null
+                ? score(queryEmbedding, chunk.embedding())
+                : (1 + quantizedVectors.exactDot(queryEmbedding, chunk.code())) / 2;
+    }
+
+    /** Cosine similarity of two unit vectors, on the {@code (1 + cos) / 2} scale. */
+    static double score(float[] a, float[] b) {
+        double dot = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+        }
+        return (1 + dot) / 2;
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = norm == 0 ? 0 : (float) (vector[i] / norm);
+        }
+        return unit;
+    }
+}
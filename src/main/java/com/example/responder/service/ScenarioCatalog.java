@@ -0,0 +1,50 @@
+package com.example.responder.service;
+
+import com.example.responder.model.LogScenario;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+/** The log scenarios shipped in {@code classpath:scenarios/*.json}, by (lower-case) name. */
+@Component
+public class ScenarioCatalog {
+
+    private static final Logger log = LoggerFactory.getLogger(ScenarioCatalog.class);
+
+    private final Map<String, LogScenario> scenarios = new TreeMap<>();
+
+    public ScenarioCatalog(ObjectMapper objectMapper) throws IOException {
+        Resource[] resources =
+                new PathMatchingResourcePatternResolver()
+                        .getResources("classpath:scenarios/*.json");
+        for (Resource resource : resources) {
+            try (InputStream in = resource.getInputStream()) {
+                LogScenario scenario = objectMapper.readValue(in, LogScenario.class);
+                String name =
+                        scenario.name() != null
+                                ? scenario.name()
+                                : resource.getFilename().replace(".json", "");
+                scenarios.put(name.toLowerCase(Locale.ROOT), scenario);
+            }
+        }
+        log.info(">>> SIMULATION: Loaded {} log scenarios {}", scenarios.size(), names());
+    }
+
+    public Optional<LogScenario> get(String name) {
+        return Optional.ofNullable(scenarios.get(name.toLowerCase(Locale.ROOT)));
+    }
+
+    public Set<String> names() {
+        return scenarios.keySet();
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.responder.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import org.apache.lucene.search.IndexSearcher;
+
+/**
+ * Point-in-time searchers acquired over a set of shards of one index generation. Must be closed to
+ * release the readers (and the generation's reference). Per-shard work can be fanned out in
+ * parallel with {@link #map}.
+ */
+final class ShardSearchers implements AutoCloseable {
+
+    @FunctionalInterface
+    interface ShardFunction<T> {
+        T apply(IndexSearcher searcher) throws IOException;
+    }
+
+    private final LogIndex index;
+    private final List<LogShard> shards;
+    private final List<IndexSearcher> searchers = new ArrayList<>();
+    private final ExecutorService executor;
+    private boolean closed;
+
+    /** Takes over a reference on {@code index} the caller already acquired. */
+    ShardSearchers(LogIndex index, List<LogShard> shards, ExecutorService executor)
+            throws IOException {
+        this.index = index;
+        this.shards = shards;
+        this.executor = executor;
+        try {
+            for (LogShard shard : shards) {
+                searchers.add(shard.acquire());
+            }
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    LogIndex index() {
+        return index;
+    }
+
+    int size() {
+        return searchers.size();
+    }
+
+    LogShard shard(int index) {
+        return shards.get(index);
+    }
+
+    IndexSearcher searcher(int index) {
+        return searchers.get(index);
+    }
+
+    /** Applies the function to every shard, in parallel when there is more than one. */
+    <T> List<T> map(ShardFunction<T> function) throws IOException {
+        List<T> results = new ArrayList<>(searchers.size());
+        if (searchers.size() <= 1) {
+            for (IndexSearcher searcher : searchers) {
+                results.add(function.apply(searcher));
+            }
+            return results;
+        }
+
+        List<Future<T>> futures = new ArrayList<>(searchers.size());
+        for (IndexSearcher searcher : searchers) {
+            futures.add(executor.submit(() -> function.apply(searcher)));
+        }
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted during shard fan-out", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+        return results;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        IOException failure = null;
+        for (int i = 0; i < searchers.size(); i++) {
+            try {
+                shards.get(i).release(searchers.get(i));
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        searchers.clear();
+        try {
+            index.decRef();
+        } catch (IOException e) {
+            failure = e;
+        }
+        if (failure != null) throw failure;
+    }
+}
@@ -1,26 +1,42 @@
 package com.example.responder.service;
 
+import com.example.responder.config.DependencyGraphProperties;
 import com.example.responder.model.AgentConfig;
 import com.example.responder.model.AnalysisResponse;
 import com.example.responder.model.IncidentRequest;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.ai.anthropic.AnthropicChatOptions;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.messages.Message;
 import org.springframework.ai.chat.messages.SystemMessage;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.prompt.ChatOptions;
 import org.springframework.ai.document.Document;
 import org.springframework.ai.vectorstore.SearchRequest;
 import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -34,12 +50,56 @@ public class SreAgentService {
     private final ChatClient chatClient;
     private final VectorStore vectorStore;
     private final ObjectMapper objectMapper;
+    private final RunbookCache runbookCache;
+    private final ResilientLlmCaller llmCaller;
+    private final ModelCascade modelCascade;
+    private final LlmScheduler llmScheduler;
+    private final DependencyGraph dependencyGraph;
+    private final SystemStateService systemState;
+    private final DependencyGraphProperties dependencyProperties;
+    private final IncidentMemory incidentMemory;
+    private final IncidentStore incidentStore;
+    private final ExecutorService prefetchExecutor;
 
     public SreAgentService(
-            ChatClient.Builder builder, VectorStore vectorStore, ObjectMapper objectMapper) {
+            ChatClient.Builder builder,
+            @Lazy VectorStore vectorStore,
+            ObjectMapper objectMapper,
+            RunbookCache runbookCache,
+            ResilientLlmCaller llmCaller,
+            ModelCascade modelCascade,
+            LlmScheduler llmScheduler,
+            DependencyGraph dependencyGraph,
+            SystemStateService systemState,
+            DependencyGraphProperties dependencyProperties,
+            IncidentMemory incidentMemory,
+            IncidentStore incidentStore) {
         this.chatClient = builder.build();
         this.vectorStore = vectorStore;
         this.objectMapper = objectMapper;
+        this.runbookCache = runbookCache;
+        this.llmCaller = llmCaller;
+        this.modelCascade = modelCascade;
+        this.llmScheduler = llmScheduler;
+        this.dependencyGraph = dependencyGraph;
+        this.systemState = systemState;
+        this.dependencyProperties = dependencyProperties;
+        this.incidentMemory = incidentMemory;
+        this.incidentStore = incidentStore;
+        AtomicInteger threads = new AtomicInteger();
+        this.prefetchExecutor =
+                Executors.newFixedThreadPool(
+                        Math.max(1, dependencyProperties.prefetch()),
+                        r -> {
+                            Thread t = new Thread(r, "agent-prefetch-" + threads.incrementAndGet());
+                            t.setDaemon(true);
+                            return t;
+                        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        prefetchExecutor.shutdownNow();
     }
 
     public AnalysisResponse analyze(IncidentRequest request) {
@@ -47,16 +107,220 @@ public class SreAgentService {
     }
 
     public AnalysisResponse analyze(IncidentRequest request, AgentConfig config) {
+        long start = System.nanoTime();
+        Map<String, Long> phaseMillis = new LinkedHashMap<>();
+        AnalysisResponse response = analyze(request, config, phaseMillis);
+        phaseMillis.put("total", millisSince(start));
+        incidentStore.append(request, response, phaseMillis);
+        return response;
+    }
+
+    private AnalysisResponse analyze(
+            IncidentRequest request, AgentConfig config, Map<String, Long> phaseMillis) {
         log.info(">>> RE-ACT AGENT START: Analyzing '{}'", request.issue());
 
+        // --- 0. INCIDENT MEMORY: a validated repeat needs no agent run ---
+        long phase = System.nanoTime();
+        Optional<IncidentMemory.Recall> recalled = incidentMemory.recall(request);
+        phaseMillis.put("memory", millisSince(phase));
+        if (recalled.isPresent() && recalled.get().kind() == IncidentMemory.Kind.REUSE) {
+            return recalled.get().analysis();
+        }
+        String example = recalled.map(r -> r.example(objectMapper)).orElse("");
+
         // --- 1. RETRIEVAL (RAG) WITH ROBUST FILTERING ---
+        phase = System.nanoTime();
         List<Document> relevantDocs = retrieveContext(request, config);
+        phaseMillis.put("retrieval", millisSince(phase));
 
         if (relevantDocs.isEmpty()) {
             return fallbackResponse(
                     "No relevant runbooks found for service: " + request.serviceName());
         }
 
+        phase = System.nanoTime();
+        Upstream upstream = prefetchUpstream(List.of(request.serviceName()), request, config);
+        phaseMillis.put("upstream", millisSince(phase));
+
+        phase = System.nanoTime();
+        AnalysisResponse response =
+                react(
+                        request.issue(),
+                        relevantDocs,
+                        upstream,
+                        example,
+                        config,
+                        llmScheduler.priorityOf(request));
+        phaseMillis.put("agent", millisSince(phase));
+        incidentMemory.remember(request, response);
+        return response;
+    }
+
+    private static long millisSince(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /** Runbook chunks and health of the nearest upstream dependencies, fetched in parallel. */
+    private record Upstream(List<Document> docs, String health) {
+        static final Upstream NONE = new Upstream(List.of(), "");
+    }
+
+    /**
+     * @param services The services under analysis; their nearest dependencies outside this set are
+     *     fetched.
+     * @param request Issue and time window the upstream runbooks are retrieved for.
+     */
+    private Upstream prefetchUpstream(
+            List<String> services, IncidentRequest request, AgentConfig config) {
+        List<String> dependencies =
+                dependencyGraph.nearestDependencies(services, dependencyProperties.prefetch());
+        if (dependencies.isEmpty()) {
+            return Upstream.NONE;
+        }
+        AgentConfig scoped = serviceScoped(config);
+        List<CompletableFuture<List<Document>>> runbooks =
+                dependencies.stream()
+                        .map(
+                                dependency ->
+                                        CompletableFuture.supplyAsync(
+                                                () -> upstreamRunbook(dependency, request, scoped),
+                                                prefetchExecutor))
+                        .toList();
+
+        // Same in-memory state the healthCheck tool reads; the HealthPoller keeps it fresh
+        String health =
+                dependencies.stream().map(this::healthLine).collect(Collectors.joining("\n"));
+
+        List<Document> docs = runbooks.stream().flatMap(f -> f.join().stream()).toList();
+        log.info(
+                ">>> UPSTREAM: Prefetched {} runbook chunks and health for {}",
+                docs.size(),
+                dependencies);
+        return new Upstream(docs, health);
+    }
+
+    private List<Document> upstreamRunbook(
+            String dependency, IncidentRequest request, AgentConfig config) {
+        try {
+            return retrieveContext(
+                    new IncidentRequest(dependency, request.issue(), request.timeWindow()), config);
+        } catch (RuntimeException e) {
+            log.warn("Upstream retrieval for '{}' failed: {}", dependency, e.getMessage());
+            return List.of();
+        }
+    }
+
+    private String healthLine(String service) {
+        HealthHistory history = systemState.getHistory(service);
+        return "- "
+                + service
+                + ": "
+                + (systemState.isHealthy(service) ? "UP" : "DOWN")
+                + (history != null ? " (" + history.summary() + ")" : "");
+    }
+
+    private static AgentConfig serviceScoped(AgentConfig config) {
+        return new AgentConfig(
+                config.topK(),
+                config.minScore(),
+                config.temperature(),
+                true,
+                config.modelTiers(),
+                config.escalationConfidence());
+    }
+
+    /**
+     * Analyzes correlated incidents (see IncidentBatchAnalyzer) in a single ReAct run: one
+     * service-scoped retrieval per involved service, the upstream dependencies of the group (minus
+     * the services already in it), and one shared root-cause analysis. The LLM calls run at the
+     * priority of the most urgent incident.
+     */
+    public AnalysisResponse analyzeCorrelated(List<IncidentRequest> incidents, AgentConfig config) {
+        if (incidents.size() == 1) {
+            return analyze(incidents.get(0), config);
+        }
+        long start = System.nanoTime();
+        Map<String, Long> phaseMillis = new LinkedHashMap<>();
+        AnalysisResponse response = analyzeCorrelated(incidents, config, phaseMillis);
+        phaseMillis.put("total", millisSince(start));
+        // Every incident of the group is recorded, with the group's shared analysis and timings
+        incidents.forEach(incident -> incidentStore.append(incident, response, phaseMillis));
+        return response;
+    }
+
+    private AnalysisResponse analyzeCorrelated(
+            List<IncidentRequest> incidents, AgentConfig config, Map<String, Long> phaseMillis) {
+        log.info(">>> RE-ACT AGENT START: Analyzing {} correlated incidents", incidents.size());
+
+        // Every involved service contributes its own runbook chunks
+        long phase = System.nanoTime();
+        AgentConfig perService = serviceScoped(config);
+        Map<String, List<IncidentRequest>> byService =
+                incidents.stream()
+                        .collect(
+                                Collectors.groupingBy(
+                                        IncidentRequest::serviceName,
+                                        LinkedHashMap::new,
+                                        Collectors.toList()));
+        Map<String, Document> relevantDocs = new LinkedHashMap<>();
+        byService.forEach(
+                (service, requests) -> {
+                    String issues =
+                            requests.stream()
+                                    .map(IncidentRequest::issue)
+                                    .distinct()
+                                    .collect(Collectors.joining("\n"));
+                    IncidentRequest query =
+                            new IncidentRequest(service, issues, requests.get(0).timeWindow());
+                    retrieveContext(query, perService)
+                            .forEach(doc -> relevantDocs.putIfAbsent(doc.getId(), doc));
+                });
+        phaseMillis.put("retrieval", millisSince(phase));
+
+        if (relevantDocs.isEmpty()) {
+            return fallbackResponse(
+                    "No relevant runbooks found for services: " + byService.keySet());
+        }
+
+        String issue =
+                "CORRELATED INCIDENTS (reported together; find the shared root cause):\n"
+                        + incidents.stream()
+                                .map(r -> "- [" + r.serviceName() + "] " + r.issue())
+                                .distinct()
+                                .collect(Collectors.joining("\n"));
+        LlmScheduler.Priority priority =
+                incidents.stream()
+                        .map(llmScheduler::priorityOf)
+                        .min(Comparator.comparingInt(LlmScheduler.Priority::rank))
+                        .orElseThrow();
+        phase = System.nanoTime();
+        Upstream upstream =
+                prefetchUpstream(
+                        List.copyOf(byService.keySet()),
+                        new IncidentRequest(
+                                incidents.get(0).serviceName(),
+                                incidents.stream()
+                                        .map(IncidentRequest::issue)
+                                        .distinct()
+                                        .collect(Collectors.joining("\n")),
+                                incidents.get(0).timeWindow()),
+                        config);
+        phaseMillis.put("upstream", millisSince(phase));
+
+        phase = System.nanoTime();
+        AnalysisResponse response =
+                react(issue, List.copyOf(relevantDocs.values()), upstream, "", config, priority);
+        phaseMillis.put("agent", millisSince(phase));
+        return response;
+    }
+
+    private AnalysisResponse react(
+            String issue,
+            List<Document> relevantDocs,
+            Upstream upstream,
+            String example,
+            AgentConfig config,
+            LlmScheduler.Priority priority) {
         List<String> citations =
                 relevantDocs.stream()
                         .map(
@@ -71,9 +335,32 @@ public class SreAgentService {
                 relevantDocs.stream()
                         .map(
                                 doc ->
-                                        "--- RUNBOOK ALERT CONFIGURATION ---\n"
+                                        "--- RUNBOOK ALERT CONFIGURATION (alertId: "
+                                                + doc.getId()
+                                                + ") ---\n"
                                                 + doc.getFormattedContent())
                         .collect(Collectors.joining("\n\n"));
+        Set<String> primaryIds =
+                relevantDocs.stream().map(Document::getId).collect(Collectors.toSet());
+        List<Document> upstreamDocs =
+                upstream.docs().stream().filter(doc -> !primaryIds.contains(doc.getId())).toList();
+        for (Document doc : upstreamDocs) {
+            runbookContext +=
+                    "\n\n--- UPSTREAM DEPENDENCY RUNBOOK (service: "
+                            + doc.getMetadata().getOrDefault("service_name", "unknown")
+                            + ", alertId: "
+                            + doc.getId()
+                            + ") ---\n"
+                            + doc.getFormattedContent();
+        }
+        if (!upstream.health().isEmpty()) {
+            runbookContext +=
+                    "\n\n--- UPSTREAM DEPENDENCY HEALTH (checked before this analysis) ---\n"
+                            + upstream.health();
+        }
+        if (!example.isEmpty()) {
+            runbookContext += "\n\n" + example;
+        }
 
         // --- 2. RE-ACT LOOP INITIALIZATION ---
         List<Message> conversationHistory = new ArrayList<>();
@@ -90,11 +377,15 @@ public class SreAgentService {
                - **CRITICAL**: First, identify the exact "## Alert: ..." header in the context that matches the issue.
                - Quote the Alert Name in your thought.
                - If multiple alerts are present, pick the ONE that best matches the user's symptoms.
+               - If an UPSTREAM DEPENDENCY is DOWN or its runbook matches the symptoms better, the root cause may be upstream: pick that alert.
 
             2. **ACTION**: Call a tool if you need more information.
-               - `healthCheck(service)`: Returns 'UP' or 'DOWN'.
-               - `searchElfLogs(luceneQuery)`: Returns log counts and samples.
+               - `healthCheck(service)`: Returns 'UP' or 'DOWN' plus the recent probe history (use it to spot flapping).
+               - `searchElfLogsStructured(alertId, clauses, timeWindow)`: PREFERRED. Runs the chosen Alert's detection query by its alertId (shown in the RUNBOOK ALERT CONFIGURATION header); add clauses like {"field": "log.level", "op": "=", "value": "ERROR"} to narrow it down.
+               - `searchElfLogs(luceneQuery)`: Returns log counts and samples for a free-form Lucene query.
                - **CRITICAL**: When using `searchElfLogs`, copy the Lucene query syntax EXACTLY from the chosen Alert section.
+               - `browseElfLogs(luceneQuery, cursor, pageSize, fields)`: Returns the matching raw log lines, newest first, page by page. Use it when counts and patterns are not enough.
+               - `getTrace(traceId)`: Returns all events of one trace across services, in time order. Use it on a sampleTraceId to find the upstream culprit.
 
             3. **OBSERVATION**: The tool output will be provided to you.
 
@@ -106,30 +397,59 @@ public class SreAgentService {
             {
               "failureType": "String (The Name of the Alert you identified)",
               "rootCauseHypothesis": "String",
-              "investigationQuery": "String (The exact Lucene query used)",
+              "investigationQuery": "String (The exact Lucene query of the Alert, also when you searched by alertId)",
               "evidence": { "tool_name": "result_summary" },
               "responsibleTeam": "String",
               "remediationSteps": [ "Step 1", "Step 2" ],
-              "requiresEscalation": boolean
+              "requiresEscalation": boolean,
+              "confidence": number (0.0 to 1.0, how sure you are of the Alert and the root cause)
             }
             """;
 
         conversationHistory.add(new SystemMessage(systemPrompt));
         conversationHistory.add(
-                new UserMessage(
-                        "CONTEXT:\n" + runbookContext + "\n\nUSER ISSUE: " + request.issue()));
-
-        // --- 3. EXECUTION LOOP ---
-        for (int i = 0; i < MAX_ITERATIONS; i++) {
-            log.debug("--- Turn {}/{} ---", i + 1, MAX_ITERATIONS);
+                new UserMessage("CONTEXT:\n" + runbookContext + "\n\nUSER ISSUE: " + issue));
 
-            var response =
-                    chatClient
-                            .prompt()
-                            .messages(conversationHistory)
-                            .tools("healthCheck", "searchElfLogs")
-                            .call()
-                            .chatResponse();
+        // --- 3. EXECUTION LOOP (model cascade, cheapest tier first) ---
+        List<String> tiers = config.modelTiers();
+        List<String> alertHeaders =
+                Stream.concat(relevantDocs.stream(), upstreamDocs.stream())
+                        .flatMap(doc -> RunbookAlertParser.headers(doc.getText()).stream())
+                        .distinct()
+                        .toList();
+        int tier = 0;
+        int turnsOnTier = 0;
+
+        while (true) {
+            String model = tiers.get(tier);
+            boolean lastTier = tier == tiers.size() - 1;
+            if (turnsOnTier == MAX_ITERATIONS) {
+                if (lastTier) break;
+                escalate(
+                        conversationHistory,
+                        model,
+                        tiers.get(++tier),
+                        new ModelCascade.Escalation(
+                                ModelCascade.Reason.NO_REPORT,
+                                "no final report after " + MAX_ITERATIONS + " turns"));
+                turnsOnTier = 0;
+                continue;
+            }
+            turnsOnTier++;
+            log.debug("--- Turn {}/{} on {} ---", turnsOnTier, MAX_ITERATIONS, model);
+
+            ChatOptions options =
+                    AnthropicChatOptions.builder()
+                            .model(model)
+                            .temperature(config.temperature())
+                            .build();
+            String operation = "turn " + turnsOnTier + " on " + model;
+            // Admission by priority within the provider limits
+            ChatResponse response =
+                    llmScheduler.submit(
+                            priority,
+                            LlmScheduler.estimateTokens(conversationHistory),
+                            () -> turn(operation, model, conversationHistory, options));
 
             var assistantMessage = response.getResult().getOutput();
             conversationHistory.add(assistantMessage);
@@ -146,25 +466,40 @@ public class SreAgentService {
 
             // FIX: Robust JSON Extraction
             String potentialJson = extractJson(content);
-            if (potentialJson != null) {
-                try {
-                    AnalysisResponse partial =
-                            objectMapper.readValue(potentialJson, AnalysisResponse.class);
-                    // Inject citations and return
-                    return new AnalysisResponse(
-                            partial.failureType(),
-                            partial.rootCauseHypothesis(),
-                            partial.investigationQuery(),
-                            partial.evidence(),
-                            partial.responsibleTeam(),
-                            partial.remediationSteps(),
-                            partial.requiresEscalation(),
-                            citations);
-                } catch (JsonProcessingException e) {
-                    log.warn("JSON Parse Error on detected block: {}", e.getMessage());
-                    // Don't return fallback yet; let the agent try again or loop continues
-                }
+            if (potentialJson == null) {
+                continue;
+            }
+            AnalysisResponse report = null;
+            try {
+                report = objectMapper.readValue(potentialJson, AnalysisResponse.class);
+            } catch (JsonProcessingException e) {
+                log.warn("JSON Parse Error on detected block: {}", e.getMessage());
+            }
+
+            var escalation =
+                    modelCascade.check(report, alertHeaders, config.escalationConfidence());
+            if (escalation.isPresent() && !lastTier) {
+                escalate(conversationHistory, model, tiers.get(++tier), escalation.get());
+                turnsOnTier = 0;
+                continue;
+            }
+            if (report == null) {
+                // Last tier: let the agent try again until the turns run out
+                continue;
             }
+            modelCascade.recordCompletion(model);
+            // Inject citations; a doubtful answer from the strongest tier goes to a human
+            return new AnalysisResponse(
+                    report.failureType(),
+                    report.rootCauseHypothesis(),
+                    report.investigationQuery(),
+                    report.evidence(),
+                    report.responsibleTeam(),
+                    report.remediationSteps(),
+                    report.requiresEscalation() || escalation.isPresent(),
+                    withUpstreamCitations(citations, upstreamDocs, report.failureType()),
+                    report.confidence(),
+                    model);
         }
 
         return fallbackResponse(
@@ -173,7 +508,78 @@ public class SreAgentService {
                         + ") without producing valid JSON.");
     }
 
+    /** One agent turn, with timeout, retries and hedging against provider tail latency. */
+    private ChatResponse turn(
+            String operation, String model, List<Message> history, ChatOptions options) {
+        long start = System.nanoTime();
+        try {
+            return llmCaller.call(
+                    operation,
+                    () ->
+                            chatClient
+                                    .prompt()
+                                    .messages(history)
+                                    .options(options)
+                                    .tools(
+                                            "healthCheck",
+                                            "searchElfLogs",
+                                            "searchElfLogsStructured",
+                                            "browseElfLogs",
+                                            "getTrace")
+                                    .call()
+                                    .chatResponse());
+        } finally {
+            modelCascade.recordTurn(model, System.nanoTime() - start);
+        }
+    }
+
+    /** Cites an upstream service too when the report names one of its alerts. */
+    private static List<String> withUpstreamCitations(
+            List<String> citations, List<Document> upstreamDocs, String failureType) {
+        if (failureType == null || upstreamDocs.isEmpty()) {
+            return citations;
+        }
+        String reported = failureType.toLowerCase(Locale.ROOT);
+        List<String> cited = new ArrayList<>(citations);
+        for (Document doc : upstreamDocs) {
+            boolean named =
+                    RunbookAlertParser.headers(doc.getText()).stream()
+                            .anyMatch(h -> reported.contains(h.toLowerCase(Locale.ROOT)));
+            String service = doc.getMetadata().getOrDefault("service_name", "unknown").toString();
+            if (named && !cited.contains(service)) {
+                cited.add(service);
+            }
+        }
+        return cited;
+    }
+
+    /** Hands the conversation, tool observations included, to the next cascade tier. */
+    private void escalate(
+            List<Message> conversationHistory,
+            String from,
+            String to,
+            ModelCascade.Escalation escalation) {
+        modelCascade.recordEscalation(from, to, escalation);
+        conversationHistory.add(
+                new UserMessage(
+                        "Your report was not accepted: "
+                                + escalation.detail()
+                                + ". Re-check the runbook context and the evidence gathered so"
+                                + " far, call tools if needed, then output the Final Report."));
+    }
+
     private List<Document> retrieveContext(IncidentRequest request, AgentConfig config) {
+        // 0. Service-scoped retrieval is ranked in-process from the warmed-up cache
+        if (config.strictMetadataFiltering()) {
+            String serviceKey = request.serviceName().toLowerCase().trim().replace(" ", "-");
+            var cached =
+                    runbookCache.search(
+                            serviceKey, request.issue(), config.topK(), config.minScore());
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        }
+
         var requestBuilder = SearchRequest.builder().query(request.issue()).topK(config.topK());
 
         if (config.minScore() > 0) {
@@ -213,7 +619,7 @@ public class SreAgentService {
         return null;
     }
 
-    private AnalysisResponse fallbackResponse(String reason) {
+    static AnalysisResponse fallbackResponse(String reason) {
         return new AnalysisResponse(
                 "AGENT_FAILURE",
                 reason,
@@ -222,6 +628,8 @@ public class SreAgentService {
                 "SRE-OnCall",
                 List.of("Escalate to human operator."),
                 true,
-                List.of());
+                List.of(),
+                null,
+                null);
     }
 }
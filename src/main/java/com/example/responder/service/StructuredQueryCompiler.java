@@ -0,0 +1,188 @@
+package com.example.responder.service;
+
+import com.example.responder.tools.StructuredLogSearchTool;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PhraseQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TermRangeQuery;
+import org.apache.lucene.search.WildcardQuery;
+
+/**
+ * Compiles structured field/operator/value clauses straight into Lucene queries, analyzing values
+ * exactly like {@link EmbeddedLogEngine#toDocument} indexes them:
+ *
+ * <ul>
+ *   <li>Equality on a text field becomes a term or phrase query over the analyzed tokens; on a
+ *       keyword field it is an exact term.
+ *   <li>Ranges over integers use the {@link EmbeddedLogEngine#NUMERIC_SUFFIX} point field (true
+ *       numeric order); anything else falls back to a term range.
+ * </ul>
+ *
+ * Invalid input throws {@link IllegalArgumentException} with a message meant for the agent.
+ */
+public final class StructuredQueryCompiler {
+
+    private static final Pattern INTEGER = Pattern.compile("-?\\d{1,18}");
+    private static final Pattern WINDOW = Pattern.compile("(?i)\\s*(\\d+)\\s*([smhd])\\s*");
+
+    enum Op {
+        EQ("="),
+        NE("!="),
+        GT(">"),
+        GTE(">="),
+        LT("<"),
+        LTE("<="),
+        BETWEEN("between"),
+        CONTAINS("contains");
+
+        private final String symbol;
+
+        Op(String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Op parse(String op) {
+            String normalized = op == null ? "=" : op.trim().toLowerCase(Locale.ROOT);
+            for (Op candidate : values()) {
+                if (candidate.symbol.equals(normalized)
+                        || candidate.name().equalsIgnoreCase(normalized)) {
+                    return candidate;
+                }
+            }
+            if (normalized.equals("==")) return EQ;
+            throw new IllegalArgumentException(
+                    "Unknown operator '"
+                            + op
+                            + "'. Use one of "
+                            + Arrays.stream(values()).map(o -> o.symbol).toList());
+        }
+    }
+
+    private final EmbeddedLogEngine engine;
+
+    public StructuredQueryCompiler(EmbeddedLogEngine engine) {
+        this.engine = engine;
+    }
+
+    /** ANDs all clauses; "!=" clauses become MUST_NOT. */
+    public Query compile(List<StructuredLogSearchTool.Clause> clauses) {
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        boolean positive = false;
+        for (StructuredLogSearchTool.Clause clause : clauses) {
+            if (clause.field() == null || clause.field().isBlank()) {
+                throw new IllegalArgumentException("Every clause needs a field: " + clause);
+            }
+            if (clause.value() == null) {
+                throw new IllegalArgumentException("Every clause needs a value: " + clause);
+            }
+            Op op = Op.parse(clause.op());
+            if (op == Op.NE) {
+                query.add(
+                        match(clause.field().trim(), clause.value().trim()),
+                        BooleanClause.Occur.MUST_NOT);
+            } else {
+                query.add(compile(clause, op), BooleanClause.Occur.MUST);
+                positive = true;
+            }
+        }
+        if (!positive) {
+            query.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+        }
+        return query.build();
+    }
+
+    /** Restricts to the last {@code window} (e.g. "15m", "1h", "2d"); null if none is given. */
+    public Query timeWindow(String window) {
+        if (window == null || window.isBlank()) return null;
+        Matcher m = WINDOW.matcher(window);
+        if (!m.matches()) {
+            throw new IllegalArgumentException(
+                    "Unsupported timeWindow '" + window + "'. Use e.g. 30s, 15m, 1h or 2d");
+        }
+        long amount = Long.parseLong(m.group(1));
+        Duration duration =
+                switch (Character.toLowerCase(m.group(2).charAt(0))) {
+                    case 's' -> Duration.ofSeconds(amount);
+                    case 'm' -> Duration.ofMinutes(amount);
+                    case 'h' -> Duration.ofHours(amount);
+                    default -> Duration.ofDays(amount);
+                };
+        return LongPoint.newRangeQuery(
+                EmbeddedLogEngine.TIMESTAMP_FIELD,
+                System.currentTimeMillis() - duration.toMillis(),
+                Long.MAX_VALUE);
+    }
+
+    private Query compile(StructuredLogSearchTool.Clause clause, Op op) {
+        String field = clause.field().trim();
+        String value = clause.value().trim();
+        return switch (op) {
+            case EQ -> match(field, value);
+            case CONTAINS -> contains(field, value);
+            case GT -> range(field, value, null, false, true);
+            case GTE -> range(field, value, null, true, true);
+            case LT -> range(field, null, value, true, false);
+            case LTE -> range(field, null, value, true, true);
+            case BETWEEN -> {
+                if (clause.to() == null || clause.to().isBlank()) {
+                    throw new IllegalArgumentException("'between' needs both value and to");
+                }
+                yield range(field, value, clause.to().trim(), true, true);
+            }
+            case NE -> throw new IllegalStateException("handled by the caller");
+        };
+    }
+
+    private Query contains(String field, String value) {
+        if (!EmbeddedLogEngine.isTextField(field)) {
+            return new WildcardQuery(new Term(field, "*" + value + "*"));
+        }
+        // A word inside a dotted token ("java.lang.NullPointerException" is indexed as one term)
+        List<String> tokens = engine.tokens(field, value);
+        if (tokens.size() == 1) {
+            return new WildcardQuery(new Term(field, "*" + tokens.get(0) + "*"));
+        }
+        return match(field, value);
+    }
+
+    private Query match(String field, String value) {
+        if (!EmbeddedLogEngine.isTextField(field)) {
+            return new TermQuery(new Term(field, value));
+        }
+        List<String> tokens = engine.tokens(field, value);
+        if (tokens.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "Value '" + value + "' has no searchable terms for " + field);
+        }
+        if (tokens.size() == 1) {
+            return new TermQuery(new Term(field, tokens.get(0)));
+        }
+        return new PhraseQuery(field, tokens.toArray(String[]::new));
+    }
+
+    private static Query range(
+            String field, String lower, String upper, boolean includeLower, boolean includeUpper) {
+        boolean numeric =
+                (lower == null || INTEGER.matcher(lower).matches())
+                        && (upper == null || INTEGER.matcher(upper).matches());
+        if (numeric) {
+            long from = lower == null ? Long.MIN_VALUE : Long.parseLong(lower);
+            long to = upper == null ? Long.MAX_VALUE : Long.parseLong(upper);
+            if (lower != null && !includeLower) from = Math.addExact(from, 1);
+            if (upper != null && !includeUpper) to = Math.addExact(to, -1);
+            return LongPoint.newRangeQuery(field + EmbeddedLogEngine.NUMERIC_SUFFIX, from, to);
+        }
+        return TermRangeQuery.newStringRange(field, lower, upper, includeLower, includeUpper);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.responder.service;
+
+import com.example.responder.model.LogEvent;
+import com.example.responder.model.LogScenario;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.stream.DoubleStream;
+
+/**
+ * Turns a {@link LogScenario.Generator} into log events. Any slice of the event sequence can be
+ * generated independently (and deterministically), so several indexing threads can each produce
+ * their own batches without coordination.
+ */
+public class SyntheticLogGenerator {
+
+    private final LogScenario.Generator spec;
+    private final String[] services;
+    private final double[] serviceWeights;
+    private final double[] patternWeights;
+    private final long startMillis;
+    private final long spanMillis;
+
+    public SyntheticLogGenerator(LogScenario.Generator spec, long endMillis) {
+        if (spec.services().isEmpty() || spec.patterns().isEmpty()) {
+            throw new IllegalArgumentException("Generator needs at least one service and pattern");
+        }
+        this.spec = spec;
+        this.services = spec.services().keySet().toArray(String[]::new);
+        this.serviceWeights =
+                cumulative(spec.services().values().stream().mapToDouble(Double::doubleValue));
+        this.patternWeights =
+                cumulative(spec.patterns().stream().mapToDouble(LogScenario.Pattern::weight));
+        this.spanMillis = spec.spanMinutes() * 60_000;
+        this.startMillis = endMillis - spanMillis;
+    }
+
+    public long size() {
+        return spec.events();
+    }
+
+    /** Events {@code from} (inclusive) to {@code from + count}; the same slice always matches. */
+    public List<LogEvent> batch(long from, int count) {
+        SplittableRandom random = new SplittableRandom(spec.seed() ^ (from * 0x9E3779B97F4A7C15L));
+        List<LogEvent> events = new ArrayList<>(count);
+        for (long i = from; i < from + count; i++) {
+            LogScenario.Pattern pattern = spec.patterns().get(pick(patternWeights, random));
+            Map<String, String> fields = new HashMap<>(pattern.fields());
+            fields.put(LogEvent.SERVICE, services[pick(serviceWeights, random)]);
+            fields.put(LogEvent.TRACE_ID, "syn-" + Long.toHexString(i / spec.spansPerTrace()));
+            if (pattern.level() != null) {
+                fields.put(LogEvent.LEVEL, pattern.level());
+            }
+            if (pattern.statusCode() != null) {
+                fields.put(LogEvent.STATUS_CODE, pattern.statusCode());
+            }
+            if (pattern.message() != null) {
+                fields.put(LogEvent.MESSAGE, render(pattern.message(), random));
+            }
+            long timestamp = startMillis + (long) ((double) i / spec.events() * spanMillis);
+            events.add(new LogEvent(timestamp, fields));
+        }
+        return events;
+    }
+
+    private static String render(String message, SplittableRandom random) {
+        if (message.indexOf('{') < 0) {
+            return message;
+        }
+        return message.replace("{n}", Integer.toString(random.nextInt(10_000)))
+                .replace("{ms}", Integer.toString(1 + random.nextInt(3_000)));
+    }
+
+    private static double[] cumulative(DoubleStream weights) {
+        double[] sums = weights.toArray();
+        for (int i = 1; i < sums.length; i++) {
+            sums[i] += sums[i - 1];
+        }
+        return sums;
+    }
+
+    private static int pick(double[] cumulativeWeights, SplittableRandom random) {
+        double r = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (r < cumulativeWeights[i]) {
+                return i;
+            }
+        }
+        return cumulativeWeights.length - 1;
+    }
+}
@@ -1,27 +1,90 @@
 package com.example.responder.service;
 
+import com.example.responder.config.HealthPollerProperties;
+import com.example.responder.model.HealthStateChangedEvent;
+import java.time.Instant;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 @Service
 public class SystemStateService {
 
-    // Simulates our infrastructure (Service Name -> Is Healthy?)
+    private static final Logger log = LoggerFactory.getLogger(SystemStateService.class);
+
+    // Simulates our infrastructure (Service Name -> Is Healthy?). Driven by the chaos switch.
     private final Map<String, Boolean> serviceHealth = new ConcurrentHashMap<>();
 
-    public SystemStateService() {
+    // What we actually observed (fed by the HealthPoller and the chaos switch)
+    private final Map<String, HealthHistory> observedHealth = new ConcurrentHashMap<>();
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final int historySize;
+
+    public SystemStateService(
+            ApplicationEventPublisher eventPublisher, HealthPollerProperties properties) {
+        this.eventPublisher = eventPublisher;
+        this.historySize = properties.historySize();
         // Default: Everything is healthy on startup
         serviceHealth.put("payment-service", true);
         serviceHealth.put("inventory-service", true);
     }
 
+    /** O(1) read of the latest observed state; never probes on the caller's thread. */
     public boolean isHealthy(String serviceName) {
+        String key = normalize(serviceName);
+        HealthHistory history = observedHealth.get(key);
+        if (history != null && !history.isEmpty()) {
+            return history.latestHealthy();
+        }
         // Default to true if we don't know the service
-        return serviceHealth.getOrDefault(serviceName.toLowerCase().replace(" ", "-"), true);
+        return serviceHealth.getOrDefault(key, true);
+    }
+
+    /** Ground truth of the simulated infrastructure, used by the poller's simulated probe. */
+    public boolean isSimulatedHealthy(String serviceName) {
+        return serviceHealth.getOrDefault(normalize(serviceName), true);
     }
 
     public void setHealth(String serviceName, boolean healthy) {
-        serviceHealth.put(serviceName.toLowerCase().replace(" ", "-"), healthy);
+        serviceHealth.put(normalize(serviceName), healthy);
+        // Chaos flips are visible immediately, without waiting for the next poll
+        recordProbe(serviceName, healthy, 0);
+    }
+
+    /** Appends a probe result to the service history and publishes an event on state change. */
+    public void recordProbe(String serviceName, boolean healthy, int latencyMillis) {
+        String key = normalize(serviceName);
+        long now = System.currentTimeMillis();
+        HealthHistory history =
+                observedHealth.computeIfAbsent(key, k -> new HealthHistory(historySize));
+        Boolean previous = history.record(healthy, latencyMillis, now);
+
+        if (previous != null && previous != healthy) {
+            log.info(">>> HEALTH CHANGE: '{}' is now {}", key, healthy ? "UP" : "DOWN");
+            eventPublisher.publishEvent(
+                    new HealthStateChangedEvent(
+                            key, previous, healthy, latencyMillis, Instant.ofEpochMilli(now)));
+        }
+    }
+
+    /** Returns the probe history for a service, or null if it was never observed. */
+    public HealthHistory getHistory(String serviceName) {
+        return observedHealth.get(normalize(serviceName));
+    }
+
+    public Set<String> knownServices() {
+        Set<String> services = new TreeSet<>(serviceHealth.keySet());
+        services.addAll(observedHealth.keySet());
+        return services;
+    }
+
+    private static String normalize(String serviceName) {
+        return serviceName.toLowerCase().replace(" ", "-");
     }
 }
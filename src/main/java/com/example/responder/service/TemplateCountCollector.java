@@ -0,0 +1,38 @@
+package com.example.responder.service;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.SimpleCollector;
+
+/** Counts matching documents per log template ID, reading only the template_id doc values. */
+final class TemplateCountCollector extends SimpleCollector {
+
+    private final Map<Integer, Long> counts = new HashMap<>();
+    private NumericDocValues templateIds;
+
+    @Override
+    protected void doSetNextReader(LeafReaderContext context) throws IOException {
+        templateIds = DocValues.getNumeric(context.reader(), EmbeddedLogEngine.TEMPLATE_FIELD);
+    }
+
+    @Override
+    public void collect(int doc) throws IOException {
+        if (templateIds.advanceExact(doc)) {
+            counts.merge((int) templateIds.longValue(), 1L, Long::sum);
+        }
+    }
+
+    @Override
+    public ScoreMode scoreMode() {
+        return ScoreMode.COMPLETE_NO_SCORES;
+    }
+
+    Map<Integer, Long> counts() {
+        return counts;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.responder.service;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Sliding-window counter backed by a ring of fixed-width time buckets. Adding and summing are
+ * O(buckets) at worst and allocation free, so hundreds of alerts can each keep one.
+ */
+public class WindowedCounter {
+
+    private final long bucketMillis;
+    private final long[] counts;
+    private final long[] bucketStarts; // Start time of the bucket currently held in each slot
+
+    public WindowedCounter(Duration bucketWidth, int buckets) {
+        this.bucketMillis = Math.max(1, bucketWidth.toMillis());
+        this.counts = new long[buckets];
+        this.bucketStarts = new long[buckets];
+    }
+
+    /** Covers {@code maxWindow} with buckets of {@code bucketWidth}. */
+    public static WindowedCounter covering(Duration maxWindow, Duration bucketWidth) {
+        long buckets = Math.max(1, maxWindow.toMillis() / Math.max(1, bucketWidth.toMillis()));
+        return new WindowedCounter(bucketWidth, (int) Math.min(buckets + 1, 10_000));
+    }
+
+    public synchronized void add(long timestampMillis, long amount) {
+        if (amount == 0) return;
+        long start = bucketStart(timestampMillis);
+        int slot = (int) Math.floorMod(start / bucketMillis, (long) counts.length);
+        if (bucketStarts[slot] != start) {
+            // Slot still holds an expired bucket: recycle it
+            bucketStarts[slot] = start;
+            counts[slot] = 0;
+        }
+        counts[slot] += amount;
+    }
+
+    /** Sum of all buckets that overlap (now - window, now]. */
+    public synchronized long sum(long nowMillis, Duration window) {
+        long oldest = nowMillis - window.toMillis();
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            long start = bucketStarts[i];
+            if (counts[i] != 0 && start + bucketMillis > oldest && start <= nowMillis) {
+                total += counts[i];
+            }
+        }
+        return total;
+    }
+
+    /** Sum of the buckets whose start lies in [fromMillis, toMillis). */
+    public synchronized long sumRange(long fromMillis, long toMillis) {
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0 && bucketStarts[i] >= fromMillis && bucketStarts[i] < toMillis) {
+                total += counts[i];
+            }
+        }
+        return total;
+    }
+
+    /** Start of the bucket that contains the timestamp. */
+    public long bucketStart(long timestampMillis) {
+        return timestampMillis - Math.floorMod(timestampMillis, bucketMillis);
+    }
+
+    public long bucketMillis() {
+        return bucketMillis;
+    }
+
+    public synchronized void clear() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(bucketStarts, 0);
+    }
+}
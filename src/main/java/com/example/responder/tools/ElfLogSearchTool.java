@@ -18,10 +18,41 @@ public class ElfLogSearchTool
 
     public record Request(String query, String timeWindow) {}
 
+    /**
+     * A log template (message pattern) among the matches.
+     *
+     * @param templateId Stable ID assigned by the template miner.
+     * @param template Pattern with variable parts replaced by {@code <*>}.
+     * @param matchCount Matching lines with this template.
+     * @param example One concrete log line of this template.
+     */
+    public record TemplateCount(int templateId, String template, long matchCount, String example) {}
+
+    /**
+     * Current log rate compared against the service's recent history, from pre-aggregated counters
+     * (no second query).
+     *
+     * @param dimension What was compared, e.g. "payment-service log.level:ERROR".
+     * @param currentPerMinute Rate over the last 5 minutes.
+     * @param baselinePerMinute Mean rate over the preceding hour (5-minute windows).
+     * @param ratio currentPerMinute / baselinePerMinute.
+     * @param zScore Deviation of the current window from the baseline windows, in std devs.
+     * @param verdict NORMAL, ELEVATED, ANOMALOUS or NO_BASELINE.
+     */
+    public record Baseline(
+            String dimension,
+            double currentPerMinute,
+            double baselinePerMinute,
+            double ratio,
+            double zScore,
+            String verdict) {}
+
     public record Response(
             int matchCount,
             List<String> sampleTraceIds,
             List<String> affectedPods,
+            List<TemplateCount> topTemplates,
+            Baseline baseline,
             String summary) {}
 
     @Override
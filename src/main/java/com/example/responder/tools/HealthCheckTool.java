@@ -1,5 +1,6 @@
 package com.example.responder.tools;
 
+import com.example.responder.service.HealthHistory;
 import com.example.responder.service.SystemStateService; // Import this
 import java.util.function.Function;
 import org.slf4j.Logger;
@@ -18,20 +19,30 @@ public class HealthCheckTool
 
     public record Request(String serviceName) {}
 
-    public record Response(String status, String logs) {}
+    /**
+     * @param status 'UP' or 'DOWN' (latest observed state).
+     * @param logs Simulated crash/health log line.
+     * @param recentHistory Flap summary from the poller, e.g. "DOWN 3 of last 10 probes".
+     */
+    public record Response(String status, String logs, String recentHistory) {}
 
     @Override
     public Response apply(Request request) {
         log.info(">>> TOOL EXECUTION: Checking real-time health for '{}'", request.serviceName());
 
+        // In-memory read; the HealthPoller keeps this state fresh in the background
         boolean isUp = systemState.isHealthy(request.serviceName());
+        HealthHistory history = systemState.getHistory(request.serviceName());
+        String recentHistory = history != null ? history.summary() : "No probes recorded yet.";
 
         if (!isUp) {
             // Simulate a realistic crash log
             return new Response(
-                    "DOWN", "CRITICAL: Connection Refused. CPU 99%. OOMKilled event detected.");
+                    "DOWN",
+                    "CRITICAL: Connection Refused. CPU 99%. OOMKilled event detected.",
+                    recentHistory);
         }
 
-        return new Response("UP", "Service is healthy. Latency: 45ms. 200 OK.");
+        return new Response("UP", "Service is healthy. Latency: 45ms. 200 OK.", recentHistory);
     }
 }
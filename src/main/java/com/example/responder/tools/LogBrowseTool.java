@@ -0,0 +1,52 @@
+package com.example.responder.tools;
+
+import com.example.responder.service.EmbeddedLogEngine;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Pages through the raw log lines of a query, newest first. */
+public class LogBrowseTool implements Function<LogBrowseTool.Request, LogBrowseTool.Response> {
+
+    private static final Logger log = LoggerFactory.getLogger(LogBrowseTool.class);
+    // Keeps a single tool result small enough for the context window
+    private static final int MAX_PAGE_SIZE = 50;
+
+    private final EmbeddedLogEngine searchEngine;
+
+    public LogBrowseTool(EmbeddedLogEngine searchEngine) {
+        this.searchEngine = searchEngine;
+    }
+
+    /**
+     * @param query Lucene query string.
+     * @param cursor nextCursor of the previous page (null for the first page).
+     * @param pageSize Lines per page (at most 50).
+     * @param fields Fields to return per line (default: timestamp, service, level, status,
+     *     trace_id, message).
+     */
+    public record Request(String query, String cursor, Integer pageSize, List<String> fields) {}
+
+    /**
+     * @param hits Log lines, newest first, with only the requested fields.
+     * @param nextCursor Pass back to get the next page; null when there are no more matches.
+     * @param summary One-line description for the agent.
+     */
+    public record Response(List<Map<String, String>> hits, String nextCursor, String summary) {}
+
+    @Override
+    public Response apply(Request request) {
+        log.info(
+                ">>> TOOL EXECUTION: Browsing ELF Logs [{}] (cursor: {})",
+                request.query(),
+                request.cursor());
+        int pageSize =
+                request.pageSize() == null
+                        ? 20
+                        : Math.max(1, Math.min(request.pageSize(), MAX_PAGE_SIZE));
+        return searchEngine.searchPage(
+                request.query(), request.cursor(), pageSize, request.fields());
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.responder.tools;
+
+import com.example.responder.service.AlertRegistry;
+import com.example.responder.service.EmbeddedLogEngine;
+import com.example.responder.service.StructuredQueryCompiler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.Query;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Log search without Lucene syntax: the agent either references a runbook alert by ID (its query
+ * was compiled once at ingestion, see {@link AlertRegistry}) or passes field/operator/value
+ * clauses, or both. Nothing goes through the QueryParser, so there are no syntax errors to burn an
+ * agent turn on.
+ */
+public class StructuredLogSearchTool
+        implements Function<StructuredLogSearchTool.Request, ElfLogSearchTool.Response> {
+
+    private static final Logger log = LoggerFactory.getLogger(StructuredLogSearchTool.class);
+    private final EmbeddedLogEngine searchEngine;
+    private final AlertRegistry alertRegistry;
+    private final StructuredQueryCompiler compiler;
+
+    public StructuredLogSearchTool(EmbeddedLogEngine searchEngine, AlertRegistry alertRegistry) {
+        this.searchEngine = searchEngine;
+        this.alertRegistry = alertRegistry;
+        this.compiler = new StructuredQueryCompiler(searchEngine);
+    }
+
+    /**
+     * @param field ELF field, e.g. "log.level", "status_code", "application.name".
+     * @param op One of =, !=, >, >=, <, <=, between, contains.
+     * @param value Value to compare with (lower bound for "between").
+     * @param to Upper bound for "between", otherwise unused.
+     */
+    public record Clause(String field, String op, String value, String to) {}
+
+    /**
+     * @param alertId Runbook alert whose detection query to run (e.g. "payment-service_alert_1").
+     * @param clauses Extra conditions, all of which must match.
+     * @param timeWindow Only logs from this far back, e.g. "15m", "1h" (optional).
+     */
+    public record Request(String alertId, List<Clause> clauses, String timeWindow) {}
+
+    @Override
+    public ElfLogSearchTool.Response apply(Request request) {
+        log.info(
+                ">>> TOOL EXECUTION: Structured log search (alert: {}, clauses: {}, window: {})",
+                request.alertId(),
+                request.clauses(),
+                request.timeWindow());
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder();
+        List<String> description = new ArrayList<>();
+        try {
+            if (request.alertId() != null && !request.alertId().isBlank()) {
+                AlertRegistry.CompiledAlert alert = alertRegistry.get(request.alertId().trim());
+                if (alert == null) {
+                    return EmbeddedLogEngine.errorResponse(
+                            "Unknown alertId '"
+                                    + request.alertId()
+                                    + "'. Known alerts: "
+                                    + alertRegistry.all().stream()
+                                            .map(a -> a.alert().id())
+                                            .sorted()
+                                            .toList());
+                }
+                query.add(alert.query(), BooleanClause.Occur.MUST);
+                description.add(alert.alert().query());
+            }
+            List<Clause> clauses = request.clauses() != null ? request.clauses() : List.of();
+            if (!clauses.isEmpty()) {
+                Query compiled = compiler.compile(clauses);
+                query.add(compiled, BooleanClause.Occur.MUST);
+                description.add(compiled.toString());
+            }
+            Query window = compiler.timeWindow(request.timeWindow());
+            if (window != null) {
+                query.add(window, BooleanClause.Occur.FILTER);
+                description.add("last " + request.timeWindow().trim());
+            }
+        } catch (IllegalArgumentException e) {
+            return EmbeddedLogEngine.errorResponse("Clause Error: " + e.getMessage());
+        }
+
+        if (description.isEmpty()) {
+            return EmbeddedLogEngine.errorResponse(
+                    "Clause Error: provide an alertId, at least one clause, or both");
+        }
+        return searchEngine.executeSearch(query.build(), String.join(" AND ", description));
+    }
+}
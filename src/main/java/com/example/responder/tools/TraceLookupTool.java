@@ -0,0 +1,43 @@
+package com.example.responder.tools;
+
+import com.example.responder.service.EmbeddedLogEngine;
+import java.util.List;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class TraceLookupTool
+        implements Function<TraceLookupTool.Request, TraceLookupTool.Response> {
+
+    private static final Logger log = LoggerFactory.getLogger(TraceLookupTool.class);
+    private final EmbeddedLogEngine searchEngine;
+
+    public TraceLookupTool(EmbeddedLogEngine searchEngine) {
+        this.searchEngine = searchEngine;
+    }
+
+    public record Request(String traceId) {}
+
+    public record Event(
+            long timestamp, String service, String level, String statusCode, String message) {}
+
+    /**
+     * @param traceId The trace that was looked up.
+     * @param eventCount Number of events found (before truncation).
+     * @param services Services the trace passed through, in order of first appearance.
+     * @param events Events of the trace across all services, ordered by timestamp.
+     * @param summary One-line description for the agent.
+     */
+    public record Response(
+            String traceId,
+            int eventCount,
+            List<String> services,
+            List<Event> events,
+            String summary) {}
+
+    @Override
+    public Response apply(Request request) {
+        log.info(">>> TOOL EXECUTION: Fetching trace [{}]", request.traceId());
+        return searchEngine.getTrace(request.traceId());
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.responder.bench;
+
+import com.example.responder.service.LogTemplateMiner;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Template mining throughput of one miner shared by 1, 2, 4 and 8 ingest threads, over a mix of
+ * message shapes as produced by several services.
+ *
+ * <p>Run with: {@code ./gradlew test -Pbench --tests '*TemplateMinerBenchmarkTest'}
+ */
+@EnabledIfSystemProperty(named = "bench", matches = "true")
+class TemplateMinerBenchmarkTest {
+
+    private static final int MESSAGES = 2_000_000;
+    private static final int DISTINCT = 100_000;
+    private static final String[] SHAPES = {
+        "Request %d processed in %d ms",
+        "Cache key miss for SKU-%d. Fetching from DB after %d ms.",
+        "java.lang.NullPointerException at Processor.java:%d (attempt %d)",
+        "Payment %d declined by provider, retry %d scheduled",
+        "Connection pool exhausted: %d active, %d waiting",
+        "Shipment %d handed over to carrier in region eu-%d",
+        "User session %d expired after %d minutes of inactivity",
+        "Stock for item %d updated to %d units",
+    };
+
+    @Test
+    void measureThroughput() throws Exception {
+        StringBuilder report =
+                new StringBuilder(
+                        "\n>>> TEMPLATE MINER BENCHMARK ("
+                                + MESSAGES
+                                + " messages, "
+                                + Runtime.getRuntime().availableProcessors()
+                                + " CPUs)\n");
+        // Formatted up front, so the timing only covers mining
+        String[] messages = new String[DISTINCT];
+        for (int i = 0; i < DISTINCT; i++) {
+            messages[i] = String.format(SHAPES[i % SHAPES.length], i, i % 97);
+        }
+        run(messages, 1); // warm-up
+        for (int threads : new int[] {1, 2, 4, 8}) {
+            report.append(
+                            String.format(
+                                    "%d threads: %,10.0f messages/s",
+                                    threads, run(messages, threads)))
+                    .append('\n');
+        }
+        System.out.println(report);
+    }
+
+    private static double run(String[] messages, int threads) throws Exception {
+        LogTemplateMiner miner = new LogTemplateMiner();
+        long now = System.currentTimeMillis();
+        int perThread = MESSAGES / threads;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            long start = System.nanoTime();
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * perThread;
+                workers.add(
+                        pool.submit(
+                                () -> {
+                                    for (int i = offset; i < offset + perThread; i++) {
+                                        miner.assign(messages[i % DISTINCT], now);
+                                    }
+                                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            return perThread * threads / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
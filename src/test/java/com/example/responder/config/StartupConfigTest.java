@@ -0,0 +1,66 @@
+package com.example.responder.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.vectorstore.VectorStore;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.mock.env.MockEnvironment;
+
+class StartupConfigTest {
+
+    @Test
+    void heavyBeansBecomeLazyWhenEnabled() {
+        DefaultListableBeanFactory beanFactory = postProcess(environment(true));
+
+        assertThat(beanFactory.getBeanDefinition("embeddingModel").isLazyInit()).isTrue();
+        assertThat(beanFactory.getBeanDefinition("vectorStore").isLazyInit()).isTrue();
+        assertThat(beanFactory.getBeanDefinition("logEngine").isLazyInit()).isFalse();
+    }
+
+    @Test
+    void heavyBeansStayEagerByDefault() {
+        DefaultListableBeanFactory beanFactory = postProcess(environment(false));
+
+        assertThat(beanFactory.getBeanDefinition("embeddingModel").isLazyInit()).isFalse();
+        assertThat(beanFactory.getBeanDefinition("vectorStore").isLazyInit()).isFalse();
+    }
+
+    @Test
+    void aotBuildLeavesTheDecisionToStartup() {
+        // processAot refreshes the context with whatever profile the build uses
+        DefaultListableBeanFactory beanFactory =
+                postProcess(environment(true).withProperty("spring.aot.processing", "true"));
+
+        assertThat(beanFactory.getBeanDefinition("embeddingModel").isLazyInit()).isFalse();
+        assertThat(beanFactory.getBeanDefinition("vectorStore").isLazyInit()).isFalse();
+    }
+
+    private static MockEnvironment environment(boolean lazyHeavyBeans) {
+        return new MockEnvironment()
+                .withProperty(
+                        "responder.startup.lazy-heavy-beans", Boolean.toString(lazyHeavyBeans));
+    }
+
+    private static DefaultListableBeanFactory postProcess(MockEnvironment environment) {
+        DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+        beanFactory.registerBeanDefinition("embeddingModel", definition(EmbeddingModel.class));
+        beanFactory.registerBeanDefinition("vectorStore", definition(VectorStore.class));
+        beanFactory.registerBeanDefinition("logEngine", definition(Object.class));
+
+        BeanFactoryPostProcessor postProcessor = StartupConfig.lazyHeavyBeans();
+        ((EnvironmentAware) postProcessor).setEnvironment(environment);
+        postProcessor.postProcessBeanFactory(beanFactory);
+        return beanFactory;
+    }
+
+    private static RootBeanDefinition definition(Class<?> type) {
+        RootBeanDefinition definition = new RootBeanDefinition();
+        definition.setTargetType(type);
+        return definition;
+    }
+}
@@ -3,10 +3,12 @@ package com.example.responder;
 import com.example.responder.eval.EvaluationCase;
 import com.example.responder.eval.GoldenDatasetGenerator;
 import com.example.responder.eval.GradingResult;
+import com.example.responder.eval.StructuralGrader;
 import com.example.responder.model.AgentConfig;
 import com.example.responder.model.AnalysisResponse;
 import com.example.responder.model.IncidentRequest;
 import com.example.responder.service.EmbeddedLogEngine;
+import com.example.responder.service.LlmScheduler;
 import com.example.responder.service.SreAgentService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
@@ -19,37 +21,63 @@ import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.api.function.Executable;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.ai.anthropic.AnthropicChatOptions;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
 
 @SpringBootTest
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 public class AgentEvaluationTest {
 
+    // Judges run on the strongest cascade tier, independent of the tier that answered
+    private static final String JUDGE_MODEL =
+            AgentConfig.DEFAULT_MODEL_TIERS.get(AgentConfig.DEFAULT_MODEL_TIERS.size() - 1);
+
     @Autowired private SreAgentService agent;
     @Autowired private GoldenDatasetGenerator datasetGenerator;
     @Autowired private ChatClient.Builder clientBuilder;
     @Autowired private EmbeddedLogEngine logEngine;
     @Autowired private ObjectMapper objectMapper;
+    @Autowired private LlmScheduler llmScheduler;
 
     // Thread-safe list to hold results for the final report
     private final List<EvaluationReportEntry> reportEntries = new CopyOnWriteArrayList<>();
+    // Plans the structural check could not settle, judged together after all cases ran
+    private final List<PendingPlan> pendingPlans = new CopyOnWriteArrayList<>();
+    private final Map<String, GradingResult> planVerdicts = new ConcurrentHashMap<>();
+    // Wall time of the whole run and of grading alone (structural checks plus judge calls)
+    private final long startedAt = System.nanoTime();
+    private final AtomicLong gradingNanos = new AtomicLong();
+    private final AtomicInteger judgeCalls = new AtomicInteger();
 
     // --- 1. DATA LOADING ---
 
     Stream<EvaluationCase> provideGoldenData() throws IOException {
-        System.out.println(">>> GENERATING GOLDEN DATASET via LLM...");
+        System.out.println(">>> LOADING GOLDEN DATASET (generated via LLM on runbook changes)...");
         PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
         Resource[] resources = resolver.getResources("classpath:runbooks/*.md");
 
@@ -75,6 +103,7 @@ public class AgentEvaluationTest {
 
     // --- 2. MAIN TEST LOOP ---
 
+    @Order(1)
     @ParameterizedTest
     @MethodSource("provideGoldenData")
     void evaluateAgentQuality(EvaluationCase testCase) {
@@ -87,6 +116,7 @@ public class AgentEvaluationTest {
         GradingResult actionResult = new GradingResult(false, "N/A - Test Crashed");
         GradingResult planResult = new GradingResult(false, "N/A - Test Crashed");
         GradingResult precisionResult = new GradingResult(false, "N/A - Test Crashed");
+        boolean planPending = false;
         Exception capturedException = null;
 
         try {
@@ -101,13 +131,26 @@ public class AgentEvaluationTest {
                             new IncidentRequest(testCase.serviceName(), testCase.userIssue(), "1h"),
                             config);
 
-            // 2. ROBUST EVALUATION (LLM-as-a-Judge)
+            // 2. EVALUATION (structural first, LLM-as-a-Judge only on mismatch)
+            long gradingStart = System.nanoTime();
             actionResult =
                     evaluateActionSemantics(
                             testCase.expectedLuceneQuery(), response.investigationQuery());
             planResult =
-                    evaluatePlanRecall(testCase.expectedRemediation(), response.remediationSteps());
+                    StructuralGrader.comparePlans(
+                            testCase.expectedRemediation(), response.remediationSteps());
+            if (!planResult.pass() && response.remediationSteps() != null) {
+                pendingPlans.add(
+                        new PendingPlan(
+                                testCase.id(),
+                                testCase.expectedRemediation(),
+                                response.remediationSteps()));
+                planResult =
+                        new GradingResult(false, "Pending batch judge. " + planResult.reasoning());
+                planPending = true;
+            }
             precisionResult = calculateRetrievalPrecision(testCase, response);
+            gradingNanos.addAndGet(System.nanoTime() - gradingStart);
 
         } catch (Exception e) {
             capturedException = e;
@@ -129,10 +172,11 @@ public class AgentEvaluationTest {
             Assertions.fail("Test Failed with Exception: " + capturedException.getMessage());
         }
 
-        // Final Assertions for JUnit
+        // Final Assertions for JUnit (plan recall is asserted by evaluatePlanRecall)
         GradingResult finalAction = actionResult;
         GradingResult finalPlan = planResult;
         GradingResult finalPrecision = precisionResult;
+        boolean finalPlanPending = planPending;
 
         Assertions.assertAll(
                 "Agent Performance Metrics",
@@ -141,33 +185,69 @@ public class AgentEvaluationTest {
                                 finalAction.pass(), "Action Fail: " + finalAction.reasoning()),
                 () ->
                         Assertions.assertTrue(
-                                finalPlan.pass(), "Plan Fail: " + finalPlan.reasoning()),
+                                finalPlan.pass() || finalPlanPending,
+                                "Plan Fail: " + finalPlan.reasoning()),
                 () ->
                         Assertions.assertTrue(
                                 finalPrecision.pass(),
                                 "Retrieval Fail: " + finalPrecision.reasoning()));
     }
 
-    // --- 3. ROBUST METRICS (LLM-as-a-Judge) ---
+    @Order(2)
+    @Test
+    void evaluatePlanRecall() {
+        if (pendingPlans.isEmpty()) {
+            return;
+        }
+        long gradingStart = System.nanoTime();
+        planVerdicts.putAll(judgePlanRecall(pendingPlans));
+        gradingNanos.addAndGet(System.nanoTime() - gradingStart);
+        List<Executable> checks = new ArrayList<>();
+        for (PendingPlan pending : pendingPlans) {
+            GradingResult verdict =
+                    planVerdicts.getOrDefault(
+                            pending.caseId(), new GradingResult(false, "No verdict"));
+            String message = "Plan Fail (" + pending.caseId() + "): " + verdict.reasoning();
+            checks.add(() -> Assertions.assertTrue(verdict.pass(), message));
+        }
+        Assertions.assertAll("Plan Recall", checks);
+    }
+
+    // --- 3. METRICS (structural, LLM-as-a-Judge on mismatch) ---
 
     private GradingResult evaluateActionSemantics(String expectedQuery, String actualQuery) {
         if (actualQuery == null || actualQuery.isBlank()) {
             return new GradingResult(false, "Actual query is empty");
         }
+        GradingResult structural =
+                StructuralGrader.compareQueries(logEngine, expectedQuery, actualQuery);
+        if (structural.pass()) {
+            return structural;
+        }
 
         ChatClient judge = clientBuilder.build();
+        judgeCalls.incrementAndGet();
 
         // FIX: Define the JSON format as a variable to avoid template parsing errors
         String jsonFormat = "{ \"pass\": boolean, \"reasoning\": \"string\" }";
 
-        return judge.prompt()
-                .system(
-                        "You are a Search Query Syntax Expert. Compare two queries for SEMANTIC"
-                                + " equivalence.")
-                .user(
-                        u ->
-                                u.text(
-                                                """
+        return llmScheduler.submit(
+                LlmScheduler.BATCH,
+                LlmScheduler.estimateTokens(expectedQuery + actualQuery),
+                () ->
+                        judge.prompt()
+                                .options(
+                                        AnthropicChatOptions.builder()
+                                                .model(JUDGE_MODEL)
+                                                .temperature(0.0)
+                                                .build())
+                                .system(
+                                        "You are a Search Query Syntax Expert. Compare two"
+                                                + " queries for SEMANTIC equivalence.")
+                                .user(
+                                        u ->
+                                                u.text(
+                                                                """
                         EXPECTED QUERY: {expected}
                         ACTUAL QUERY:   {actual}
 
@@ -178,53 +258,75 @@ public class AgentEvaluationTest {
                         - The LOGIC (AND/OR) and VALUES must match.
 
                         Respond with valid JSON: {jsonFormat}
-                        """)
-                                        .param("expected", expectedQuery)
-                                        .param("actual", actualQuery)
-                                        .param("jsonFormat", jsonFormat)) // Pass the schema here
-                .call()
-                .entity(GradingResult.class);
+                                        """)
+                                                        .param("expected", expectedQuery)
+                                                        .param("actual", actualQuery)
+                                                        .param(
+                                                                "jsonFormat",
+                                                                jsonFormat)) // Pass the schema here
+                                .call()
+                                .entity(GradingResult.class));
     }
 
-    private GradingResult evaluatePlanRecall(List<String> expectedSteps, List<String> actualSteps) {
-        if (actualSteps == null || actualSteps.isEmpty()) {
-            return new GradingResult(false, "Actual plan is empty");
+    /** One judge call for every plan the structural check could not settle. */
+    private Map<String, GradingResult> judgePlanRecall(List<PendingPlan> plans) {
+        StringBuilder cases = new StringBuilder();
+        for (PendingPlan plan : plans) {
+            cases.append("=== CASE ")
+                    .append(plan.caseId())
+                    .append(" ===\nGROUND TRUTH STEPS:\n")
+                    .append(String.join("\n", plan.expected()))
+                    .append("\n\nAGENT GENERATED STEPS:\n")
+                    .append(String.join("\n", plan.actual()))
+                    .append("\n\n");
         }
 
-        String expectedStr = String.join("\n", expectedSteps);
-        String actualStr = String.join("\n", actualSteps);
-
         // FIX: Define the JSON format as a variable
-        String jsonFormat = "{ \"pass\": boolean, \"reasoning\": \"string\" }";
+        String jsonFormat =
+                "[ { \"caseId\": \"string\", \"pass\": boolean, \"reasoning\": \"string\" } ]";
 
         ChatClient judge = clientBuilder.build();
-        return judge.prompt()
-                .system(
-                        "You are a Senior QA Auditor. Verify that the remediation plan covers all"
-                                + " required actions.")
-                .user(
-                        u ->
-                                u.text(
-                                                """
-                        GROUND TRUTH STEPS:
-                        {expected}
-
-                        AGENT GENERATED STEPS:
-                        {actual}
-
+        judgeCalls.incrementAndGet();
+        List<PlanVerdict> verdicts =
+                llmScheduler.submit(
+                        LlmScheduler.BATCH,
+                        LlmScheduler.estimateTokens(cases.toString()),
+                        () ->
+                                judge.prompt()
+                                        .options(
+                                                AnthropicChatOptions.builder()
+                                                        .model(JUDGE_MODEL)
+                                                        .temperature(0.0)
+                                                        .maxTokens(4000)
+                                                        .build())
+                                        .system(
+                                                "You are a Senior QA Auditor. Verify that each"
+                                                        + " remediation plan covers all required"
+                                                        + " actions.")
+                                        .user(
+                                                u ->
+                                                        u.text(
+                                                                        """
+                        {cases}
                         TASK:
-                        Calculate the "Recall" of key facts.
+                        For EACH case above, calculate the "Recall" of key facts.
                         1. Does the Agent's plan include ALL critical actions mentioned in the Ground Truth?
                         2. It is acceptable if the Agent rephrases steps, provided the meaning is preserved.
                         3. Fail ONLY if a critical step (e.g. "Flush Redis", "Restart Pod") is completely missing or wrong.
-
-                        Respond with valid JSON: {jsonFormat}
-                        """)
-                                        .param("expected", expectedStr)
-                                        .param("actual", actualStr)
-                                        .param("jsonFormat", jsonFormat)) // Pass the schema here
-                .call()
-                .entity(GradingResult.class);
+                        Judge every case independently of the others.
+
+                        Respond with a valid JSON array, one element per case: {jsonFormat}
+                                        """)
+                                                                .param("cases", cases.toString())
+                                                                .param("jsonFormat", jsonFormat))
+                                        .call()
+                                        .entity(new ParameterizedTypeReference<>() {}));
+
+        Map<String, GradingResult> byCase = new ConcurrentHashMap<>();
+        for (PlanVerdict verdict : verdicts) {
+            byCase.put(verdict.caseId(), new GradingResult(verdict.pass(), verdict.reasoning()));
+        }
+        return byCase;
     }
 
     private GradingResult calculateRetrievalPrecision(
@@ -270,7 +372,14 @@ public class AgentEvaluationTest {
         sb.append("Timestamp: ").append(timestamp).append("\n");
         sb.append("Total Cases: ").append(reportEntries.size()).append("\n");
         long failCount = reportEntries.stream().filter(e -> e.exception() != null).count();
-        sb.append("Crashes: ").append(failCount).append("\n\n");
+        sb.append("Crashes: ").append(failCount).append("\n");
+        sb.append(
+                String.format(
+                        Locale.ROOT,
+                        "Wall Time: %.1fs (grading %.1fs, %d judge calls)%n%n",
+                        (System.nanoTime() - startedAt) / 1e9,
+                        gradingNanos.get() / 1e9,
+                        judgeCalls.get()));
 
         for (EvaluationReportEntry entry : reportEntries) {
             try {
@@ -298,6 +407,7 @@ public class AgentEvaluationTest {
         EvaluationCase tc = entry.testCase();
         AnalysisResponse ar = entry.agentResponse();
         AgentConfig cfg = entry.config();
+        GradingResult plan = planVerdicts.getOrDefault(tc.id(), entry.faithfulness());
 
         String crashInfo = "";
         if (entry.exception() != null) {
@@ -338,6 +448,7 @@ public class AgentEvaluationTest {
                Remediation: %s
 
                [ACTUAL]
+               Model: %s
                Lucene Query: %s
                Evidence Keys: %s
                Remediation: %s
@@ -359,6 +470,7 @@ public class AgentEvaluationTest {
                         tc.userIssue(),
                         tc.expectedLuceneQuery(),
                         tc.expectedRemediation(),
+                        ar != null ? ar.model() : "NULL",
                         actualQuery,
                         evidence,
                         remediation,
@@ -366,12 +478,16 @@ public class AgentEvaluationTest {
                         entry.precision().reasoning(),
                         entry.action().pass() ? "PASS" : "FAIL",
                         entry.action().reasoning(),
-                        entry.faithfulness().pass() ? "PASS" : "FAIL",
-                        entry.faithfulness().reasoning(),
+                        plan.pass() ? "PASS" : "FAIL",
+                        plan.reasoning(),
                         crashInfo,
                         rawJson);
     }
 
+    private record PendingPlan(String caseId, List<String> expected, List<String> actual) {}
+
+    private record PlanVerdict(String caseId, boolean pass, String reasoning) {}
+
     private record EvaluationReportEntry(
             EvaluationCase testCase,
             AnalysisResponse agentResponse,
@@ -1,17 +1,73 @@
 package com.example.responder.eval;
 
+import com.example.responder.service.LlmScheduler;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.ai.anthropic.AnthropicChatOptions;
 import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.stereotype.Component;
 
+/**
+ * Generates evaluation cases from a runbook with the LLM. Generated cases are cached on disk under
+ * {@code build/golden-dataset}, keyed by a hash of the runbook content and the prompt, so only
+ * changed runbooks are regenerated (delete the directory to force a full regeneration).
+ */
 @Component
 public class GoldenDatasetGenerator {
 
+    private static final Logger log = LoggerFactory.getLogger(GoldenDatasetGenerator.class);
+
+    private static final Path CACHE_DIR = Path.of("build", "golden-dataset");
+
+    // Part of the cache key: changing the prompt regenerates every dataset
+    private static final String PROMPT =
+            """
+            Analyze the following Runbook Markdown for the service: {serviceName}
+
+            CONTENT:
+            {content}
+
+            ---------------------------------------------------------
+            TASK:
+            Generate a list of realistic 'User Incident Reports' based on the specific Alerts defined in the content.
+
+            OUTPUT JSON FIELDS:
+            1. 'id': Generate a short code (e.g. "{serviceName}-001").
+            2. 'serviceName': Set this exactly to "{serviceName}".
+            3. 'userIssue': A vague but urgent message a human would type.
+            4. 'expectedAlertHeader': The specific Name of the alert (extract the text from the header, excluding '##' markers and the 'Alert:' prefix).
+            5. 'expectedLuceneQuery': Extract the lucene query. CRITICAL: Remove all newlines and ensure it is a single line of text."
+            6. 'expectedRemediation': A JSON List of strings. Extract steps from 'Remediation'.
+
+            CRITICAL JSON FORMATTING RULES:
+            - You must output VALID JSON.
+            - Do NOT use double quotes (") inside any string value.
+            - REQUIRED: Replace all internal double quotes with single quotes (').
+
+            EXAMPLE:
+            BAD:  "Check "UP" status"
+            GOOD: "Check 'UP' status"
+            """;
+
     private final ChatClient chatClient;
+    private final LlmScheduler llmScheduler;
+    private final ObjectMapper objectMapper;
 
-    public GoldenDatasetGenerator(ChatClient.Builder builder) {
+    public GoldenDatasetGenerator(
+            ChatClient.Builder builder, LlmScheduler llmScheduler, ObjectMapper objectMapper) {
+        this.llmScheduler = llmScheduler;
+        this.objectMapper = objectMapper;
         this.chatClient =
                 builder.defaultSystem(
                                 "You are a QA Engineer responsible for generating test data from"
@@ -26,39 +82,51 @@ public class GoldenDatasetGenerator {
 
     public List<EvaluationCase> generateTestCases(String markdownContent, String serviceName) {
         String safeContent = markdownContent.replace("\"", "'");
+        Path cached =
+                CACHE_DIR.resolve(
+                        serviceName + "-" + hash(serviceName, safeContent, PROMPT) + ".json");
+        if (Files.exists(cached)) {
+            try {
+                return objectMapper.readValue(
+                        cached.toFile(), new TypeReference<List<EvaluationCase>>() {});
+            } catch (IOException e) {
+                log.warn(">>> EVAL: Ignoring unreadable golden dataset cache {}", cached, e);
+            }
+        }
+
+        List<EvaluationCase> cases =
+                llmScheduler.submit(
+                        LlmScheduler.BATCH,
+                        LlmScheduler.estimateTokens(safeContent),
+                        () -> generate(safeContent, serviceName));
+        try {
+            Files.createDirectories(CACHE_DIR);
+            objectMapper.writeValue(cached.toFile(), cases);
+        } catch (IOException e) {
+            log.warn(">>> EVAL: Could not cache golden dataset: {}", e.getMessage());
+        }
+        return cases;
+    }
+
+    private static String hash(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest()).substring(0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 
+    private List<EvaluationCase> generate(String safeContent, String serviceName) {
         return chatClient
                 .prompt()
                 .user(
                         u ->
-                                u.text(
-                                                """
-                        Analyze the following Runbook Markdown for the service: {serviceName}
-
-                        CONTENT:
-                        {content}
-
-                        ---------------------------------------------------------
-                        TASK:
-                        Generate a list of realistic 'User Incident Reports' based on the specific Alerts defined in the content.
-
-                        OUTPUT JSON FIELDS:
-                        1. 'id': Generate a short code (e.g. "{serviceName}-001").
-                        2. 'serviceName': Set this exactly to "{serviceName}".
-                        3. 'userIssue': A vague but urgent message a human would type.
-                        4. 'expectedAlertHeader': The specific Name of the alert (extract the text from the header, excluding '##' markers and the 'Alert:' prefix).
-                        5. 'expectedLuceneQuery': Extract the lucene query. CRITICAL: Remove all newlines and ensure it is a single line of text."
-                        6. 'expectedRemediation': A JSON List of strings. Extract steps from 'Remediation'.
-
-                        CRITICAL JSON FORMATTING RULES:
-                        - You must output VALID JSON.
-                        - Do NOT use double quotes (") inside any string value.
-                        - REQUIRED: Replace all internal double quotes with single quotes (').
-
-                        EXAMPLE:
-                        BAD:  "Check "UP" status"
-                        GOOD: "Check 'UP' status"
-                        """)
+                                u.text(PROMPT)
                                         .param("serviceName", serviceName)
                                         .param("content", safeContent))
                 .call()
@@ -0,0 +1,155 @@
+package com.example.responder.eval;
+
+import com.example.responder.service.EmbeddedLogEngine;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanClause.Occur;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.Query;
+
+/**
+ * Deterministic graders that settle most evaluation checks without an LLM judge. A pass here is
+ * final; anything else goes to the judge, which also accepts paraphrases these checks cannot see.
+ */
+public final class StructuralGrader {
+
+    // 'value' is not Lucene syntax; the judge used to accept it as "quoting style"
+    private static final Pattern SINGLE_QUOTED = Pattern.compile("(^|[\\s:(])'([^']*)'");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{Alnum}]+");
+    private static final Set<String> STOP_WORDS =
+            Set.of("that", "this", "with", "from", "into", "then", "check", "ensure", "verify");
+    private static final Pattern NEGATION =
+            Pattern.compile("(?i)\\b(not|no|never|avoid|without|skip)\\b|n['’]t\\b");
+    // Share of an expected step's words the plan must contain for the step to count as covered
+    private static final double MIN_STEP_COVERAGE = 0.6;
+
+    private StructuralGrader() {}
+
+    /**
+     * Parses both queries with the engine's parser and compares the normalized query trees, so
+     * whitespace, quote style, clause order and redundant grouping do not matter.
+     */
+    public static GradingResult compareQueries(
+            EmbeddedLogEngine engine, String expected, String actual) {
+        Query expectedQuery;
+        Query actualQuery;
+        try {
+            expectedQuery = normalize(engine.parseQuery(requote(expected)));
+            actualQuery = normalize(engine.parseQuery(requote(actual)));
+        } catch (Exception e) {
+            return new GradingResult(false, "Not parseable: " + e.getMessage());
+        }
+        if (expectedQuery.equals(actualQuery)) {
+            return new GradingResult(true, "Structurally equivalent: " + actualQuery);
+        }
+        return new GradingResult(
+                false, "Structural mismatch: " + expectedQuery + " vs " + actualQuery);
+    }
+
+    /**
+     * Canonical form of a query: nested conjunctions (and pure disjunctions) are flattened and
+     * single-clause groups unwrapped. BooleanQuery equality already ignores clause order.
+     */
+    static Query normalize(Query query) {
+        if (query instanceof BoostQuery boost) {
+            return new BoostQuery(normalize(boost.getQuery()), boost.getBoost());
+        }
+        if (!(query instanceof BooleanQuery bool)) {
+            return query;
+        }
+        boolean parentRequires = bool.clauses().stream().anyMatch(BooleanClause::isRequired);
+        List<BooleanClause> clauses = new ArrayList<>();
+        for (BooleanClause clause : bool.clauses()) {
+            Query sub = normalize(clause.getQuery());
+            if (sub instanceof BooleanQuery nested
+                    && inlinable(clause.getOccur(), parentRequires, bool, nested)) {
+                clauses.addAll(nested.clauses());
+            } else {
+                clauses.add(new BooleanClause(sub, clause.getOccur()));
+            }
+        }
+        if (clauses.size() == 1
+                && bool.getMinimumNumberShouldMatch() == 0
+                && clauses.get(0).getOccur() != Occur.MUST_NOT) {
+            return clauses.get(0).getQuery();
+        }
+        BooleanQuery.Builder builder =
+                new BooleanQuery.Builder()
+                        .setMinimumNumberShouldMatch(bool.getMinimumNumberShouldMatch());
+        clauses.forEach(builder::add);
+        return builder.build();
+    }
+
+    private static boolean inlinable(
+            Occur occur, boolean parentRequires, BooleanQuery parent, BooleanQuery nested) {
+        if (nested.getMinimumNumberShouldMatch() != 0) {
+            return false;
+        }
+        List<BooleanClause> clauses = nested.clauses();
+        if (occur == Occur.MUST || occur == Occur.FILTER) {
+            // +(+a -b) is +a -b, as long as the group has no optional clauses and is not all-NOT
+            return clauses.stream().noneMatch(c -> c.getOccur() == Occur.SHOULD)
+                    && clauses.stream().anyMatch(c -> !c.isProhibited());
+        }
+        // (a (b c)) is (a b c) when nothing in the parent is required
+        return occur == Occur.SHOULD
+                && !parentRequires
+                && parent.getMinimumNumberShouldMatch() == 0
+                && clauses.stream().allMatch(c -> c.getOccur() == Occur.SHOULD);
+    }
+
+    private static String requote(String query) {
+        return SINGLE_QUOTED.matcher(query).replaceAll("$1\"$2\"");
+    }
+
+    /**
+     * Passes when every expected step is covered by one step of the plan: that step contains most
+     * of the expected step's content words (compared by prefix, so "restarting" covers "restart")
+     * and does not negate it ("Do not restart..."). Words are not pooled across steps. Rephrased
+     * plans fail here and go to the judge.
+     */
+    public static GradingResult comparePlans(List<String> expected, List<String> actual) {
+        if (actual == null || actual.isEmpty()) {
+            return new GradingResult(false, "Actual plan is empty");
+        }
+        List<String> uncovered = new ArrayList<>();
+        for (String step : expected) {
+            if (actual.stream().noneMatch(candidate -> covers(candidate, step))) {
+                uncovered.add(step);
+            }
+        }
+        return uncovered.isEmpty()
+                ? new GradingResult(true, "All expected steps covered")
+                : new GradingResult(false, "Not covered verbatim: " + uncovered);
+    }
+
+    private static boolean covers(String candidate, String step) {
+        if (negated(candidate) && !negated(step)) {
+            return false;
+        }
+        List<String> words = contentWords(step);
+        Set<String> candidateWords = new HashSet<>(contentWords(candidate));
+        long covered = words.stream().filter(candidateWords::contains).count();
+        return covered >= MIN_STEP_COVERAGE * words.size();
+    }
+
+    private static boolean negated(String text) {
+        return NEGATION.matcher(text).find();
+    }
+
+    private static List<String> contentWords(String text) {
+        List<String> words = new ArrayList<>();
+        for (String word : NON_WORD.split(text.toLowerCase(Locale.ROOT))) {
+            if (word.length() >= 4 && !STOP_WORDS.contains(word)) {
+                words.add(word.length() > 6 ? word.substring(0, 6) : word);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.responder.eval;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.responder.service.EmbeddedLogEngine;
+import com.example.responder.service.TestLogEngines;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class StructuralGraderTest {
+
+    private static final String DB_TIMEOUT =
+            "application.name:\"inventory-service\" AND log.message:\"Connection check failed\""
+                    + " AND db.type:postgres";
+
+    private static EmbeddedLogEngine engine;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        engine = TestLogEngines.started();
+    }
+
+    @AfterAll
+    static void tearDown() throws Exception {
+        engine.close();
+    }
+
+    @Test
+    void quoteStyleClauseOrderAndGroupingDoNotMatter() {
+        assertEquivalent(
+                DB_TIMEOUT,
+                "db.type:postgres AND (log.message:'Connection check failed'"
+                        + " AND application.name:'inventory-service')");
+        assertEquivalent(
+                "application.name:\"payment-service\" AND status_code:[500 TO 599]",
+                "  status_code:[500 TO 599]   AND application.name:'payment-service' ");
+        assertEquivalent("timeout OR (deadlock OR refused)", "(refused OR timeout) OR deadlock");
+    }
+
+    @Test
+    void differentLogicOrValuesDoNotMatch() {
+        assertThat(pass(DB_TIMEOUT, DB_TIMEOUT.replace(" AND db.type", " OR db.type"))).isFalse();
+        assertThat(pass(DB_TIMEOUT, DB_TIMEOUT.replace("postgres", "mysql"))).isFalse();
+        assertThat(pass("timeout AND (deadlock OR refused)", "(timeout AND deadlock) OR refused"))
+                .isFalse();
+        assertThat(pass(DB_TIMEOUT, "application.name:(unbalanced")).isFalse();
+    }
+
+    @Test
+    void plansPassWhenEveryStepIsCoveredVerbatim() {
+        List<String> expected =
+                List.of("Restart the inventory pods", "Flush the Redis stock cache");
+
+        assertThat(
+                        StructuralGrader.comparePlans(
+                                        expected,
+                                        List.of(
+                                                "Flush Redis stock cache entries",
+                                                "Restarting inventory pods one by one"))
+                                .pass())
+                .isTrue();
+        GradingResult missing =
+                StructuralGrader.comparePlans(expected, List.of("Restart the inventory pods"));
+        assertThat(missing.pass()).isFalse();
+        assertThat(missing.reasoning()).contains("Flush the Redis stock cache");
+    }
+
+    @Test
+    void plansMustCoverEachStepInOneStepAndNotNegateIt() {
+        List<String> expected = List.of("Restart the inventory pods");
+
+        assertThat(
+                        StructuralGrader.comparePlans(
+                                        expected, List.of("Do NOT restart the inventory pods"))
+                                .pass())
+                .isFalse();
+        assertThat(
+                        StructuralGrader.comparePlans(
+                                        expected, List.of("Don't restart inventory pods yet"))
+                                .pass())
+                .isFalse();
+        // The words are all there, but spread over unrelated steps
+        assertThat(
+                        StructuralGrader.comparePlans(
+                                        expected,
+                                        List.of(
+                                                "Restart the payment gateway",
+                                                "Scale inventory workers",
+                                                "Delete stuck pods"))
+                                .pass())
+                .isFalse();
+        assertThat(
+                        StructuralGrader.comparePlans(
+                                        List.of("Do not restart the database"),
+                                        List.of("Do not restart the database during the incident"))
+                                .pass())
+                .isTrue();
+    }
+
+    private static void assertEquivalent(String expected, String actual) {
+        GradingResult result = StructuralGrader.compareQueries(engine, expected, actual);
+        assertThat(result.pass()).as(result.reasoning()).isTrue();
+    }
+
+    private static boolean pass(String expected, String actual) {
+        return StructuralGrader.compareQueries(engine, expected, actual).pass();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.responder.config.DetectionProperties;
+import com.example.responder.model.DetectedIncident;
+import com.example.responder.model.LogEvent;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class AlertPercolatorTest {
+
+    private static final String RUNBOOK =
+            """
+            # Service: Payment Service
+            ## Alert: Payment 5xx
+            **Time Period:** 1 hour
+            **Query:**
+            ```lucene
+            application.name:"payment-service" AND status_code:[500 TO 599]
+            ```
+            """;
+
+    private final List<Object> published = new ArrayList<>();
+
+    private EmbeddedLogEngine engine;
+    private DetectionEngine detectionEngine;
+    private AlertPercolator percolator;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        engine = TestLogEngines.started();
+        DetectionProperties properties =
+                new DetectionProperties(
+                        true,
+                        Duration.ofSeconds(5),
+                        Duration.ofHours(1),
+                        1,
+                        null,
+                        false,
+                        DetectionProperties.Mode.STREAMING);
+        AlertRegistry registry = new AlertRegistry(engine, properties);
+        registry.register("payment-service", RUNBOOK);
+        detectionEngine = new DetectionEngine(engine, registry, properties, published::add);
+        percolator = new AlertPercolator(engine, registry, detectionEngine, properties);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        engine.close();
+    }
+
+    @Test
+    void matchingEventOpensTheAlert() {
+        percolator.onEvents(List.of(event("payment-service", "ERROR", "503")));
+
+        assertThat(detectionEngine.openIncidents())
+                .extracting(DetectedIncident::alertId)
+                .containsExactly("payment-service_alert_1");
+        assertThat(published).hasSize(1);
+    }
+
+    @Test
+    void eventsMissingARequiredTermOpenNothing() {
+        percolator.onEvents(
+                List.of(
+                        event("payment-service", "INFO", "200"),
+                        event("payment-service", "WARN", "404"),
+                        event("inventory-service", "ERROR", "503")));
+
+        assertThat(detectionEngine.openIncidents()).isEmpty();
+        assertThat(published).isEmpty();
+    }
+
+    private static LogEvent event(String service, String level, String statusCode) {
+        return new LogEvent(
+                System.currentTimeMillis(),
+                Map.of(
+                        LogEvent.TYPE, "opentracing-log",
+                        LogEvent.SERVICE, service,
+                        LogEvent.LEVEL, level,
+                        LogEvent.STATUS_CODE, statusCode,
+                        LogEvent.MESSAGE, "request finished"));
+    }
+}
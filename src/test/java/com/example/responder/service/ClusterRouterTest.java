@@ -0,0 +1,312 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.responder.config.ClusterProperties;
+import com.example.responder.config.HealthPollerProperties;
+import com.example.responder.model.AnalysisResponse;
+import com.example.responder.model.IncidentRequest;
+import com.example.responder.model.LogEvent;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+class ClusterRouterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final List<ClusterRouter> routers = new ArrayList<>();
+    // What each stub node received: "<node> <path> forwardedBy=<header>"
+    private final List<String> received = new CopyOnWriteArrayList<>();
+    private final List<LogEvent> indexedByB = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        routers.forEach(ClusterRouter::stop);
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void incidentsOfAnotherOwnerAreAnalyzedThere() throws Exception {
+        HttpServer b = server();
+        String nodeA = "http://127.0.0.1:1"; // never contacted
+        String nodeB = url(b);
+        ClusterRouter routerA = router(nodeA, List.of(nodeA, nodeB), 128);
+        b.createContext("/api/incident", exchange -> answer(exchange, "B", analysis("by B")));
+
+        String remote = ownedBy(routerA, nodeB);
+        String local = ownedBy(routerA, nodeA);
+
+        assertThat(routerA.forwardAnalysis(request(remote), null))
+                .hasValueSatisfying(r -> assertThat(r.failureType()).isEqualTo("by B"));
+        assertThat(routerA.forwardAnalysis(request(local), null)).isEmpty();
+        assertThat(received).containsExactly("B /api/incident forwardedBy=" + nodeA);
+    }
+
+    @Test
+    void logEventsAreSplitByOwner() throws Exception {
+        HttpServer b = server();
+        String nodeA = "http://127.0.0.1:1";
+        String nodeB = url(b);
+        ClusterRouter routerA = router(nodeA, List.of(nodeA, nodeB), 128);
+        b.createContext(
+                "/api/logs",
+                exchange -> {
+                    indexedByB.addAll(
+                            objectMapper.readValue(
+                                    exchange.getRequestBody(),
+                                    new TypeReference<List<LogEvent>>() {}));
+                    answer(exchange, "B", "ok");
+                });
+
+        LogEvent remote = event(ownedBy(routerA, nodeB));
+        LogEvent local = event(ownedBy(routerA, nodeA));
+        LogEvent serviceless = new LogEvent(1, Map.of(LogEvent.MESSAGE, "no service"));
+
+        assertThat(routerA.forwardLogs(List.of(remote, local, serviceless), null))
+                .containsExactly(local, serviceless);
+        assertThat(indexedByB).containsExactly(remote);
+    }
+
+    @Test
+    void unreachableOwnerLeavesTheWorkHere() throws Exception {
+        HttpServer b = server();
+        String nodeA = "http://127.0.0.1:1";
+        String nodeB = url(b);
+        ClusterRouter routerA = router(nodeA, List.of(nodeA, nodeB), 128);
+        b.stop(0);
+
+        String remote = ownedBy(routerA, nodeB);
+        List<LogEvent> events = List.of(event(remote));
+
+        assertThat(routerA.forwardAnalysis(request(remote), null)).isEmpty();
+        assertThat(routerA.forwardLogs(events, null)).isEqualTo(events);
+    }
+
+    @Test
+    void ownerErrorsArePassedOnInsteadOfAnalyzingAgain() throws Exception {
+        HttpServer b = server();
+        String nodeA = "http://127.0.0.1:1";
+        String nodeB = url(b);
+        ClusterRouter routerA = router(nodeA, List.of(nodeA, nodeB), 128);
+        b.createContext(
+                "/api/incident",
+                exchange -> {
+                    byte[] bytes = "model overloaded".getBytes(StandardCharsets.UTF_8);
+                    exchange.sendResponseHeaders(503, bytes.length);
+                    exchange.getResponseBody().write(bytes);
+                    exchange.close();
+                });
+
+        assertThatThrownBy(() -> routerA.forwardAnalysis(request(ownedBy(routerA, nodeB)), null))
+                .isInstanceOfSatisfying(
+                        ResponseStatusException.class,
+                        e -> {
+                            assertThat(e.getStatusCode().value()).isEqualTo(503);
+                            assertThat(e.getReason()).isEqualTo("model overloaded");
+                        });
+        assertThat(routerA.status().down()).isEmpty();
+    }
+
+    @Test
+    void slowOwnerTimesOutWithoutLeavingTheRing() throws Exception {
+        // Handles requests on their own threads, so each forward waits only for its own answer
+        HttpServer b = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        b.setExecutor(Executors.newCachedThreadPool());
+        b.start();
+        servers.add(b);
+        String nodeA = "http://127.0.0.1:1";
+        String nodeB = url(b);
+        ClusterRouter routerA = router(nodeA, List.of(nodeA, nodeB), 128, Duration.ofMillis(100));
+        b.createContext(
+                "/api/incident",
+                exchange -> {
+                    try {
+                        Thread.sleep(500);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    answer(exchange, "B", analysis("by B"));
+                });
+        String remote = ownedBy(routerA, nodeB);
+
+        // More timeouts than the failure threshold, none of them taken for the owner being down
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> routerA.forwardAnalysis(request(remote), null))
+                    .isInstanceOfSatisfying(
+                            ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode().value()).isEqualTo(504));
+        }
+        assertThat(routerA.status().down()).isEmpty();
+        assertThat(routerA.ownerOf(remote)).isEqualTo(nodeB);
+    }
+
+    @Test
+    void forwardedRequestsAreNeverForwardedAgain() throws Exception {
+        HttpServer a = server();
+        HttpServer b = server();
+        String nodeA = url(a);
+        String nodeB = url(b);
+        // Different ring sizes stand in for two nodes whose views briefly disagree
+        ClusterRouter routerA = router(nodeA, List.of(nodeA, nodeB), 128);
+        ClusterRouter routerB = router(nodeB, List.of(nodeA, nodeB), 1);
+        serve(a, "A", routerA);
+        serve(b, "B", routerB);
+
+        String contested =
+                IntStream.range(0, 10_000)
+                        .mapToObj(i -> "service-" + i)
+                        .filter(s -> routerA.ownerOf(s).equals(nodeB))
+                        .filter(s -> routerB.ownerOf(s).equals(nodeA))
+                        .findFirst()
+                        .orElseThrow();
+
+        assertThat(routerA.forwardAnalysis(request(contested), null))
+                .hasValueSatisfying(r -> assertThat(r.failureType()).isEqualTo("by B"));
+        assertThat(routerA.forwardLogs(List.of(event(contested)), null)).isEmpty();
+        // B handled both although it considers A the owner
+        assertThat(received)
+                .containsExactly(
+                        "B /api/incident forwardedBy=" + nodeA, "B /api/logs forwardedBy=" + nodeA);
+        assertThat(indexedByB).hasSize(1);
+    }
+
+    /** A stub node that handles requests like the controllers: forward if not owned, else local. */
+    private void serve(HttpServer server, String node, ClusterRouter router) {
+        server.createContext(
+                "/api/incident",
+                exchange -> {
+                    IncidentRequest request =
+                            objectMapper.readValue(
+                                    exchange.getRequestBody(), IncidentRequest.class);
+                    Optional<AnalysisResponse> forwarded =
+                            router.forwardAnalysis(request, forwardedBy(exchange));
+                    answer(exchange, node, forwarded.orElse(analysis("by " + node)));
+                });
+        server.createContext(
+                "/api/logs",
+                exchange -> {
+                    List<LogEvent> events =
+                            objectMapper.readValue(
+                                    exchange.getRequestBody(),
+                                    new TypeReference<List<LogEvent>>() {});
+                    List<LogEvent> local = router.forwardLogs(events, forwardedBy(exchange));
+                    if (node.equals("B")) {
+                        indexedByB.addAll(local);
+                    }
+                    answer(exchange, node, "ok");
+                });
+    }
+
+    private void answer(HttpExchange exchange, String node, Object body) throws IOException {
+        received.add(
+                node
+                        + " "
+                        + exchange.getRequestURI().getPath()
+                        + " forwardedBy="
+                        + forwardedBy(exchange));
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+
+    private static String forwardedBy(HttpExchange exchange) {
+        return exchange.getRequestHeaders().getFirst(ClusterRouter.FORWARDED_HEADER);
+    }
+
+    private HttpServer server() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.start();
+        servers.add(server);
+        return server;
+    }
+
+    private static String url(HttpServer server) {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private ClusterRouter router(String self, List<String> members, int virtualNodes) {
+        return router(self, members, virtualNodes, Duration.ofSeconds(5));
+    }
+
+    private ClusterRouter router(
+            String self, List<String> members, int virtualNodes, Duration forwardTimeout) {
+        ClusterRouter router =
+                new ClusterRouter(
+                        new ClusterProperties(
+                                true,
+                                self,
+                                members,
+                                virtualNodes,
+                                Duration.ofHours(1), // no heartbeats during the test
+                                "/actuator/health/readiness",
+                                Duration.ofSeconds(1),
+                                3,
+                                forwardTimeout),
+                        new SystemStateService(
+                                event -> {},
+                                new HealthPollerProperties(
+                                        false,
+                                        Duration.ofSeconds(10),
+                                        Duration.ZERO,
+                                        1,
+                                        Duration.ofSeconds(1),
+                                        10,
+                                        null)),
+                        objectMapper,
+                        new SimpleMeterRegistry());
+        router.start();
+        routers.add(router);
+        return router;
+    }
+
+    private static String ownedBy(ClusterRouter router, String owner) {
+        return IntStream.range(0, 1_000)
+                .mapToObj(i -> "service-" + i)
+                .filter(s -> router.ownerOf(s).equals(owner))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static IncidentRequest request(String service) {
+        return new IncidentRequest(service, "errors are spiking", "1h");
+    }
+
+    private static LogEvent event(String service) {
+        return new LogEvent(
+                1, Map.of(LogEvent.SERVICE, service, LogEvent.MESSAGE, "connection refused"));
+    }
+
+    private static AnalysisResponse analysis(String failureType) {
+        return new AnalysisResponse(
+                failureType,
+                "hypothesis",
+                "log.level:ERROR",
+                Map.of(),
+                "SRE",
+                List.of("Restart"),
+                false,
+                List.of(),
+                0.9,
+                "claude-3-5-haiku-20241022");
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.responder.config.DependencyGraphProperties;
+import com.example.responder.model.LogEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+class DependencyGraphTest {
+
+    @TempDir Path tempDir;
+
+    private EmbeddedLogEngine engine;
+    private DependencyGraph graph;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        engine = TestLogEngines.started();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (graph != null) graph.stop();
+        engine.close();
+    }
+
+    @Test
+    void infersCallEdgesFromTraces() throws Exception {
+        ingestTraces(3, "edge-gateway", "edge-orders");
+        ingestTraces(3, "edge-orders", "edge-stock");
+        ingestTraces(1, "edge-gateway", "edge-audit");
+        graph = graph("file:" + tempDir.resolve("missing.json"));
+
+        graph.refresh();
+
+        assertThat(graph.dependenciesOf("edge-gateway")).containsExactly("edge-orders");
+        assertThat(graph.dependenciesOf("Edge Orders")).containsExactly("edge-stock");
+        // edge-audit was seen in one trace only, below the minimum support of 2
+        assertThat(graph.nearestDependencies("edge-gateway", 5))
+                .containsExactly("edge-orders", "edge-stock");
+        // A group only looks beyond its own members
+        assertThat(graph.nearestDependencies(List.of("edge-gateway", "Edge Orders"), 5))
+                .containsExactly("edge-stock");
+    }
+
+    @Test
+    void fanOutCalleesAreNotEachOthersDependencies() throws Exception {
+        // The gateway calls orders and stock side by side; either one may log first
+        ingestTraces(3, "edge-gateway", "edge-orders", "edge-stock");
+        ingestTraces(3, "edge-gateway", "edge-stock", "edge-orders");
+        graph = graph("file:" + tempDir.resolve("missing.json"));
+
+        graph.refresh();
+
+        assertThat(graph.dependenciesOf("edge-gateway"))
+                .containsExactly("edge-orders", "edge-stock");
+        assertThat(graph.dependenciesOf("edge-orders")).isEmpty();
+        assertThat(graph.dependenciesOf("edge-stock")).isEmpty();
+    }
+
+    @Test
+    void declaredEdgesRankBeforeInferredOnes() throws Exception {
+        ingestTraces(5, "edge-gateway", "edge-orders");
+        Path file = tempDir.resolve("dependencies.json");
+        Files.writeString(
+                file,
+                """
+                {"edge-gateway": ["edge-payments"], "edge-payments": ["edge-bank"]}
+                """);
+        graph = graph("file:" + file);
+
+        graph.refresh();
+
+        assertThat(graph.dependenciesOf("edge-gateway"))
+                .containsExactly("edge-payments", "edge-orders");
+        // Direct dependencies first, then transitive ones, capped at n
+        assertThat(graph.nearestDependencies("edge-gateway", 3))
+                .containsExactly("edge-payments", "edge-orders", "edge-bank");
+        assertThat(graph.nearestDependencies("edge-gateway", 1)).containsExactly("edge-payments");
+        assertThat(graph.nearestDependencies("edge-unknown", 2)).isEmpty();
+    }
+
+    private DependencyGraph graph(String file) {
+        return new DependencyGraph(
+                new DependencyGraphProperties(file, true, 10_000, 2, Duration.ofHours(1), 2),
+                engine,
+                new ObjectMapper(),
+                new DefaultResourceLoader());
+    }
+
+    /**
+     * Ingests {@code count} traces in which the first service calls the others; the services log in
+     * the given order.
+     */
+    private void ingestTraces(int count, String... services) throws Exception {
+        long now = System.currentTimeMillis();
+        List<LogEvent> events = new ArrayList<>();
+        for (int trace = 0; trace < count; trace++) {
+            String traceId = String.join("-", services) + "-" + trace;
+            for (int hop = 0; hop < services.length; hop++) {
+                events.add(
+                        new LogEvent(
+                                now + trace * 1_000L + hop * 10L,
+                                Map.of(
+                                        LogEvent.SERVICE,
+                                        services[hop],
+                                        LogEvent.TRACE_ID,
+                                        traceId,
+                                        LogEvent.LEVEL,
+                                        "INFO",
+                                        LogEvent.MESSAGE,
+                                        "hop " + hop)));
+            }
+        }
+        engine.ingest(events);
+    }
+}
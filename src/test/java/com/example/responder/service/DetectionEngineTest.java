@@ -0,0 +1,95 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.responder.config.DetectionProperties;
+import com.example.responder.model.DetectedIncident;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DetectionEngineTest {
+
+    private static final String RUNBOOK =
+            """
+            # Service: Payment Service
+            ## Alert: Payment Failures
+            **Time Period:** 1 hour
+            **Query:**
+            ```lucene
+            application.name:"payment-service" AND status_code:500
+            ```
+            """;
+    private static final String ALERT = "payment-service_alert_1";
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+
+    private final List<DetectedIncident> fired = new CopyOnWriteArrayList<>();
+
+    private EmbeddedLogEngine logEngine;
+    private DetectionEngine detection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        logEngine = TestLogEngines.started();
+        DetectionProperties properties =
+                new DetectionProperties(
+                        false,
+                        Duration.ofSeconds(5),
+                        Duration.ofHours(1),
+                        1,
+                        Map.of(),
+                        false,
+                        DetectionProperties.Mode.SCHEDULED);
+        AlertRegistry alerts = new AlertRegistry(logEngine, properties);
+        alerts.register("payment-service", RUNBOOK);
+        detection =
+                new DetectionEngine(
+                        logEngine,
+                        alerts,
+                        properties,
+                        event -> fired.add((DetectedIncident) event));
+    }
+
+    @Test
+    void incidentOpensOnceAndClosesAsTheWindowSlides() {
+        long now = System.currentTimeMillis();
+        detection.tick(now);
+        assertThat(openAlerts()).doesNotContain(ALERT);
+
+        logEngine.loadScenario("payment-500-npe");
+        detection.tick(now);
+        detection.tick(now + 1_000);
+        assertThat(openAlerts()).contains(ALERT);
+        assertThat(fired).filteredOn(i -> i.alertId().equals(ALERT)).hasSize(1);
+
+        // Nothing new was indexed, so the matches age out of the one hour window
+        detection.tick(now + HOUR + 60_000);
+        assertThat(openAlerts()).doesNotContain(ALERT);
+    }
+
+    @Test
+    void scenarioSwapClosesIncidentsOfTheReplacedLogs() {
+        long now = System.currentTimeMillis();
+        logEngine.loadScenario("payment-500-npe");
+        detection.tick(now);
+        assertThat(openAlerts()).contains(ALERT);
+
+        // Well within the window, but the errors are gone from the index
+        logEngine.loadScenario("healthy");
+        detection.tick(now + 1_000);
+        assertThat(openAlerts()).doesNotContain(ALERT);
+
+        // The next swap to a failing scenario is counted afresh and fires again
+        logEngine.loadScenario("payment-500-npe");
+        detection.tick(now + 2_000);
+        assertThat(openAlerts()).contains(ALERT);
+        assertThat(fired).filteredOn(i -> i.alertId().equals(ALERT)).hasSize(2);
+    }
+
+    private List<String> openAlerts() {
+        return detection.openIncidents().stream().map(DetectedIncident::alertId).toList();
+    }
+}
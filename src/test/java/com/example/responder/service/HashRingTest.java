@@ -0,0 +1,100 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.responder.config.ClusterProperties;
+import com.example.responder.config.HealthPollerProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class HashRingTest {
+
+    private static final String A = "http://localhost:8081";
+    private static final String B = "http://localhost:8082";
+    private static final String C = "http://localhost:8083";
+    private static final List<String> SERVICES =
+            IntStream.range(0, 3_000).mapToObj(i -> "service-" + i).toList();
+
+    @Test
+    void servicesSpreadEvenlyAndOrderOfMembersDoesNotMatter() {
+        HashRing ring = new HashRing(Set.of(A, B, C), 128);
+        HashRing sameMembers = new HashRing(Set.of(C, A, B), 128);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (String service : SERVICES) {
+            assertThat(sameMembers.owner(service)).isEqualTo(ring.owner(service));
+            counts.merge(ring.owner(service), 1, Integer::sum);
+        }
+        assertThat(counts).containsOnlyKeys(A, B, C);
+        assertThat(counts.values()).allSatisfy(n -> assertThat(n).isBetween(800, 1_200));
+    }
+
+    @Test
+    void removingAMemberOnlyMovesItsServices() {
+        HashRing full = new HashRing(Set.of(A, B, C), 128);
+        HashRing withoutC = new HashRing(Set.of(A, B), 128);
+
+        for (String service : SERVICES) {
+            if (!full.owner(service).equals(C)) {
+                assertThat(withoutC.owner(service)).isEqualTo(full.owner(service));
+            }
+        }
+        assertThat(new HashRing(Set.of(), 128).owner("payment-service")).isNull();
+    }
+
+    @Test
+    void memberLeavesAfterMissedHeartbeatsAndRejoins() {
+        var properties =
+                new ClusterProperties(
+                        true,
+                        A,
+                        List.of(A, B, C),
+                        128,
+                        Duration.ofHours(1), // no real heartbeats during the test
+                        "/actuator/health/readiness",
+                        Duration.ofSeconds(1),
+                        2,
+                        Duration.ofSeconds(5));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        SystemStateService systemState =
+                new SystemStateService(
+                        event -> {},
+                        new HealthPollerProperties(
+                                false,
+                                Duration.ofSeconds(10),
+                                Duration.ZERO,
+                                1,
+                                Duration.ofSeconds(1),
+                                10,
+                                null));
+        ClusterRouter router =
+                new ClusterRouter(properties, systemState, new ObjectMapper(), registry);
+        router.start();
+        try {
+            String service =
+                    SERVICES.stream()
+                            .filter(s -> C.equals(router.ownerOf(s)))
+                            .findFirst()
+                            .orElseThrow();
+
+            router.recordContact(C, false);
+            assertThat(router.ownerOf(service)).isEqualTo(C);
+            router.recordContact(C, false);
+            assertThat(router.ownerOf(service)).isIn(A, B);
+            assertThat(router.status().down()).containsExactly(C);
+
+            router.recordContact(C, true);
+            assertThat(router.ownerOf(service)).isEqualTo(C);
+            assertThat(registry.counter("responder.cluster.rebalances").count()).isEqualTo(2);
+        } finally {
+            router.stop();
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.responder.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class HealthHistoryTest {
+
+    @Test
+    void ringBufferKeepsOnlyTheLatestSamples() {
+        HealthHistory history = new HealthHistory(3);
+        Assertions.assertNull(history.record(true, 10, 1));
+        Assertions.assertEquals(Boolean.TRUE, history.record(false, 20, 2));
+        history.record(false, 30, 3);
+        history.record(true, 40, 4); // Overwrites the first sample
+
+        Assertions.assertEquals(3, history.size());
+        Assertions.assertEquals(2, history.downCount());
+        Assertions.assertTrue(history.latestHealthy());
+        Assertions.assertEquals(40, history.latestLatencyMillis());
+        Assertions.assertEquals(1, history.transitions());
+        Assertions.assertEquals(
+                "DOWN 2 of last 3 probes (1 flips), last latency 40ms", history.summary());
+    }
+}
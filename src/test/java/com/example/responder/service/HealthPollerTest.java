@@ -0,0 +1,97 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.responder.config.HealthPollerProperties;
+import com.example.responder.model.HealthStateChangedEvent;
+import com.sun.net.httpserver.HttpServer;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class HealthPollerTest {
+
+    private final List<HealthStateChangedEvent> events = new CopyOnWriteArrayList<>();
+    private final AtomicInteger status = new AtomicInteger(200);
+
+    private HttpServer probeTarget;
+    private SystemStateService systemState;
+    private HealthPoller poller;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        probeTarget = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        probeTarget.createContext(
+                "/health",
+                exchange -> {
+                    exchange.sendResponseHeaders(status.get(), -1);
+                    exchange.close();
+                });
+        probeTarget.start();
+
+        HealthPollerProperties properties =
+                new HealthPollerProperties(
+                        true,
+                        Duration.ofHours(1), // rounds are driven by the test
+                        Duration.ZERO,
+                        2,
+                        Duration.ofSeconds(2),
+                        10,
+                        Map.of(
+                                "payment-service",
+                                "http://127.0.0.1:"
+                                        + probeTarget.getAddress().getPort()
+                                        + "/health"));
+        systemState =
+                new SystemStateService(
+                        event -> events.add((HealthStateChangedEvent) event), properties);
+        poller = new HealthPoller(systemState, properties);
+        poller.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        poller.stop();
+        probeTarget.stop(0);
+    }
+
+    @Test
+    void publishesOneEventPerTransitionAndNoneOnSteadyState() throws Exception {
+        poll(); // first sample, nothing to compare with
+        poll();
+        assertThat(events).isEmpty();
+
+        status.set(503);
+        poll();
+        poll();
+        assertThat(events)
+                .singleElement()
+                .satisfies(
+                        event -> {
+                            assertThat(event.serviceName()).isEqualTo("payment-service");
+                            assertThat(event.previouslyHealthy()).isTrue();
+                            assertThat(event.healthy()).isFalse();
+                        });
+        assertThat(systemState.isHealthy("payment-service")).isFalse();
+
+        status.set(200);
+        poll();
+        poll();
+        assertThat(events).hasSize(2);
+        assertThat(events.get(1).healthy()).isTrue();
+        // The simulated inventory-service was polled every round without flipping
+        assertThat(systemState.getHistory("inventory-service").transitions()).isZero();
+    }
+
+    /** Runs one polling round to completion. */
+    private void poll() throws Exception {
+        poller.pollAll().get(5, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.responder.config.IncidentBatchProperties;
+import com.example.responder.model.IncidentBatchRequest;
+import com.example.responder.model.IncidentBatchRequest.Incident;
+import com.example.responder.model.IncidentRequest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class IncidentBatchAnalyzerTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T12:00:00Z");
+    private static final IncidentBatchProperties PROPERTIES =
+            new IncidentBatchProperties(Duration.ofMinutes(2), 0.85, 20, 4);
+
+    // Unit vectors: DB-ish symptoms vs. checkout-ish symptoms
+    private static final float[] DB = {1, 0};
+    private static final float[] DB_LIKE = {0.96f, 0.28f};
+    private static final float[] CHECKOUT = {0, 1};
+
+    @Test
+    void groupsSameServiceAndSimilarIssuesWithinTheWindow() {
+        List<Incident> incidents =
+                List.of(
+                        incident("a", "inventory-service", 0),
+                        incident("b", "payment-service", 10),
+                        incident("c", "inventory-service", 30),
+                        incident("d", "shipping-service", 40));
+        List<float[]> embeddings = List.of(DB, CHECKOUT, DB, DB_LIKE);
+
+        assertThat(IncidentBatchAnalyzer.cluster(incidents, embeddings, PROPERTIES))
+                .containsExactly(List.of(0, 2, 3), List.of(1));
+    }
+
+    @Test
+    void incidentsOutsideTheWindowAreAnalyzedSeparately() {
+        List<Incident> incidents =
+                List.of(
+                        incident("a", "inventory-service", 0),
+                        incident("b", "inventory-service", 600));
+
+        assertThat(IncidentBatchAnalyzer.cluster(incidents, List.of(DB, DB), PROPERTIES))
+                .containsExactly(List.of(0), List.of(1));
+    }
+
+    @Test
+    void incidentsWithoutRequestOrIssueAreRejected() {
+        Incident valid = incident("a", "payment-service", 0);
+        Incident blankIssue =
+                new Incident("b", new IncidentRequest("payment-service", " ", "1h"), T0);
+
+        assertThatThrownBy(
+                        () ->
+                                IncidentBatchAnalyzer.validate(
+                                        new IncidentBatchRequest(Arrays.asList(valid, null))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Incident #2 has no request");
+        assertThatThrownBy(
+                        () ->
+                                IncidentBatchAnalyzer.validate(
+                                        new IncidentBatchRequest(List.of(valid, blankIssue))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Incident 'b' has no issue");
+        IncidentBatchAnalyzer.validate(new IncidentBatchRequest(List.of(valid)));
+        IncidentBatchAnalyzer.validate(new IncidentBatchRequest(null));
+    }
+
+    @Test
+    void clusterSizeIsCapped() {
+        IncidentBatchProperties small =
+                new IncidentBatchProperties(Duration.ofMinutes(2), 0.85, 2, 4);
+        List<Incident> incidents =
+                List.of(
+                        incident("a", "payment-service", 0),
+                        incident("b", "payment-service", 1),
+                        incident("c", "payment-service", 2));
+
+        assertThat(IncidentBatchAnalyzer.cluster(incidents, List.of(DB, DB, DB), small))
+                .containsExactly(List.of(0, 1), List.of(2));
+    }
+
+    private static Incident incident(String id, String service, int secondsAfterT0) {
+        return new Incident(
+                id,
+                new IncidentRequest(service, "issue " + id, "1h"),
+                T0.plusSeconds(secondsAfterT0));
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.responder.config.IncidentMemoryProperties;
+import com.example.responder.model.AnalysisResponse;
+import com.example.responder.model.IncidentRequest;
+import com.example.responder.model.LogEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+class IncidentMemoryTest {
+
+    private static final String NPE = "payment fails with NullPointerException";
+    // cos 0.8 to NPE: (1 + 0.8) / 2 = 0.9, similar but below the reuse threshold
+    private static final String NPE_LIKE = "payment throws errors";
+    private static final String TIMEOUT = "payment requests time out";
+    private static final Map<String, float[]> EMBEDDINGS =
+            Map.of(
+                    NPE, new float[] {1, 0, 0},
+                    NPE_LIKE, new float[] {0.8f, 0.6f, 0},
+                    TIMEOUT, new float[] {0, 0, 1});
+
+    @TempDir Path tempDir;
+
+    private static final AtomicInteger embeddingCalls = new AtomicInteger();
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private EmbeddedLogEngine engine;
+    private IncidentMemory memory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        embeddingCalls.set(0);
+        engine = TestLogEngines.started();
+        engine.ingest(
+                List.of(
+                        new LogEvent(
+                                System.currentTimeMillis(),
+                                Map.of(
+                                        LogEvent.SERVICE, "payment-service",
+                                        LogEvent.LEVEL, "ERROR",
+                                        LogEvent.MESSAGE, "memorytest NullPointerException"))));
+        memory = open();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        memory.close();
+        engine.close();
+    }
+
+    @Test
+    void validatedRepeatIsReusedAcrossRestarts() throws Exception {
+        memory.remember(request(NPE), analysis("memorytest", 0.9));
+        memory.close();
+        memory = open();
+
+        IncidentMemory.Recall recall = memory.recall(request(NPE)).orElseThrow();
+
+        assertThat(recall.kind()).isEqualTo(IncidentMemory.Kind.REUSE);
+        assertThat(recall.analysis().model()).isEqualTo(IncidentMemory.MODEL);
+        assertThat(recall.analysis().failureType()).isEqualTo("Alert: Payment NPE");
+        assertThat(recall.analysis().evidence()).containsKey("incidentMemory");
+        assertThat(registry.counter("responder.memory.lookups", "outcome", "reused").count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void queryThatNoLongerMatchesOnlyServesAsExample() {
+        memory.remember(request(NPE), analysis("nosuchtokenanywhere", 0.9));
+
+        IncidentMemory.Recall recall = memory.recall(request(NPE)).orElseThrow();
+
+        assertThat(recall.kind()).isEqualTo(IncidentMemory.Kind.EXAMPLE);
+        assertThat(recall.example(new ObjectMapper()))
+                .contains("PREVIOUSLY RESOLVED SIMILAR INCIDENT")
+                .contains(NPE);
+    }
+
+    @Test
+    void matchesOutsideTheIncidentWindowDoNotValidateAReuse() throws Exception {
+        engine.ingest(
+                List.of(
+                        new LogEvent(
+                                System.currentTimeMillis() - Duration.ofHours(3).toMillis(),
+                                Map.of(
+                                        LogEvent.SERVICE, "payment-service",
+                                        LogEvent.LEVEL, "ERROR",
+                                        LogEvent.MESSAGE, "memorytest StaleConnectionException"))));
+        memory.remember(request(NPE), analysis("StaleConnectionException", 0.9));
+
+        assertThat(memory.recall(request(NPE)).orElseThrow().kind())
+                .isEqualTo(IncidentMemory.Kind.EXAMPLE);
+        assertThat(
+                        memory.recall(new IncidentRequest("payment-service", NPE, "6h"))
+                                .orElseThrow()
+                                .kind())
+                .isEqualTo(IncidentMemory.Kind.REUSE);
+    }
+
+    @Test
+    void similarIssueIsAnExampleAndUnrelatedOneAMiss() {
+        memory.remember(request(NPE), analysis("memorytest", 0.9));
+
+        assertThat(memory.recall(request(NPE_LIKE)))
+                .hasValueSatisfying(
+                        r -> assertThat(r.kind()).isEqualTo(IncidentMemory.Kind.EXAMPLE));
+        assertThat(memory.recall(request(TIMEOUT))).isEmpty();
+        assertThat(memory.recall(new IncidentRequest("shipping-service", NPE, "1h"))).isEmpty();
+    }
+
+    @Test
+    void onlyConfidentAnalysesAreRememberedAndRepeatsReplaceTheEntry() {
+        memory.remember(request(TIMEOUT), analysis("memorytest", 0.3));
+        assertThat(memory.size()).isZero();
+
+        memory.remember(request(NPE), analysis("memorytest", 0.9));
+        memory.remember(request(NPE), analysis("memorytest", 0.95));
+        assertThat(memory.size()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentRepeatsShareOneEntry() {
+        IntStream.range(0, 8)
+                .parallel()
+                .forEach(i -> memory.remember(request(NPE), analysis("memorytest", 0.9)));
+
+        assertThat(memory.size()).isEqualTo(1);
+    }
+
+    @Test
+    void rememberingReusesTheLookupEmbedding() {
+        memory.recall(request(NPE_LIKE));
+        memory.remember(request(NPE_LIKE), analysis("memorytest", 0.9));
+
+        assertThat(embeddingCalls.get()).isEqualTo(1);
+    }
+
+    private IncidentMemory open() throws Exception {
+        IncidentMemory opened =
+                new IncidentMemory(
+                        new IncidentMemoryProperties(
+                                true,
+                                tempDir,
+                                0.95,
+                                0.85,
+                                Duration.ofDays(7),
+                                0.7,
+                                Duration.ofSeconds(5)),
+                        new StubEmbeddingModel(),
+                        engine,
+                        new ObjectMapper(),
+                        registry);
+        opened.open();
+        return opened;
+    }
+
+    private static IncidentRequest request(String issue) {
+        return new IncidentRequest("payment-service", issue, "1h");
+    }
+
+    private static AnalysisResponse analysis(String query, double confidence) {
+        return new AnalysisResponse(
+                "Alert: Payment NPE",
+                "Null customer record",
+                query,
+                Map.of("count", 1),
+                "Payments",
+                List.of("Roll back"),
+                false,
+                List.of("payment-service"),
+                confidence,
+                "claude-3-5-haiku-20241022");
+    }
+
+    /** Fixed vectors per issue text, so similarities are known exactly. */
+    private static final class StubEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            embeddingCalls.incrementAndGet();
+            List<String> texts = request.getInstructions();
+            return new EmbeddingResponse(
+                    IntStream.range(0, texts.size())
+                            .mapToObj(i -> new Embedding(EMBEDDINGS.get(texts.get(i)), i))
+                            .toList());
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return EMBEDDINGS.get(document.getText());
+        }
+    }
+}
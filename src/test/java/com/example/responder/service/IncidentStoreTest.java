@@ -0,0 +1,211 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.responder.config.IncidentStoreProperties;
+import com.example.responder.model.AnalysisResponse;
+import com.example.responder.model.IncidentRecord;
+import com.example.responder.model.IncidentRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+class IncidentStoreTest {
+
+    @TempDir Path tempDir;
+
+    private IncidentStore store;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (store != null) store.close();
+    }
+
+    @Test
+    void queriesByServiceFailureTypeAndTime() throws Exception {
+        store = open(DataSize.ofMegabytes(1));
+        append("payment-service", "Alert: Payment NPE");
+        append("inventory-service", "Alert: DB Connection Timeout");
+        assertThat(store.flush(Duration.ofSeconds(5))).isTrue();
+        // Records carry millisecond timestamps, so keep 'between' clear of both sides
+        Thread.sleep(5);
+        Instant between = Instant.now();
+        Thread.sleep(5);
+        append("payment-service", "Alert: Gateway Latency");
+        assertThat(store.flush(Duration.ofSeconds(5))).isTrue();
+
+        assertThat(store.query(new IncidentStore.Query("Payment-Service", null, null, null), 10))
+                .extracting(r -> r.response().failureType())
+                .containsExactly("Alert: Gateway Latency", "Alert: Payment NPE");
+        assertThat(
+                        store.query(
+                                new IncidentStore.Query(
+                                        null, "alert: db connection timeout", null, null),
+                                10))
+                .extracting(r -> r.request().serviceName())
+                .containsExactly("inventory-service");
+        assertThat(store.query(new IncidentStore.Query(null, null, between, null), 10))
+                .extracting(r -> r.response().failureType())
+                .containsExactly("Alert: Gateway Latency");
+        assertThat(store.query(IncidentStore.Query.ALL, 1)).hasSize(1);
+        assertThat(store.query(IncidentStore.Query.ALL, 10).get(0).phaseMillis())
+                .containsEntry("total", 42L);
+    }
+
+    @Test
+    void recordsSurviveARestartAcrossSegments() throws Exception {
+        // Tiny segments, so every few records start a new file
+        store = open(DataSize.ofBytes(512));
+        for (int i = 0; i < 20; i++) {
+            append("svc-" + (i % 3), "Alert: " + i);
+        }
+        assertThat(store.flush(Duration.ofSeconds(5))).isTrue();
+        store.close();
+
+        store = open(DataSize.ofBytes(512));
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+        assertThat(store.size()).isEqualTo(20);
+        List<IncidentRecord> exported = new ArrayList<>();
+        assertThat(store.export(IncidentStore.Query.ALL, Long.MAX_VALUE, exported::add))
+                .isEqualTo(20);
+        assertThat(exported)
+                .extracting(r -> r.response().failureType())
+                .startsWith("Alert: 0", "Alert: 1")
+                .endsWith("Alert: 19");
+        assertThat(exported).extracting(IncidentRecord::id).isSorted();
+    }
+
+    @Test
+    void tornWriteAtTheTailIsTruncatedOnRecovery() throws Exception {
+        store = open(DataSize.ofMegabytes(1));
+        append("payment-service", "Alert: Payment NPE");
+        assertThat(store.flush(Duration.ofSeconds(5))).isTrue();
+        store.close();
+        Path segment = segmentFiles().get(0);
+        long intact = Files.size(segment);
+        // A frame header promising more bytes than were written
+        Files.write(segment, new byte[] {0, 0, 1, 0, 1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        store = open(DataSize.ofMegabytes(1));
+        assertThat(Files.size(segment)).isEqualTo(intact);
+        append("payment-service", "Alert: Gateway Latency");
+        assertThat(store.flush(Duration.ofSeconds(5))).isTrue();
+
+        assertThat(store.query(IncidentStore.Query.ALL, 10))
+                .extracting(r -> r.response().failureType())
+                .containsExactly("Alert: Gateway Latency", "Alert: Payment NPE");
+    }
+
+    @Test
+    void failedBatchLeavesNothingBehindForLaterCommits() throws Exception {
+        // A long commit interval, so the good and the failing record share one batch
+        store = open(DataSize.ofMegabytes(1), Duration.ofMillis(500));
+        append("payment-service", "Alert: Payment NPE");
+        assertThat(store.flush(Duration.ofSeconds(5))).isTrue();
+        append("payment-service", "Alert: Lost");
+        store.append(
+                new IncidentRequest("payment-service", "something is broken", "1h"),
+                new AnalysisResponse(
+                        "Alert: Unserializable",
+                        null,
+                        null,
+                        Map.of("object", new Object()),
+                        null,
+                        null,
+                        false,
+                        null,
+                        0.9,
+                        null),
+                Map.of());
+        assertThat(store.flush(Duration.ofSeconds(5))).isTrue();
+        append("payment-service", "Alert: Gateway Latency");
+        assertThat(store.flush(Duration.ofSeconds(5))).isTrue();
+        store.close();
+
+        store = open(DataSize.ofMegabytes(1));
+        assertThat(store.query(IncidentStore.Query.ALL, 10))
+                .extracting(r -> r.response().failureType())
+                .containsExactly("Alert: Gateway Latency", "Alert: Payment NPE");
+    }
+
+    @Test
+    void readsSeeRecordsCommittedAfterEarlierReads() throws Exception {
+        store = open(DataSize.ofMegabytes(1));
+        append("payment-service", "Alert: Payment NPE");
+        assertThat(store.flush(Duration.ofSeconds(5))).isTrue();
+        assertThat(store.query(IncidentStore.Query.ALL, 10)).hasSize(1);
+
+        // The segment grew after it was mapped for the first read
+        append("payment-service", "Alert: Gateway Latency");
+        assertThat(store.flush(Duration.ofSeconds(5))).isTrue();
+
+        assertThat(store.query(IncidentStore.Query.ALL, 10))
+                .extracting(r -> r.response().failureType())
+                .containsExactly("Alert: Gateway Latency", "Alert: Payment NPE");
+    }
+
+    @Test
+    void segmentsBeyondTwoGigabytesAreRejected() {
+        assertThatThrownBy(
+                        () ->
+                                new IncidentStoreProperties(
+                                        true,
+                                        tempDir,
+                                        DataSize.ofGigabytes(3),
+                                        Duration.ofMillis(2),
+                                        100))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("segmentSize");
+    }
+
+    private IncidentStore open(DataSize segmentSize) throws Exception {
+        return open(segmentSize, Duration.ofMillis(2));
+    }
+
+    private IncidentStore open(DataSize segmentSize, Duration commitInterval) throws Exception {
+        IncidentStore opened =
+                new IncidentStore(
+                        new IncidentStoreProperties(
+                                true, tempDir, segmentSize, commitInterval, 100),
+                        new ObjectMapper().findAndRegisterModules(),
+                        new SimpleMeterRegistry());
+        opened.open();
+        return opened;
+    }
+
+    private void append(String service, String failureType) {
+        store.append(
+                new IncidentRequest(service, "something is broken", "1h"),
+                new AnalysisResponse(
+                        failureType,
+                        "hypothesis",
+                        "log.level:ERROR",
+                        Map.of("count", 3),
+                        "SRE",
+                        List.of("Restart"),
+                        false,
+                        List.of(service),
+                        0.9,
+                        "claude-3-5-haiku-20241022"),
+                Map.of("agent", 40L, "total", 42L));
+    }
+
+    private List<Path> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.sorted().toList();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.responder.config.LlmRateLimitProperties;
+import com.example.responder.model.IncidentRequest;
+import com.example.responder.model.IncidentRequest.Severity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+class LlmSchedulerTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<String> order = new CopyOnWriteArrayList<>();
+
+    @Test
+    void criticalServiceGetsTheFirstFreeCapacity() throws Exception {
+        // One request per second, no burst: every call after the first waits for a refill
+        LlmScheduler scheduler = new LlmScheduler(properties(Duration.ofMinutes(10)), registry);
+        scheduler.submit(LlmScheduler.BATCH, 10, () -> order.add("warm-up"));
+
+        Thread low = submitLater(scheduler, LlmScheduler.BATCH, "batch");
+        Thread.sleep(100);
+        Thread critical = submitLater(scheduler, scheduler.priorityOf(request()), "critical");
+        low.join();
+        critical.join();
+
+        assertThat(order).containsExactly("warm-up", "critical", "batch");
+        assertThat(
+                        registry.get("responder.llm.queue.wait")
+                                .tag("severity", "CRITICAL")
+                                .tag("tier", "0")
+                                .timer()
+                                .count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void waitingLowersTheRankSoBatchWorkIsNotStarved() throws Exception {
+        // Aging of one level per 10ms: after ~300ms of waiting, batch work outranks fresh criticals
+        LlmScheduler scheduler = new LlmScheduler(properties(Duration.ofMillis(10)), registry);
+        scheduler.submit(LlmScheduler.BATCH, 10, () -> order.add("warm-up"));
+
+        Thread low = submitLater(scheduler, LlmScheduler.BATCH, "batch");
+        Thread.sleep(300);
+        Thread critical = submitLater(scheduler, scheduler.priorityOf(request()), "critical");
+        low.join();
+        critical.join();
+
+        assertThat(order).containsExactly("warm-up", "batch", "critical");
+    }
+
+    @Test
+    void priorityComesFromTheRequestOrTheServiceTierMap() {
+        LlmScheduler scheduler = new LlmScheduler(properties(Duration.ofSeconds(15)), registry);
+
+        assertThat(scheduler.priorityOf(new IncidentRequest("payment-service", "boom", "1h")))
+                .isEqualTo(new LlmScheduler.Priority(Severity.MEDIUM, 0));
+        assertThat(scheduler.priorityOf(new IncidentRequest("search", "slow", "1h")))
+                .isEqualTo(new LlmScheduler.Priority(Severity.MEDIUM, 2));
+        assertThat(
+                        scheduler.priorityOf(
+                                new IncidentRequest("search", "down", "1h", Severity.HIGH, 1)))
+                .isEqualTo(new LlmScheduler.Priority(Severity.HIGH, 1));
+    }
+
+    @Test
+    void everyPhysicalRequestOfATurnIsCharged() {
+        // Ten requests per second, burst of one
+        LlmScheduler scheduler =
+                new LlmScheduler(
+                        new LlmRateLimitProperties(
+                                600,
+                                100_000,
+                                Duration.ofMillis(100),
+                                Duration.ofSeconds(15),
+                                2,
+                                Map.of()),
+                        registry);
+        // First request covered by the admission, then a hedge and a tool round-trip
+        scheduler.submit(
+                LlmScheduler.BATCH,
+                10,
+                () -> {
+                    scheduler.chargeRequest();
+                    scheduler.chargeRequest();
+                    scheduler.chargeRequest();
+                    return null;
+                });
+
+        long start = System.nanoTime();
+        scheduler.submit(
+                LlmScheduler.BATCH,
+                10,
+                () -> {
+                    scheduler.chargeRequest();
+                    return null;
+                });
+
+        // Two requests of debt plus the one being admitted; without the debt it would be <100ms
+        assertThat(Duration.ofNanos(System.nanoTime() - start))
+                .isGreaterThan(Duration.ofMillis(200));
+        assertThat(registry.get("responder.llm.requests").counter().count()).isEqualTo(4);
+    }
+
+    private Thread submitLater(
+            LlmScheduler scheduler, LlmScheduler.Priority priority, String name) {
+        Thread thread = new Thread(() -> scheduler.submit(priority, 10, () -> order.add(name)));
+        thread.start();
+        return thread;
+    }
+
+    private static IncidentRequest request() {
+        return new IncidentRequest("payment-service", "500s", "1h", Severity.CRITICAL, null);
+    }
+
+    private static LlmRateLimitProperties properties(Duration agingInterval) {
+        return new LlmRateLimitProperties(
+                60, 100_000, Duration.ofSeconds(1), agingInterval, 2, Map.of("payment-service", 0));
+    }
+}
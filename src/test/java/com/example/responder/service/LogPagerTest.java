@@ -0,0 +1,82 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.responder.model.LogEvent;
+import com.example.responder.tools.LogBrowseTool;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LogPagerTest {
+
+    private EmbeddedLogEngine engine;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        engine = TestLogEngines.started();
+        // Two shards, many equal timestamps: the cursor must still be exact
+        List<LogEvent> events = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            events.add(
+                    new LogEvent(
+                            1_000_000L + i / 10,
+                            Map.of(
+                                    LogEvent.SERVICE,
+                                    i % 2 == 0 ? "svc-a" : "svc-b",
+                                    LogEvent.LEVEL,
+                                    "ERROR",
+                                    LogEvent.TRACE_ID,
+                                    "t-" + i,
+                                    LogEvent.MESSAGE,
+                                    "boom " + i)));
+        }
+        engine.ingest(events);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        engine.close();
+    }
+
+    @Test
+    void cursorVisitsEveryMatchOnceNewestFirst() {
+        Set<String> seen = new HashSet<>();
+        long previousTimestamp = Long.MAX_VALUE;
+        String cursor = null;
+        int pages = 0;
+        do {
+            LogBrowseTool.Response page =
+                    engine.searchPage(
+                            "log.level:ERROR", cursor, 40, List.of("@timestamp", "trace_id"));
+            for (Map<String, String> hit : page.hits()) {
+                assertThat(seen.add(hit.get("trace_id"))).isTrue();
+                long timestamp = Long.parseLong(hit.get("@timestamp"));
+                assertThat(timestamp).isLessThanOrEqualTo(previousTimestamp);
+                previousTimestamp = timestamp;
+                assertThat(hit).containsOnlyKeys("@timestamp", "trace_id");
+            }
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(250);
+        assertThat(pages).isEqualTo(7);
+    }
+
+    @Test
+    void exportStreamsAllMatches() throws Exception {
+        List<Map<String, String>> lines = new ArrayList<>();
+
+        long written =
+                engine.export("application.name:\"svc-a\"", null, Long.MAX_VALUE, lines::add);
+
+        assertThat(written).isEqualTo(125);
+        assertThat(lines).hasSize(125).allMatch(l -> "svc-a".equals(l.get(LogEvent.SERVICE)));
+    }
+}
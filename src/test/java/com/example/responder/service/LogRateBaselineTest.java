@@ -0,0 +1,141 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.responder.model.LogEvent;
+import com.example.responder.tools.ElfLogSearchTool;
+import java.util.List;
+import java.util.Map;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TermRangeQuery;
+import org.junit.jupiter.api.Test;
+
+class LogRateBaselineTest {
+
+    private static final long MINUTE = 60_000;
+    private static final Query ERRORS = new TermQuery(new Term(LogEvent.LEVEL, "ERROR"));
+
+    @Test
+    void spikeAgainstAFlatHistoryIsAnomalous() {
+        LogRateBaseline baseline = new LogRateBaseline();
+        long now = System.currentTimeMillis();
+        recordHistory(baseline, "payment-service", 2);
+        record(baseline, "payment-service", "ERROR", now - MINUTE, 20);
+
+        ElfLogSearchTool.Baseline result = baseline.compare("payment-service", ERRORS);
+
+        assertThat(result.dimension()).isEqualTo("payment-service log.level:ERROR");
+        assertThat(result.baselinePerMinute()).isEqualTo(2 / 5.0);
+        assertThat(result.currentPerMinute()).isEqualTo(20 / 5.0);
+        assertThat(result.ratio()).isEqualTo(10.0);
+        assertThat(result.verdict()).isEqualTo("ANOMALOUS");
+    }
+
+    @Test
+    void usualRateIsNormal() {
+        LogRateBaseline baseline = new LogRateBaseline();
+        recordHistory(baseline, "payment-service", 2);
+        record(baseline, "payment-service", "ERROR", System.currentTimeMillis() - MINUTE, 2);
+
+        assertThat(baseline.compare("payment-service", ERRORS).verdict()).isEqualTo("NORMAL");
+    }
+
+    @Test
+    void otherServicesOnlyCountTowardsAllServices() {
+        LogRateBaseline baseline = new LogRateBaseline();
+        recordHistory(baseline, "payment-service", 2);
+        record(baseline, "inventory-service", "ERROR", System.currentTimeMillis() - MINUTE, 40);
+
+        assertThat(baseline.compare("payment-service", ERRORS).verdict()).isEqualTo("NORMAL");
+        ElfLogSearchTool.Baseline all = baseline.compare(null, ERRORS);
+        assertThat(all.dimension()).isEqualTo("all services log.level:ERROR");
+        assertThat(all.verdict()).isEqualTo("ANOMALOUS");
+    }
+
+    @Test
+    void noHistoryMeansNoBaseline() {
+        LogRateBaseline baseline = new LogRateBaseline();
+        record(baseline, "payment-service", "ERROR", System.currentTimeMillis() - MINUTE, 20);
+
+        assertThat(baseline.compare("payment-service", ERRORS).verdict()).isEqualTo("NO_BASELINE");
+        assertThat(baseline.compare("unknown-service", ERRORS).verdict()).isEqualTo("NO_BASELINE");
+    }
+
+    @Test
+    void picksTheMostSpecificRequiredDimension() {
+        Query serverErrors =
+                new BooleanQuery.Builder()
+                        .add(
+                                new TermQuery(new Term(LogEvent.SERVICE, "payment")),
+                                BooleanClause.Occur.MUST)
+                        .add(
+                                TermRangeQuery.newStringRange(
+                                        LogEvent.STATUS_CODE, "500", "599", true, true),
+                                BooleanClause.Occur.MUST)
+                        .build();
+        Query optionalLevel =
+                new BooleanQuery.Builder()
+                        .add(ERRORS, BooleanClause.Occur.SHOULD)
+                        .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+                        .build();
+
+        assertThat(LogRateBaseline.dimensionFor(ERRORS)).isEqualTo("log.level:ERROR");
+        assertThat(LogRateBaseline.dimensionFor(serverErrors)).isEqualTo("status_code:5xx");
+        assertThat(LogRateBaseline.dimensionFor(optionalLevel)).isEqualTo("total");
+    }
+
+    @Test
+    void searchesUseTheBaselineOfTheServiceTheyAreScopedTo() throws Exception {
+        EmbeddedLogEngine engine = TestLogEngines.started();
+        try {
+            engine.ingest(
+                    List.of(
+                            LogEvent.of(
+                                    Map.of(
+                                            LogEvent.SERVICE, "payment-service",
+                                            LogEvent.LEVEL, "ERROR",
+                                            LogEvent.MESSAGE, "boom"))));
+
+            // Routed to the payment shard only, but not scoped to the service
+            assertThat(engine.executeSearch("log.level:ERROR").baseline().dimension())
+                    .isEqualTo("all services log.level:ERROR");
+            assertThat(
+                            engine.executeSearch(
+                                            "application.name:\"payment-service\" AND"
+                                                    + " log.level:ERROR")
+                                    .baseline()
+                                    .dimension())
+                    .isEqualTo("payment-service log.level:ERROR");
+            assertThat(
+                            engine.executeSearch("application.name:payment AND log.level:ERROR")
+                                    .baseline()
+                                    .verdict())
+                    .isEqualTo("NO_BASELINE");
+        } finally {
+            engine.close();
+        }
+    }
+
+    /** {@code perWindow} errors in each of the twelve 5-minute windows before the current one. */
+    private static void recordHistory(LogRateBaseline baseline, String service, int perWindow) {
+        long now = System.currentTimeMillis();
+        for (int window = 0; window < 12; window++) {
+            // The current window starts 4 to 5 minutes ago, so this lands mid-window
+            long timestamp = now - (7 * MINUTE + MINUTE / 2) - window * 5 * MINUTE;
+            record(baseline, service, "ERROR", timestamp, perWindow);
+        }
+    }
+
+    private static void record(
+            LogRateBaseline baseline, String service, String level, long timestamp, int count) {
+        LogEvent event = LogEvent.of(Map.of(LogEvent.SERVICE, service, LogEvent.LEVEL, level));
+        for (int i = 0; i < count; i++) {
+            baseline.record(service, event, timestamp);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.responder.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class LogTemplateMinerTest {
+
+    @Test
+    void groupsVariantsOfTheSameMessageIntoOneTemplate() {
+        LogTemplateMiner miner = new LogTemplateMiner();
+        long now = System.currentTimeMillis();
+
+        int first = miner.assign("Cache key miss for SKU-999. Fetching from DB.", now);
+        int second = miner.assign("Cache key miss for SKU-123. Fetching from DB.", now);
+        int third = miner.assign("Cache key miss for order-abc. Fetching from DB.", now);
+        int other = miner.assign("Stock updated", now);
+
+        Assertions.assertEquals(first, second);
+        Assertions.assertEquals(first, third);
+        Assertions.assertNotEquals(first, other);
+
+        LogTemplateMiner.Template template = miner.describe(first);
+        Assertions.assertEquals("Cache key miss for <*> Fetching from DB.", template.pattern());
+        Assertions.assertEquals(3, template.totalCount());
+        Assertions.assertEquals(
+                "Cache key miss for SKU-999. Fetching from DB.", template.example());
+    }
+
+    @Test
+    void concurrentAssignmentsLoseNoCounts() throws Exception {
+        LogTemplateMiner miner = new LogTemplateMiner();
+        long now = System.currentTimeMillis();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int thread = t;
+                workers.add(
+                        pool.submit(
+                                () -> {
+                                    for (int i = 0; i < 5_000; i++) {
+                                        miner.assign("Cache key miss for SKU-" + i, now);
+                                        miner.assign("Request " + i + " processed", now);
+                                        miner.assign("Worker " + thread + " idle", now);
+                                    }
+                                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        Assertions.assertEquals(3, miner.size());
+        int cacheMiss = miner.assign("Cache key miss for SKU-1", now);
+        Assertions.assertEquals(20_001, miner.describe(cacheMiss).totalCount());
+        Assertions.assertEquals(
+                "Worker <*> idle", miner.describe(miner.assign("Worker 9 idle", now)).pattern());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.responder.model.AnalysisResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ModelCascadeTest {
+
+    private static final List<String> ALERTS =
+            List.of("Elevated 5xx Error Rate", "Upstream Gateway Latency");
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ModelCascade cascade = new ModelCascade(registry);
+
+    @Test
+    void confidentReportNamingARetrievedAlertIsAccepted() {
+        assertThat(cascade.check(report("Alert: Elevated 5xx Error Rate", 0.9), ALERTS, 0.7))
+                .isEmpty();
+    }
+
+    @Test
+    void escalatesOnUnparseableUnknownOrDoubtfulReports() {
+        assertThat(cascade.check(null, ALERTS, 0.7))
+                .hasValueSatisfying(
+                        e -> assertThat(e.reason()).isEqualTo(ModelCascade.Reason.UNPARSEABLE));
+        assertThat(cascade.check(report("Database Connection Timeout", 0.9), ALERTS, 0.7))
+                .hasValueSatisfying(
+                        e -> assertThat(e.reason()).isEqualTo(ModelCascade.Reason.UNKNOWN_ALERT));
+        assertThat(cascade.check(report("Upstream Gateway Latency", 0.4), ALERTS, 0.7))
+                .hasValueSatisfying(
+                        e -> assertThat(e.reason()).isEqualTo(ModelCascade.Reason.LOW_CONFIDENCE));
+        assertThat(cascade.check(report("Upstream Gateway Latency", null), ALERTS, 0.7))
+                .isPresent();
+    }
+
+    @Test
+    void recordsPerTierLatencyAndEscalations() {
+        cascade.recordTurn("fast", 2_000_000);
+        cascade.recordTurn("fast", 4_000_000);
+        cascade.recordEscalation(
+                "fast",
+                "strong",
+                new ModelCascade.Escalation(ModelCascade.Reason.LOW_CONFIDENCE, "0.4"));
+        cascade.recordCompletion("strong");
+
+        assertThat(registry.get("responder.agent.turn").tag("tier", "fast").timer().count())
+                .isEqualTo(2);
+        assertThat(
+                        registry.get("responder.agent.escalations")
+                                .tag("tier", "fast")
+                                .tag("reason", "LOW_CONFIDENCE")
+                                .counter()
+                                .count())
+                .isEqualTo(1.0);
+        assertThat(
+                        registry.get("responder.agent.completions")
+                                .tag("tier", "strong")
+                                .counter()
+                                .count())
+                .isEqualTo(1.0);
+    }
+
+    private static AnalysisResponse report(String failureType, Double confidence) {
+        return new AnalysisResponse(
+                failureType,
+                "hypothesis",
+                "query",
+                Map.of(),
+                "team",
+                List.of(),
+                false,
+                List.of(),
+                confidence,
+                null);
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.responder.config.IncidentMemoryProperties;
+import com.example.responder.config.IncidentStoreProperties;
+import com.example.responder.config.LogEngineProperties;
+import com.example.responder.model.AnalysisResponse;
+import com.example.responder.model.IncidentRequest;
+import com.example.responder.model.LogEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.util.unit.DataSize;
+
+/** Several nodes on one host, each opening its storage with the shipped defaults. */
+class NodeStorageTest {
+
+    @TempDir Path tempDir;
+
+    @Test
+    void nodesOnOneHostGetTheirOwnDirectories() throws Exception {
+        Binder node1 = binder(8081);
+        Binder node2 = binder(8082);
+        IncidentStoreProperties store1 =
+                bind(node1, "responder.store", IncidentStoreProperties.class);
+        IncidentStoreProperties store2 =
+                bind(node2, "responder.store", IncidentStoreProperties.class);
+        IncidentMemoryProperties memory1 =
+                bind(node1, "responder.memory", IncidentMemoryProperties.class);
+        IncidentMemoryProperties memory2 =
+                bind(node2, "responder.memory", IncidentMemoryProperties.class);
+
+        assertThat(store1.path()).isEqualTo(tempDir.resolve("responder-incidents-8081"));
+        assertThat(memory2.path()).isEqualTo(tempDir.resolve("responder-incident-memory-8082"));
+
+        // Both nodes run side by side
+        IncidentStore first = store(store1);
+        IncidentStore second = store(store2);
+        IncidentMemory firstMemory = memory(memory1);
+        IncidentMemory secondMemory = memory(memory2);
+        try {
+            append(first, "payment-service");
+            append(second, "inventory-service");
+            assertThat(first.flush(Duration.ofSeconds(5))).isTrue();
+            assertThat(second.flush(Duration.ofSeconds(5))).isTrue();
+            assertThat(first.query(IncidentStore.Query.ALL, 10))
+                    .extracting(r -> r.request().serviceName())
+                    .containsExactly("payment-service");
+            assertThat(second.query(IncidentStore.Query.ALL, 10))
+                    .extracting(r -> r.request().serviceName())
+                    .containsExactly("inventory-service");
+        } finally {
+            first.close();
+            second.close();
+            firstMemory.close();
+            secondMemory.close();
+        }
+    }
+
+    @Test
+    void secondNodeOnTheSameDirectoryFailsToStart() throws Exception {
+        IncidentStoreProperties storeProperties =
+                new IncidentStoreProperties(
+                        true,
+                        tempDir.resolve("store"),
+                        DataSize.ofMegabytes(1),
+                        Duration.ofMillis(2),
+                        100);
+        IncidentMemoryProperties memoryProperties =
+                new IncidentMemoryProperties(
+                        true,
+                        tempDir.resolve("memory"),
+                        0.95,
+                        0.85,
+                        Duration.ofDays(7),
+                        0.7,
+                        Duration.ofSeconds(5));
+        IncidentStore first = store(storeProperties);
+        IncidentMemory firstMemory = memory(memoryProperties);
+        try {
+            assertThatThrownBy(() -> store(storeProperties))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("responder.store.path");
+            assertThatThrownBy(() -> memory(memoryProperties))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("responder.memory.path");
+        } finally {
+            first.close();
+            firstMemory.close();
+        }
+        // Released on close, so a restarted node opens it again
+        store(storeProperties).close();
+    }
+
+    @Test
+    void offHeapLogShardsOfTwoNodesShareTheRoot() throws Exception {
+        LogEngineProperties properties =
+                new LogEngineProperties(
+                        LogEngineProperties.Storage.OFF_HEAP, tempDir.resolve("logs"), 16, 1);
+        EmbeddedLogEngine first = TestLogEngines.started(properties);
+        EmbeddedLogEngine second = TestLogEngines.started(properties);
+        try {
+            first.ingest(List.of(event("first node")));
+            second.ingest(List.of(event("second node")));
+            assertThat(first.count(first.parseQuery("log.message:node"))).isEqualTo(1);
+            assertThat(second.count(second.parseQuery("log.message:node"))).isEqualTo(1);
+        } finally {
+            first.close();
+            second.close();
+        }
+    }
+
+    /** The shipped application.properties, as seen by a node on {@code port}. */
+    private Binder binder(int port) throws Exception {
+        StandardEnvironment environment = new StandardEnvironment();
+        environment
+                .getPropertySources()
+                .addFirst(
+                        new MapPropertySource(
+                                "node",
+                                Map.of("server.port", port, "java.io.tmpdir", tempDir.toString())));
+        environment
+                .getPropertySources()
+                .addLast(
+                        new ResourcePropertySource(
+                                new FileSystemResource(
+                                        "src/main/resources/application.properties")));
+        return new Binder(
+                ConfigurationPropertySources.from(environment.getPropertySources()),
+                new PropertySourcesPlaceholdersResolver(environment));
+    }
+
+    private static <T> T bind(Binder binder, String prefix, Class<T> type) {
+        return binder.bindOrCreate(prefix, type);
+    }
+
+    private static IncidentStore store(IncidentStoreProperties properties) throws Exception {
+        IncidentStore store =
+                new IncidentStore(
+                        properties,
+                        new ObjectMapper().findAndRegisterModules(),
+                        new SimpleMeterRegistry());
+        store.open();
+        return store;
+    }
+
+    private static IncidentMemory memory(IncidentMemoryProperties properties) throws Exception {
+        // Opening the index needs neither embeddings nor logs
+        IncidentMemory memory =
+                new IncidentMemory(
+                        properties, null, null, new ObjectMapper(), new SimpleMeterRegistry());
+        memory.open();
+        return memory;
+    }
+
+    private static LogEvent event(String message) {
+        return LogEvent.of(Map.of(LogEvent.SERVICE, "payment-service", LogEvent.MESSAGE, message));
+    }
+
+    private static void append(IncidentStore store, String service) {
+        store.append(
+                new IncidentRequest(service, "something is broken", "1h"),
+                new AnalysisResponse(
+                        "Alert: " + service,
+                        "hypothesis",
+                        "log.level:ERROR",
+                        Map.of(),
+                        "SRE",
+                        List.of("Restart"),
+                        false,
+                        List.of(service),
+                        0.9,
+                        "claude-3-5-haiku-20241022"),
+                Map.of("total", 42L));
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.responder.config.LlmProperties;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.ai.autoconfigure.retry.SpringAiRetryAutoConfiguration;
+import org.springframework.ai.autoconfigure.retry.SpringAiRetryProperties;
+import org.springframework.ai.retry.NonTransientAiException;
+import org.springframework.ai.retry.TransientAiException;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Runs the caller against a local stub provider that injects tail latency and errors. Responses go
+ * through Spring AI's error handler, configured like the chat model's.
+ */
+class ResilientLlmCallerTest {
+
+    private final RestClient restClient =
+            RestClient.builder()
+                    .requestFactory(new JdkClientHttpRequestFactory())
+                    .defaultStatusHandler(
+                            new SpringAiRetryAutoConfiguration()
+                                    .responseErrorHandler(retryProperties()))
+                    .build();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final ExecutorService stubThreads = Executors.newCachedThreadPool();
+    private HttpServer stub;
+    private ResilientLlmCaller caller;
+
+    @AfterEach
+    void tearDown() {
+        if (caller != null) caller.stop();
+        if (stub != null) stub.stop(0);
+        stubThreads.shutdownNow();
+    }
+
+    @Test
+    void hedgedRequestBeatsATailLatencyResponse() {
+        // The first request hangs for 5s, every later one answers right away
+        startStub(n -> n == 1 ? 5_000 : 0, n -> 200);
+        caller = new ResilientLlmCaller(properties(Duration.ofSeconds(10), 1, true));
+
+        long start = System.nanoTime();
+        String answer = caller.call("turn", this::callStub);
+
+        assertThat(answer).isEqualTo("answer 2");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(2));
+        assertThat(requests).hasValue(2);
+    }
+
+    @Test
+    void transientFailuresAreRetried() {
+        startStub(n -> 0, n -> n <= 2 ? 503 : 200);
+        caller = new ResilientLlmCaller(properties(Duration.ofSeconds(5), 3, false));
+
+        assertThat(caller.call("turn", this::callStub)).isEqualTo("answer 3");
+        assertThat(requests).hasValue(3);
+    }
+
+    @Test
+    void throttlingAndOverloadAreRetried() {
+        startStub(n -> 0, n -> n == 1 ? 429 : n == 2 ? 529 : 200);
+        caller = new ResilientLlmCaller(properties(Duration.ofSeconds(5), 3, false));
+
+        assertThat(caller.call("turn", this::callStub)).isEqualTo("answer 3");
+        assertThat(requests).hasValue(3);
+    }
+
+    @Test
+    void permanentFailuresAreNotRetried() {
+        startStub(n -> 0, n -> 400);
+        caller = new ResilientLlmCaller(properties(Duration.ofSeconds(5), 3, false));
+
+        assertThatThrownBy(() -> caller.call("turn", this::callStub))
+                .isInstanceOf(NonTransientAiException.class);
+        assertThat(requests).hasValue(1);
+    }
+
+    @Test
+    void turnTimeoutBoundsASlowProvider() {
+        startStub(n -> 5_000, n -> 200);
+        caller = new ResilientLlmCaller(properties(Duration.ofMillis(300), 2, false));
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> caller.call("turn", this::callStub))
+                .isInstanceOf(TransientAiException.class)
+                .hasMessageContaining("timed out");
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(3));
+        assertThat(requests).hasValue(2);
+    }
+
+    @Test
+    void hedgeDelayFollowsTheObservedPercentile() {
+        startStub(n -> 0, n -> 200);
+        caller = new ResilientLlmCaller(properties(Duration.ofSeconds(5), 1, true));
+
+        assertThat(caller.hedgeDelayMillis()).isEqualTo(100);
+        for (int i = 0; i < 30; i++) {
+            caller.call("turn", this::callStub);
+        }
+        assertThat(caller.hedgeDelayMillis()).isLessThan(100);
+    }
+
+    private static LlmProperties properties(Duration turnTimeout, int attempts, boolean hedging) {
+        return new LlmProperties(
+                Duration.ofSeconds(1),
+                turnTimeout,
+                attempts,
+                Duration.ofMillis(10),
+                Duration.ofMillis(50),
+                hedging,
+                95,
+                Duration.ofMillis(100));
+    }
+
+    private void startStub(IntUnaryOperator delayMillis, IntUnaryOperator status) {
+        try {
+            stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        stub.setExecutor(stubThreads);
+        stub.createContext(
+                "/v1/messages",
+                exchange -> {
+                    int n = requests.incrementAndGet();
+                    try {
+                        Thread.sleep(delayMillis.applyAsInt(n));
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        exchange.close();
+                        return;
+                    }
+                    byte[] body = ("answer " + n).getBytes(StandardCharsets.UTF_8);
+                    exchange.sendResponseHeaders(status.applyAsInt(n), body.length);
+                    exchange.getResponseBody().write(body);
+                    exchange.close();
+                });
+        stub.start();
+    }
+
+    /** Stands in for the chat model. */
+    private String callStub() {
+        return restClient
+                .post()
+                .uri("http://127.0.0.1:" + stub.getAddress().getPort() + "/v1/messages")
+                .retrieve()
+                .body(String.class);
+    }
+
+    /**
+     * The spring.ai.retry settings of application.properties: Spring AI does not retry by itself
+     * (the caller does), and 429/529 count as transient next to 5xx.
+     */
+    private static SpringAiRetryProperties retryProperties() {
+        var properties = new SpringAiRetryProperties();
+        properties.setMaxAttempts(1);
+        properties.setOnHttpCodes(List.of(429, 529));
+        return properties;
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.responder.service;
+
+import com.example.responder.model.RunbookAlert;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+class RunbookAlertParserTest {
+
+    @Test
+    void extractsAlertsFromPaymentRunbook() throws IOException {
+        String markdown =
+                new ClassPathResource("runbooks/payment-service.md")
+                        .getContentAsString(StandardCharsets.UTF_8);
+
+        List<RunbookAlert> alerts =
+                RunbookAlertParser.parse("payment-service", markdown, Duration.ofMinutes(10));
+
+        Assertions.assertEquals(3, alerts.size());
+        RunbookAlert first = alerts.get(0);
+        Assertions.assertEquals("payment-service_alert_1", first.id());
+        Assertions.assertEquals("Elevated 5xx Error Rate", first.alertName());
+        Assertions.assertEquals(Duration.ofHours(1), first.timePeriod());
+        Assertions.assertEquals(
+                "type:opentracing-log AND log.level:ERROR AND application.name:\"payment-service\""
+                        + " AND status_code:[500 TO 599]",
+                first.query());
+        // No "Time Period" in the section: falls back to the default window
+        Assertions.assertEquals(Duration.ofMinutes(10), alerts.get(1).timePeriod());
+    }
+}
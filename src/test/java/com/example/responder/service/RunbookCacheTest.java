@@ -0,0 +1,125 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.responder.config.RetrievalProperties;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.ai.document.Document;
+import org.springframework.ai.embedding.Embedding;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.embedding.EmbeddingRequest;
+import org.springframework.ai.embedding.EmbeddingResponse;
+
+class RunbookCacheTest {
+
+    private static final int CHUNKS = 2_000;
+    private static final int DIMENSIONS = 384;
+
+    @TempDir Path tempDir;
+
+    private RunbookCache exact;
+    private RunbookCache quantized;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        exact = open(false);
+        quantized = open(true);
+        List<Document> documents =
+                IntStream.range(0, CHUNKS).mapToObj(i -> new Document("chunk-" + i)).toList();
+        exact.put("payment-service", documents);
+        quantized.put("payment-service", documents);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        exact.close();
+        quantized.close();
+    }
+
+    @Test
+    void quantizedSearchReturnsTheExactTopResults() {
+        int found = 0;
+        for (int q = 0; q < 50; q++) {
+            List<String> expected = texts(exact.search("payment-service", "query-" + q, 10, 0));
+            List<String> actual = texts(quantized.search("payment-service", "query-" + q, 10, 0));
+            assertThat(actual).hasSize(10);
+            assertThat(actual.get(0)).isEqualTo(expected.get(0));
+            found += (int) actual.stream().filter(expected::contains).count();
+        }
+        assertThat(found / 500.0).isGreaterThanOrEqualTo(0.95);
+    }
+
+    @Test
+    void candidatesAreRescoredOnTheExactScale() {
+        // Only the chunk itself scores ~1.0; an int8 score would miss a threshold this tight
+        assertThat(texts(quantized.search("payment-service", "chunk-7", 5, 0.9999)))
+                .containsExactly("chunk-7")
+                .isEqualTo(texts(exact.search("payment-service", "chunk-7", 5, 0.9999)));
+        assertThat(quantized.search("inventory-service", "chunk-7", 5, 0)).isEmpty();
+    }
+
+    @Test
+    void replacingAServiceReusesTheSlotsOfItsVectors() {
+        for (int round = 1; round <= 3; round++) {
+            int offset = round * CHUNKS;
+            quantized.put(
+                    "payment-service",
+                    IntStream.range(0, CHUNKS)
+                            .mapToObj(i -> new Document("chunk-" + (offset + i)))
+                            .toList());
+        }
+
+        // The new vectors are written before the old ones are released, never more
+        assertThat(quantized.vectorCapacity()).isEqualTo(2 * CHUNKS);
+        assertThat(texts(quantized.search("payment-service", "chunk-6007", 5, 0.9999)))
+                .containsExactly("chunk-6007");
+        assertThat(texts(quantized.search("payment-service", "chunk-7", 5, 0.9999))).isEmpty();
+    }
+
+    private RunbookCache open(boolean quantize) throws Exception {
+        RunbookCache cache =
+                new RunbookCache(
+                        new RandomEmbeddingModel(), new RetrievalProperties(quantize, 4, tempDir));
+        cache.open();
+        return cache;
+    }
+
+    private static List<String> texts(Optional<List<Document>> documents) {
+        return documents.orElseThrow().stream().map(Document::getText).toList();
+    }
+
+    /** A fixed pseudo-random vector per text. */
+    private static final class RandomEmbeddingModel implements EmbeddingModel {
+
+        @Override
+        public EmbeddingResponse call(EmbeddingRequest request) {
+            List<String> texts = request.getInstructions();
+            return new EmbeddingResponse(
+                    IntStream.range(0, texts.size())
+                            .mapToObj(i -> new Embedding(vector(texts.get(i)), i))
+                            .toList());
+        }
+
+        @Override
+        public float[] embed(Document document) {
+            return vector(document.getText());
+        }
+
+        private static float[] vector(String text) {
+            Random random = new Random(text.hashCode());
+            float[] vector = new float[DIMENSIONS];
+            for (int i = 0; i < DIMENSIONS; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+            return vector;
+        }
+    }
+}
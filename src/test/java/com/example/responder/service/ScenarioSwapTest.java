@@ -0,0 +1,95 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.responder.model.LogIndexStats;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ScenarioSwapTest {
+
+    private EmbeddedLogEngine engine;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        engine = TestLogEngines.started();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        engine.close();
+    }
+
+    @Test
+    void searchesOnlyEverSeeCompleteScenarios() throws Exception {
+        Set<Integer> observed = ConcurrentHashMap.newKeySet();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread searcher =
+                new Thread(
+                        () -> {
+                            while (running.get()) {
+                                observed.add(engine.executeSearch("log.level:ERROR").matchCount());
+                            }
+                        });
+        searcher.start();
+        try {
+            for (int i = 0; i < 20; i++) {
+                engine.loadScenario(i % 2 == 0 ? "payment-500-npe" : "healthy");
+            }
+        } finally {
+            running.set(false);
+            searcher.join();
+        }
+
+        // 50 NPEs or none at all, never a partially loaded (or partially deleted) index
+        assertThat(observed).isSubsetOf(List.of(0, 50));
+    }
+
+    @Test
+    void sequenceBecomesVisibleWithTheSwap() {
+        long before = engine.currentSequence();
+
+        engine.loadScenario("payment-500-npe");
+
+        assertThat(engine.currentSequence()).isEqualTo(before + 50);
+    }
+
+    @Test
+    void listenersSeeTheFixturesOnceTheNewGenerationIsLive() {
+        long before = engine.currentSequence();
+        List<Integer> visibleToListener = new CopyOnWriteArrayList<>();
+        engine.addIngestListener(
+                events ->
+                        visibleToListener.add(
+                                engine.executeSearch("log.level:ERROR").matchCount()));
+
+        engine.loadScenario("payment-500-npe");
+
+        assertThat(visibleToListener).containsExactly(50);
+        assertThat(engine.generationStart()).isEqualTo(before);
+    }
+
+    @Test
+    void statsDescribeTheCurrentGeneration() throws Exception {
+        engine.loadScenario("payment-500-npe");
+
+        LogIndexStats stats = engine.stats();
+
+        assertThat(stats.docs()).isEqualTo(50);
+        assertThat(stats.shards())
+                .singleElement()
+                .satisfies(
+                        shard -> {
+                            assertThat(shard.name()).isEqualTo("payment-service");
+                            assertThat(shard.bytesByStructure())
+                                    .containsKeys("postings", "docValues");
+                            assertThat(shard.fields().get("log.level").docCount()).isEqualTo(50);
+                        });
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.example.responder.tools.StructuredLogSearchTool.Clause;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class StructuredQueryCompilerTest {
+
+    private EmbeddedLogEngine engine;
+    private StructuredQueryCompiler compiler;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        engine = TestLogEngines.started();
+        compiler = new StructuredQueryCompiler(engine);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        engine.close();
+    }
+
+    @Test
+    void matchesTheRunbookQueryWithoutParsing() {
+        engine.loadScenario("payment-500-npe");
+
+        var clauses =
+                List.of(
+                        new Clause("application.name", "=", "payment-service", null),
+                        new Clause("log.level", "=", "ERROR", null),
+                        new Clause("status_code", "between", "500", "599"),
+                        new Clause("log.message", "contains", "NullPointerException", null));
+
+        assertThat(count(clauses)).isEqualTo(50);
+        assertThat(count(List.of(new Clause("log.level", "!=", "ERROR", null)))).isZero();
+    }
+
+    @Test
+    void comparesIntegersNumerically() {
+        engine.loadScenario("payment-latency"); // value = 5000
+
+        assertThat(count(List.of(new Clause("value", ">", "2000", null)))).isEqualTo(20);
+        assertThat(count(List.of(new Clause("value", ">", "10000", null)))).isZero();
+        // "10000" < "5000" as strings; a term range would wrongly match here
+        assertThat(count(List.of(new Clause("value", "<", "10000", null)))).isEqualTo(20);
+    }
+
+    @Test
+    void rejectsUnknownOperatorsWithAHint() {
+        assertThatThrownBy(() -> compiler.compile(List.of(new Clause("value", "~", "1", null))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("between");
+    }
+
+    private int count(List<Clause> clauses) {
+        return engine.executeSearch(compiler.compile(clauses), "test").matchCount();
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.responder.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.example.responder.model.LogEvent;
+import com.example.responder.model.LogScenario;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class SyntheticLogGeneratorTest {
+
+    private static final long END = 1_700_000_000_000L;
+
+    private final LogScenario.Generator spec =
+            new LogScenario.Generator(
+                    10_000,
+                    60,
+                    7,
+                    2,
+                    Map.of("payment-service", 9.0, "inventory-service", 1.0),
+                    List.of(
+                            new LogScenario.Pattern(1, "ERROR", "500", "Order {n} failed", null),
+                            new LogScenario.Pattern(3, "INFO", "200", "Took {ms}ms", null)));
+
+    @Test
+    void slicesAreDeterministic() {
+        var generator = new SyntheticLogGenerator(spec, END);
+
+        assertThat(generator.batch(5_000, 100)).isEqualTo(generator.batch(5_000, 100));
+        assertThat(new SyntheticLogGenerator(spec, END).batch(0, 10))
+                .isEqualTo(generator.batch(0, 10));
+    }
+
+    @Test
+    void followsWeightsAndSpreadsOverTheSpan() {
+        List<LogEvent> events = new SyntheticLogGenerator(spec, END).batch(0, 10_000);
+
+        long payment =
+                events.stream().filter(e -> "payment-service".equals(e.serviceName())).count();
+        long errors = events.stream().filter(e -> "ERROR".equals(e.get(LogEvent.LEVEL))).count();
+        assertThat(payment).isBetween(8_700L, 9_300L);
+        assertThat(errors).isBetween(2_200L, 2_800L);
+
+        assertThat(events.get(0).timestamp()).isEqualTo(END - 3_600_000);
+        assertThat(events.get(9_999).timestamp()).isLessThan(END);
+        assertThat(events.get(0).get(LogEvent.TRACE_ID))
+                .isEqualTo(events.get(1).get(LogEvent.TRACE_ID))
+                .isNotEqualTo(events.get(2).get(LogEvent.TRACE_ID));
+        assertThat(events).allMatch(e -> !e.get(LogEvent.MESSAGE).contains("{"));
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.responder.service;
+
+import com.example.responder.config.LogEngineProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+
+/** Log engines for tests, started like the application does (loaded with the healthy scenario). */
+public final class TestLogEngines {
+
+    private TestLogEngines() {}
+
+    public static EmbeddedLogEngine started() throws IOException {
+        return started(LogEngineProperties.defaults());
+    }
+
+    public static EmbeddedLogEngine started(LogEngineProperties properties) throws IOException {
+        EmbeddedLogEngine engine =
+                new EmbeddedLogEngine(properties, new ScenarioCatalog(new ObjectMapper()));
+        engine.init();
+        return engine;
+    }
+}